@@ -0,0 +1,434 @@
+package org.example.contractparser;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+/**
+ * Optional encryption at rest for the archive and the OCR cache, enabled by putting a base64 AES key in
+ * {@code ARCHIVE_KEY} of the {@code .env} file. Without the key everything is written in plain text as before.
+ *
+ * <p>Files are encrypted as a stream of 64 KiB chunks, each sealed with AES-GCM. Only one chunk is held in memory
+ * and the cipher is reused, so writing costs a few percent over a plain write. The nonce of a chunk is a random
+ * per-file prefix, the chunk counter and a flag on the last chunk. A dropped, reordered or truncated chunk
+ * therefore fails authentication, instead of silently shortening the file.</p>
+ *
+ * <pre>
+ * header: "CPAE" | version 1 | 7-byte nonce prefix     chunk: ciphertext | 16-byte tag
+ * </pre>
+ *
+ * <p>Reading recognises the header, so archives that were written before encryption was turned on still open.</p>
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.ArchiveCrypto --generate-key
+ * java -cp ContractParser.jar org.example.contractparser.ArchiveCrypto --decrypt arhiva/Ion_Pop.docx Ion_Pop.docx
+ * java -cp ContractParser.jar org.example.contractparser.ArchiveCrypto --encrypt in out | --benchmark [MB]
+ * </pre>
+ */
+public final class ArchiveCrypto {
+
+    public static final String KEY_VARIABLE = "ARCHIVE_KEY";
+    static final int CHUNK = 64 * 1024;
+    private static final int TAG_BYTES = 16;
+    private static final byte[] MAGIC = "CPAE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final int PREFIX_BYTES = 7;
+    private static final int HEADER_BYTES = MAGIC.length + 1 + PREFIX_BYTES;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile ArchiveCrypto defaultCrypto;
+
+    private final SecretKey key;
+
+    private ArchiveCrypto(SecretKey key) {
+        this.key = key;
+    }
+
+    /**
+     * @param key a 16, 24 or 32 byte AES key, or {@code null} to leave files in plain text
+     */
+    public static ArchiveCrypto of(byte[] key) {
+        if (key != null && key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException(KEY_VARIABLE + " must be a base64 AES key of 16, 24 or 32 bytes");
+        }
+        return new ArchiveCrypto(key != null ? new SecretKeySpec(key, "AES") : null);
+    }
+
+    /**
+     * @return the crypto configured by {@code ARCHIVE_KEY} in the {@code .env} next to the JAR, or the environment
+     */
+    public static ArchiveCrypto getDefault() {
+        ArchiveCrypto crypto = defaultCrypto;
+        if (crypto == null) {
+            synchronized (ArchiveCrypto.class) {
+                crypto = defaultCrypto;
+                if (crypto == null) {
+                    String value = EnvLoader.loadEnvFromJarDirectory(".env", false).get(KEY_VARIABLE);
+                    if (value == null || value.isBlank()) {
+                        value = System.getenv(KEY_VARIABLE);
+                    }
+                    crypto = of(value != null && !value.isBlank() ? Base64.getDecoder().decode(value.trim()) : null);
+                    defaultCrypto = crypto;
+                }
+            }
+        }
+        return crypto;
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * @return a stream that encrypts into {@code out}, or {@code out} itself when no key is configured;
+     * closing it writes the last chunk and closes {@code out}
+     */
+    public OutputStream encrypt(OutputStream out) throws IOException {
+        return key != null ? new EncryptingOutputStream(out, key) : out;
+    }
+
+    /**
+     * @return the plain content of {@code in}, decrypting it when it starts with the archive header
+     */
+    public InputStream decrypt(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, CHUNK + TAG_BYTES);
+        buffered.mark(HEADER_BYTES);
+        byte[] header = buffered.readNBytes(HEADER_BYTES);
+        if (header.length < HEADER_BYTES || !Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            buffered.reset();
+            return buffered;
+        }
+        if (key == null) {
+            throw new IOException("File is encrypted but " + KEY_VARIABLE + " is not set");
+        }
+        if (header[MAGIC.length] != VERSION) {
+            throw new IOException("Unsupported archive encryption version " + header[MAGIC.length]);
+        }
+        return new DecryptingInputStream(buffered, key, header);
+    }
+
+    /**
+     * @return a buffered stream to {@code file}, encrypted when a key is configured; full chunks pass the buffer
+     */
+    public OutputStream newOutputStream(Path file) throws IOException {
+        return encrypt(new BufferedOutputStream(Files.newOutputStream(file), CHUNK));
+    }
+
+    public InputStream newInputStream(Path file) throws IOException {
+        return decrypt(Files.newInputStream(file));
+    }
+
+    private static byte[] nonce(byte[] header, long counter, boolean last) throws IOException {
+        if (counter > 0xFFFFFFFFL) {
+            throw new IOException("File too large for archive encryption");
+        }
+        byte[] nonce = new byte[12];
+        System.arraycopy(header, MAGIC.length + 1, nonce, 0, PREFIX_BYTES);
+        nonce[7] = (byte) (counter >>> 24);
+        nonce[8] = (byte) (counter >>> 16);
+        nonce[9] = (byte) (counter >>> 8);
+        nonce[10] = (byte) counter;
+        nonce[11] = (byte) (last ? 1 : 0);
+        return nonce;
+    }
+
+    private static Cipher newCipher() throws IOException {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IOException("AES-GCM is not available", e);
+        }
+    }
+
+    /**
+     * Buffers one chunk; a full chunk is only sealed when more data follows, so the last one gets the flag.
+     */
+    private static final class EncryptingOutputStream extends FilterOutputStream {
+        private final SecretKey key;
+        private final Cipher cipher;
+        private final byte[] header = new byte[HEADER_BYTES];
+        private final byte[] plain = new byte[CHUNK];
+        private final byte[] sealed = new byte[CHUNK + TAG_BYTES];
+        private int buffered;
+        private long counter;
+        private boolean closed;
+
+        EncryptingOutputStream(OutputStream out, SecretKey key) throws IOException {
+            super(out);
+            this.key = key;
+            this.cipher = newCipher();
+            System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+            header[MAGIC.length] = VERSION;
+            byte[] prefix = new byte[PREFIX_BYTES];
+            RANDOM.nextBytes(prefix);
+            System.arraycopy(prefix, 0, header, MAGIC.length + 1, PREFIX_BYTES);
+            out.write(header);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (buffered == CHUNK) seal(plain, 0, CHUNK, false);
+            plain[buffered++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (buffered == CHUNK) seal(plain, 0, CHUNK, false);
+                if (buffered == 0 && len > CHUNK) { // whole chunks with more data after them skip the copy
+                    seal(b, off, CHUNK, false);
+                    off += CHUNK;
+                    len -= CHUNK;
+                    continue;
+                }
+                int n = Math.min(len, CHUNK - buffered);
+                System.arraycopy(b, off, plain, buffered, n);
+                buffered += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush(); // a partial chunk can only be written once it is known whether it is the last one
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                seal(plain, 0, buffered, true);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void seal(byte[] source, int offset, int length, boolean last) throws IOException {
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BYTES * 8, nonce(header, counter++, last)));
+                cipher.updateAAD(header);
+                int n = cipher.doFinal(source, offset, length, sealed, 0);
+                out.write(sealed, 0, n);
+                buffered = 0;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Encryption failed", e);
+            }
+        }
+    }
+
+    /**
+     * Reads one sealed chunk ahead; it is the last one when the stream ends right after it.
+     */
+    private static final class DecryptingInputStream extends InputStream {
+        private final InputStream in;
+        private final SecretKey key;
+        private final byte[] header;
+        private final Cipher cipher;
+        private final byte[] sealed = new byte[CHUNK + TAG_BYTES];
+        private final byte[] plain = new byte[CHUNK + TAG_BYTES];
+        private int position;
+        private int limit;
+        private long counter;
+        private boolean finished;
+
+        DecryptingInputStream(InputStream in, SecretKey key, byte[] header) throws IOException {
+            this.in = in;
+            this.key = key;
+            this.header = header;
+            this.cipher = newCipher();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return plain[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (position == limit && !fill()) return -1;
+            int n = Math.min(len, limit - position);
+            System.arraycopy(plain, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            while (!finished) {
+                int n = in.readNBytes(sealed, 0, sealed.length);
+                boolean last = n < sealed.length;
+                if (!last) {
+                    in.mark(1);
+                    last = in.read() == -1;
+                    in.reset();
+                }
+                if (n < TAG_BYTES) {
+                    throw new IOException("Encrypted file is truncated");
+                }
+                try {
+                    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BYTES * 8, nonce(header, counter++, last)));
+                    cipher.updateAAD(header);
+                    limit = cipher.doFinal(sealed, 0, n, plain, 0);
+                    position = 0;
+                } catch (ShortBufferException e) {
+                    throw new IOException(e);
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("Encrypted file is corrupt, truncated or uses another key", e);
+                }
+                finished = last;
+                if (limit > 0) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && args[0].equals("--generate-key")) {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            System.out.println(KEY_VARIABLE + "=" + Base64.getEncoder().encodeToString(generator.generateKey().getEncoded()));
+        } else if (args.length == 3 && (args[0].equals("--decrypt") || args[0].equals("--encrypt"))) {
+            ArchiveCrypto crypto = getDefault();
+            boolean decrypt = args[0].equals("--decrypt");
+            try (InputStream in = decrypt ? crypto.newInputStream(Path.of(args[1])) : Files.newInputStream(Path.of(args[1]));
+                 OutputStream out = decrypt ? Files.newOutputStream(Path.of(args[2])) : crypto.newOutputStream(Path.of(args[2]))) {
+                in.transferTo(out);
+            }
+        } else if (args.length >= 1 && args[0].equals("--benchmark")) {
+            benchmark(args.length > 1 ? Integer.parseInt(args[1]) : 256);
+        } else {
+            System.err.println("Usage: ArchiveCrypto --generate-key | --encrypt <in> <out> | --decrypt <in> <out> | --benchmark [MB]");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compares plain and encrypted writes and reads of a raw stream in 8 KiB writes, then of generated documents
+     * written to files the way {@link ContractService#generateDocuments} does.
+     */
+    private static void benchmark(int megabytes) throws IOException {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        ArchiveCrypto encrypted = of(key);
+        ArchiveCrypto plain = of(null);
+        byte[] block = new byte[8192];
+        RANDOM.nextBytes(block);
+        long total = (long) megabytes << 20;
+        CompiledTemplate template = CompiledTemplate.compile(benchmarkTemplate());
+        ContractRecord.Builder data = ContractRecord.builder();
+        for (ContractField field : ContractField.values()) {
+            data.set(field, field.getLabel() + " valoare");
+        }
+        ContractRecord record = data.build();
+        int documents = 5000;
+
+        Path dir = Files.createTempDirectory("archive-crypto");
+        File file = dir.resolve("stream.bin").toFile();
+        try {
+            for (int round = 0; round < 5; round++) { // the first rounds warm up the JIT
+                long plainWrite = time(() -> write(plain, file, block, total));
+                long plainRead = time(() -> read(plain, file));
+                long encryptedWrite = time(() -> write(encrypted, file, block, total));
+                long encryptedRead = time(() -> read(encrypted, file));
+                long plainDocuments = time(() -> writeDocuments(plain, dir, template, record, documents));
+                long encryptedDocuments = time(() -> writeDocuments(encrypted, dir, template, record, documents));
+                if (round == 4) {
+                    System.out.printf("stream %d MB: write %d ms plain, %d ms encrypted (%+.1f%%); read %d ms plain, %d ms encrypted (%+.1f%%)%n",
+                            megabytes, plainWrite, encryptedWrite, overhead(plainWrite, encryptedWrite),
+                            plainRead, encryptedRead, overhead(plainRead, encryptedRead));
+                    System.out.printf("%d documents: %d ms plain, %d ms encrypted (%+.1f%%)%n",
+                            documents, plainDocuments, encryptedDocuments, overhead(plainDocuments, encryptedDocuments));
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path path : (Iterable<Path>) files::iterator) Files.delete(path);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static double overhead(long plain, long encrypted) {
+        return 100.0 * (encrypted - plain) / plain;
+    }
+
+    private static byte[] benchmarkTemplate() throws IOException {
+        try (XWPFDocument document = new XWPFDocument()) {
+            for (int i = 0; i < 40; i++) {
+                XWPFParagraph paragraph = document.createParagraph();
+                for (ContractField field : ContractField.values()) {
+                    paragraph.createRun().setText(field.getLabel() + ": " + field.getPlaceholder() + "; ");
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void writeDocuments(ArchiveCrypto crypto, Path dir, CompiledTemplate template, ContractRecord record,
+                                       int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            try (OutputStream out = crypto.newOutputStream(dir.resolve("doc-" + (i % 100) + ".docx"))) {
+                Contract.generateContract(template, out, record);
+            }
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static long time(IoAction action) throws IOException {
+        long start = System.nanoTime();
+        action.run();
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void write(ArchiveCrypto crypto, File file, byte[] block, long total) throws IOException {
+        try (OutputStream out = crypto.newOutputStream(file.toPath())) {
+            for (long written = 0; written < total; written += block.length) {
+                out.write(block);
+            }
+        }
+    }
+
+    private static void read(ArchiveCrypto crypto, File file) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = crypto.newInputStream(file.toPath())) {
+            while (in.read(buffer) != -1) {
+                // consume
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.contractparser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over {@link ImageHash} values. Finding the nearest hash within a small distance only
+ * visits the children whose edge distance is within that range of the query, a small part of the tree.
+ */
+final class BkTree<V> {
+
+    static final class Match<V> {
+        private final V value;
+        private final int distance;
+
+        Match(V value, int distance) {
+            this.value = value;
+            this.distance = distance;
+        }
+
+        V getValue() {
+            return value;
+        }
+
+        int getDistance() {
+            return distance;
+        }
+    }
+
+    private static final class Node<V> {
+        final long[] hash;
+        final V value;
+        final Map<Integer, Node<V>> children = new HashMap<>(4);
+
+        Node(long[] hash, V value) {
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    private Node<V> root;
+    private int size;
+
+    void add(long[] hash, V value) {
+        size++;
+        if (root == null) {
+            root = new Node<>(hash, value);
+            return;
+        }
+        Node<V> node = root;
+        while (true) {
+            int distance = ImageHash.distance(node.hash, hash);
+            if (distance == 0) {
+                size--; // same hash already present, the first value is kept
+                return;
+            }
+            Node<V> child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node<>(hash, value));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * @return the closest value at most {@code maxDistance} bits away, or {@code null}
+     */
+    Match<V> nearest(long[] hash, int maxDistance) {
+        if (root == null) {
+            return null;
+        }
+        Node<V> best = null;
+        int bestDistance = maxDistance + 1;
+        Deque<Node<V>> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node<V> node = pending.pop();
+            int distance = ImageHash.distance(node.hash, hash);
+            if (distance < bestDistance) {
+                best = node;
+                bestDistance = distance;
+            }
+            // triangle inequality: only children with an edge within bestDistance - 1 of ours can be closer
+            int limit = bestDistance - 1;
+            for (Map.Entry<Integer, Node<V>> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= limit) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        return best != null ? new Match<>(best.value, bestDistance) : null;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,273 @@
+package org.example.contractparser;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.contractparser.jfr.OcrRequestEvent;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Skips OCR for scans that were already read. A file with the same bytes as an earlier scan gets the earlier
+ * text blocks as they were. Otherwise every image gets an {@link ImageHash}; when an earlier scan is within
+ * {@code maxDistance} bits (the same card re-scanned, re-saved or resized, or another person's card that happens
+ * to look alike) its text blocks are reused with every confidence set to {@link #NEAR_HIT_CONFIDENCE}, so the
+ * record goes to review and a clerk compares it with the scan before anything is generated.
+ *
+ * <p>Results are kept as JSON files with both hashes in {@value #CACHE_DIR} next to the JAR. On start the byte
+ * hashes are loaded into a map and the image hashes into a {@link BkTree}, so a lookup stays well under a
+ * millisecond. Files that are not images, like offline transcripts, go straight to the wrapped client.</p>
+ */
+public class CachingOcrClient implements OcrClient {
+
+    public static final String CACHE_DIR = "ocr-cache";
+    /** Kept small since scans of different people on one card design can be close; near hits are reviewed anyway. */
+    public static final int DEFAULT_MAX_DISTANCE = 8;
+    /** Confidence of the blocks of a near hit, under any review threshold above 0. */
+    public static final float NEAR_HIT_CONFIDENCE = 0f;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static CachingOcrClient defaultClient;
+
+    private final OcrClient delegate;
+    private final Path cacheDir;
+    private final int maxDistance;
+    private final BkTree<Path> tree = new BkTree<>();
+    private final Map<String, Path> exact = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger nearHits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public CachingOcrClient(OcrClient delegate, Path cacheDir, int maxDistance) throws IOException {
+        this.delegate = delegate;
+        this.cacheDir = cacheDir;
+        this.maxDistance = maxDistance;
+        Files.createDirectories(cacheDir);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDir, "*.json")) {
+            for (Path entry : entries) {
+                try {
+                    JsonNode json = readJson(entry);
+                    tree.add(ImageHash.fromHex(json.path("hash").asText()), entry);
+                    if (json.hasNonNull("sha256")) {
+                        exact.put(json.get("sha256").asText(), entry);
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Ignoring " + entry + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the cache next to the JAR in front of Textract, with one client per image as before
+     */
+    public static synchronized CachingOcrClient getDefault() {
+        if (defaultClient == null) {
+            try {
+                defaultClient = new CachingOcrClient(imagePath -> {
+                    DetectText detectText = new DetectText();
+                    try {
+                        return detectText.extractTextBlocks(imagePath);
+                    } finally {
+                        detectText.close();
+                    }
+                }, defaultDirectory(), DEFAULT_MAX_DISTANCE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return defaultClient;
+    }
+
+    public static Path defaultDirectory() {
+        try {
+            return new File(ConfigToJarDir.getJarDir(), CACHE_DIR).toPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot locate the JAR directory", e);
+        }
+    }
+
+    @Override
+    public List<DetectText.TextBlock> extractTextBlocks(String imagePath) throws IOException {
+        OcrRequestEvent event = new OcrRequestEvent();
+        event.begin();
+        Path image = Path.of(imagePath);
+        if (!Files.isRegularFile(image)) {
+            return delegate.extractTextBlocks(imagePath);
+        }
+        // the byte hash is cheap next to decoding, so identical files never decode the image
+        String sha256 = sha256(image);
+        Path same = exact.get(sha256);
+        if (same != null) {
+            List<DetectText.TextBlock> blocks = cached(same, imagePath, event, 0);
+            if (blocks != null) {
+                hits.incrementAndGet();
+                return blocks;
+            }
+        }
+
+        long[] hash = ImageHash.of(image.toFile());
+        if (hash == null || ImageHash.isFlat(hash)) {
+            return delegate.extractTextBlocks(imagePath);
+        }
+        BkTree.Match<Path> match;
+        synchronized (tree) {
+            match = tree.nearest(hash, maxDistance);
+        }
+        if (match != null && !match.getValue().equals(same)) {
+            List<DetectText.TextBlock> blocks = cached(match.getValue(), imagePath, event, match.getDistance());
+            if (blocks != null) {
+                // the text may belong to another person, so it is only offered for review
+                nearHits.incrementAndGet();
+                return flagged(blocks);
+            }
+        }
+
+        misses.incrementAndGet();
+        List<DetectText.TextBlock> blocks = delegate.extractTextBlocks(imagePath);
+        String hex = ImageHash.toHex(hash);
+        // the hashes are too long for a file name, they are stored inside
+        Path entry = cacheDir.resolve(UUID.nameUUIDFromBytes(sha256.getBytes(StandardCharsets.US_ASCII)) + ".json");
+        write(entry, hex, sha256, blocks);
+        synchronized (tree) {
+            tree.add(hash, entry);
+        }
+        exact.put(sha256, entry);
+        return blocks;
+    }
+
+    /**
+     * @param distance bits between the scan and the cached one, 0 for the same file
+     * @return the cached blocks, or {@code null} when the entry cannot be read
+     */
+    private static List<DetectText.TextBlock> cached(Path entry, String imagePath, OcrRequestEvent event, int distance) {
+        List<DetectText.TextBlock> blocks;
+        try {
+            blocks = read(entry);
+        } catch (IOException e) {
+            System.err.println("Unreadable OCR cache entry " + entry + ": " + e.getMessage());
+            return null;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.client = "Cache";
+            event.image = imagePath;
+            event.blocks = blocks.size();
+            event.cacheHit = true;
+            event.distance = distance;
+            event.commit();
+        }
+        return blocks;
+    }
+
+    /**
+     * @return the blocks of a near hit with {@link #NEAR_HIT_CONFIDENCE}
+     */
+    private static List<DetectText.TextBlock> flagged(List<DetectText.TextBlock> blocks) {
+        List<DetectText.TextBlock> flagged = new ArrayList<>(blocks.size());
+        for (DetectText.TextBlock block : blocks) {
+            flagged.add(new DetectText.TextBlock(block.getText(), NEAR_HIT_CONFIDENCE, block.getGeometry()));
+        }
+        return flagged;
+    }
+
+    private static String sha256(Path image) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(image), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return lookups answered by a similar but not identical scan, whose records go to review
+     */
+    public int getNearHits() {
+        return nearHits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public OcrClient getDelegate() {
+        return delegate;
+    }
+
+    private static void write(Path entry, String hash, String sha256, List<DetectText.TextBlock> blocks) throws IOException {
+        List<Map<String, Object>> json = new ArrayList<>(blocks.size());
+        for (DetectText.TextBlock block : blocks) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("text", block.getText());
+            map.put("confidence", block.getConfidence());
+            BoundingBox box = block.getGeometry() != null ? block.getGeometry().boundingBox() : null;
+            if (box != null) {
+                map.put("box", new float[]{box.left(), box.top(), box.width(), box.height()});
+            }
+            json.add(map);
+        }
+        Map<String, Object> cached = new LinkedHashMap<>();
+        cached.put("hash", hash);
+        cached.put("sha256", sha256);
+        cached.put("blocks", json);
+        Path temp = Files.createTempFile(entry.getParent(), "ocr", ".tmp");
+        try (OutputStream out = ArchiveCrypto.getDefault().newOutputStream(temp)) {
+            MAPPER.writeValue(out, cached);
+        }
+        Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static JsonNode readJson(Path entry) throws IOException {
+        try (InputStream in = ArchiveCrypto.getDefault().newInputStream(entry)) {
+            return MAPPER.readTree(in);
+        }
+    }
+
+    private static List<DetectText.TextBlock> read(Path entry) throws IOException {
+        List<Map<String, Object>> json = MAPPER.convertValue(readJson(entry).path("blocks"),
+                new TypeReference<>() {
+                });
+        List<DetectText.TextBlock> blocks = new ArrayList<>(json.size());
+        for (Map<String, Object> map : json) {
+            Number confidence = (Number) map.get("confidence");
+            @SuppressWarnings("unchecked")
+            List<Number> box = (List<Number>) map.get("box");
+            blocks.add(new DetectText.TextBlock((String) map.get("text"),
+                    confidence != null ? confidence.floatValue() : null,
+                    box != null ? OfflineOcr.geometry(box.get(0).floatValue(), box.get(1).floatValue(),
+                            box.get(2).floatValue(), box.get(3).floatValue()) : null));
+        }
+        return blocks;
+    }
+}
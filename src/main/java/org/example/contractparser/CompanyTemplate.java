@@ -0,0 +1,63 @@
+package org.example.contractparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Contract and fisa template of one company, held in memory and compiled once by {@link TemplateRegistry}.
+ */
+public final class CompanyTemplate {
+
+    private final String company;
+    private final byte[] contract;
+    private final byte[] fisa;
+    private final CompiledTemplate compiledContract;
+    private final CompiledTemplate compiledFisa;
+    private final String version;
+    private final String source;
+
+    CompanyTemplate(String company, byte[] contract, byte[] fisa, CompiledTemplate compiledContract,
+                    CompiledTemplate compiledFisa, String version, String source) {
+        this.company = company;
+        this.contract = contract;
+        this.fisa = fisa;
+        this.compiledContract = compiledContract;
+        this.compiledFisa = compiledFisa;
+        this.version = version;
+        this.source = source;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public InputStream openContract() {
+        return new ByteArrayInputStream(contract);
+    }
+
+    public InputStream openFisa() {
+        return new ByteArrayInputStream(fisa);
+    }
+
+    public InputStream open(DocumentType type) {
+        return type == DocumentType.FISA ? openFisa() : openContract();
+    }
+
+    public CompiledTemplate getCompiled(DocumentType type) {
+        return type == DocumentType.FISA ? compiledFisa : compiledContract;
+    }
+
+    /**
+     * @return hex digest of both template files, changes whenever either file changes
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return where the templates were loaded from, a directory or {@code classpath}
+     */
+    public String getSource() {
+        return source;
+    }
+}
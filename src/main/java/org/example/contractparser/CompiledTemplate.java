@@ -0,0 +1,305 @@
+package org.example.contractparser;
+
+import org.apache.poi.xwpf.usermodel.IBody;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFAbstractFootnoteEndnote;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFFooter;
+import org.apache.poi.xwpf.usermodel.XWPFHeader;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.apache.xmlbeans.impl.xb.xmlschema.SpaceAttribute;
+import org.example.contractparser.jfr.DocumentWriteEvent;
+import org.example.contractparser.jfr.SubstitutionEvent;
+import org.example.contractparser.jfr.TemplateLoadEvent;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTText;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A .docx template prepared once so each document is generated by copying bytes.
+ *
+ * <p>Compiling parses the template with POI a single time. Every text element that holds a placeholder
+ * is marked {@code xml:space="preserve"}, so values that start or end with a space keep it. This covers
+ * the body, headers, footers, foot- and endnotes, and tables nested to any depth. The XML of those parts
+ * is then cut at the placeholder characters into raw byte segments.</p>
+ *
+ * <p>Generating a document writes the segments with the XML-escaped value of each field in between, and
+ * copies the other ZIP entries unchanged. Every {@code <w:t>} of every run is covered, not only the first
+ * one, and no document model is built per employee.</p>
+ */
+public final class CompiledTemplate {
+
+    /** Parts of a WordprocessingML package whose text can hold placeholders. */
+    private static final Pattern TEXT_PART = Pattern.compile("word/(document|header\\d*|footer\\d*|footnotes|endnotes)\\.xml");
+    /** Already compressed media, stored as is instead of being deflated again for every document. */
+    private static final Pattern COMPRESSED = Pattern.compile("(?i).*\\.(png|jpe?g|gif|jpeg|zip)");
+
+    private static final class Part {
+        final String name;
+        final byte[][] segments;
+        final ContractField[] fields;
+        final boolean stored;
+        final long crc;
+
+        Part(String name, byte[][] segments, ContractField[] fields, boolean stored, long crc) {
+            this.name = name;
+            this.segments = segments;
+            this.fields = fields;
+            this.stored = stored;
+            this.crc = crc;
+        }
+    }
+
+    private static final ContractField[] FIELDS = ContractField.values();
+
+    private final String name;
+    private final List<Part> parts;
+    private final int placeholderCount;
+    /** The distinct fields of all parts, so each value is escaped once per document. */
+    private final ContractField[] usedFields;
+
+    private CompiledTemplate(String name, List<Part> parts) {
+        this.name = name;
+        this.parts = parts;
+        int count = 0;
+        boolean[] used = new boolean[FIELDS.length];
+        for (Part part : parts) {
+            count += part.fields.length;
+            for (ContractField field : part.fields) used[field.ordinal()] = true;
+        }
+        this.placeholderCount = count;
+        List<ContractField> fields = new ArrayList<>();
+        for (ContractField field : FIELDS) {
+            if (used[field.ordinal()]) fields.add(field);
+        }
+        this.usedFields = fields.toArray(new ContractField[0]);
+    }
+
+    /**
+     * @throws IOException when the bytes are not a .docx document
+     */
+    public static CompiledTemplate compile(byte[] docx) throws IOException {
+        return compile(docx, null);
+    }
+
+    /**
+     * @param name shown in diagnostics such as the {@link TemplateLoadEvent}, for example {@code Robest/contract.docx}
+     * @throws IOException when the bytes are not a .docx document
+     */
+    public static CompiledTemplate compile(byte[] docx, String name) throws IOException {
+        TemplateLoadEvent event = new TemplateLoadEvent();
+        event.begin();
+        CompiledTemplate template = parse(docx, name);
+        event.end();
+        if (event.shouldCommit()) {
+            event.template = name;
+            event.bytes = docx.length;
+            event.parts = template.parts.size();
+            event.placeholders = template.placeholderCount;
+            event.commit();
+        }
+        return template;
+    }
+
+    private static CompiledTemplate parse(byte[] docx, String templateName) throws IOException {
+        byte[] normalized;
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(docx))) {
+            normalize(document);
+            for (XWPFHeader header : document.getHeaderList()) normalize(header);
+            for (XWPFFooter footer : document.getFooterList()) normalize(footer);
+            for (XWPFAbstractFootnoteEndnote note : document.getFootnotes()) normalize(note);
+            for (XWPFAbstractFootnoteEndnote note : document.getEndnotes()) normalize(note);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(docx.length + 1024);
+            document.write(out);
+            normalized = out.toByteArray();
+        } catch (RuntimeException e) {
+            throw new IOException("Not a valid .docx document", e);
+        }
+
+        List<Part> parts = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(normalized))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                byte[] bytes = zip.readAllBytes();
+                String name = entry.getName();
+                if (TEXT_PART.matcher(name).matches()) {
+                    parts.add(split(name, new String(bytes, StandardCharsets.UTF_8)));
+                } else {
+                    boolean stored = COMPRESSED.matcher(name).matches();
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    parts.add(new Part(name, new byte[][]{bytes}, new ContractField[0], stored, crc.getValue()));
+                }
+            }
+        }
+        return new CompiledTemplate(templateName, parts);
+    }
+
+    public static CompiledTemplate compile(InputStream docx) throws IOException {
+        return compile(docx.readAllBytes());
+    }
+
+    /**
+     * @return the name given when compiling, or {@code null}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return how many placeholders the template holds over all its parts
+     */
+    public int getPlaceholderCount() {
+        return placeholderCount;
+    }
+
+    /**
+     * Writes the document filled with {@code data} to {@code out}, which is left open. Placeholders without
+     * a value are left in the document, like before.
+     */
+    public void write(ContractRecord data, OutputStream out) throws IOException {
+        byte[][] values = substitute(data);
+
+        DocumentWriteEvent event = new DocumentWriteEvent();
+        event.begin();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (Part part : parts) {
+            ZipEntry entry = new ZipEntry(part.name);
+            if (part.stored) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(part.segments[0].length);
+                entry.setCompressedSize(part.segments[0].length);
+                entry.setCrc(part.crc);
+            }
+            zip.putNextEntry(entry);
+            zip.write(part.segments[0]);
+            for (int i = 0; i < part.fields.length; i++) {
+                zip.write(values[part.fields[i].ordinal()]);
+                zip.write(part.segments[i + 1]);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        event.end();
+        if (event.shouldCommit()) {
+            long bytes = 0;
+            for (Part part : parts) {
+                for (byte[] segment : part.segments) bytes += segment.length;
+                for (ContractField field : part.fields) bytes += values[field.ordinal()].length;
+            }
+            event.template = name;
+            event.parts = parts.size();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the escaped value of every field the template uses, by ordinal
+     */
+    private byte[][] substitute(ContractRecord data) {
+        SubstitutionEvent event = new SubstitutionEvent();
+        event.begin();
+        byte[][] values = new byte[FIELDS.length][];
+        int missing = 0;
+        long bytes = 0;
+        for (ContractField field : usedFields) {
+            String value = data.get(field);
+            if (value == null) missing++;
+            values[field.ordinal()] = value != null ? escape(value) : field.getPlaceholder().getBytes(StandardCharsets.UTF_8);
+            bytes += values[field.ordinal()].length;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.template = name;
+            event.placeholders = placeholderCount;
+            event.missing = missing;
+            event.bytes = bytes;
+            event.commit();
+        }
+        return values;
+    }
+
+    private static Part split(String name, String xml) {
+        List<byte[]> segments = new ArrayList<>();
+        List<ContractField> fields = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < xml.length(); i++) {
+            ContractField field = ContractField.fromPlaceholder(xml.charAt(i));
+            if (field != null) {
+                segments.add(xml.substring(start, i).getBytes(StandardCharsets.UTF_8));
+                fields.add(field);
+                start = i + 1;
+            }
+        }
+        segments.add(xml.substring(start).getBytes(StandardCharsets.UTF_8));
+        return new Part(name, segments.toArray(new byte[0][]), fields.toArray(new ContractField[0]), false, 0);
+    }
+
+    private static void normalize(IBody body) {
+        for (IBodyElement element : body.getBodyElements()) {
+            if (element instanceof XWPFParagraph paragraph) {
+                normalize(paragraph);
+            } else if (element instanceof XWPFTable table) {
+                for (XWPFTableRow row : table.getRows()) {
+                    for (XWPFTableCell cell : row.getTableCells()) {
+                        normalize(cell); // a cell is a body of its own, so nested tables are covered too
+                    }
+                }
+            }
+        }
+    }
+
+    private static void normalize(XWPFParagraph paragraph) {
+        for (XWPFRun run : paragraph.getRuns()) {
+            for (CTText text : run.getCTR().getTList()) {
+                if (hasPlaceholder(text.getStringValue())) {
+                    text.setSpace(SpaceAttribute.Space.PRESERVE);
+                }
+            }
+        }
+    }
+
+    private static boolean hasPlaceholder(String text) {
+        if (text == null) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (ContractField.fromPlaceholder(text.charAt(i)) != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the value as UTF-8 XML text; characters XML 1.0 does not allow are dropped
+     */
+    static byte[] escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') sb.append(c);
+                }
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,58 +1,42 @@
 package org.example.contractparser;
-import org.apache.poi.xwpf.usermodel.*;
 
-import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Map;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 
 public class Contract {
 
-    public static void generateContract(String templatePath, String outputPath, Map<String, String> data) throws IOException {
-        try (FileInputStream fis = new FileInputStream(templatePath);
-             XWPFDocument document = new XWPFDocument(fis)) {
-
-            // Replace placeholders in paragraphs
-            for (XWPFParagraph paragraph : document.getParagraphs()) {
-                for (XWPFRun run : paragraph.getRuns()) {
-                    String text = run.getText(0);
-                    if (text != null) {
-                        for (Map.Entry<String, String> entry : data.entrySet()) {
-                            text = text.replace(entry.getKey(), entry.getValue());
-                        }
-                        run.setText(text, 0);
-                    }
-                    System.out.println(run.getText(0)); // Debugging line to print run text
-                }
-            }
+    public static void generateContract(String templatePath, String outputPath, ContractRecord data) throws IOException {
+        try (FileInputStream fis = new FileInputStream(templatePath)) {
+            generateContract(fis, outputPath, data);
+        }
+    }
 
-            //System.out.println("Finished replacing placeholders in paragraphs.\n\n\n\n"); // Debugging line
+    /**
+     * Writes the document to {@code outputPath}, encrypted when {@link ArchiveCrypto} has a key.
+     */
+    public static void generateContract(InputStream template, String outputPath, ContractRecord data) throws IOException {
+        try (OutputStream out = ArchiveCrypto.getDefault().newOutputStream(Path.of(outputPath))) {
+            generateContract(template, out, data);
+        }
+    }
 
-            // Replace placeholders in tables too (many contracts use tables)
-            for (XWPFTable table : document.getTables()) {
-                for (XWPFTableRow row : table.getRows()) {
-                    for (XWPFTableCell cell : row.getTableCells()) {
-                        for (XWPFParagraph paragraph : cell.getParagraphs()) {
-                            for (XWPFRun run : paragraph.getRuns()) {
-                                String text = run.getText(0);
-                                if (text != null) {
-                                    for (Map.Entry<String, String> entry : data.entrySet()) {
-                                        text = text.replace(entry.getKey(), entry.getValue());
-                                    }
-                                    run.setText(text, 0);
-                                }
-                                System.out.println(run.getText(0)); // Debugging line to print run text
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Fills the template and writes the document to {@code out}, which is left open.
+     * The template is compiled for this one call; templates used more than once should be compiled once,
+     * see {@link CompiledTemplate}.
+     */
+    public static void generateContract(InputStream template, OutputStream out, ContractRecord data) throws IOException {
+        generateContract(CompiledTemplate.compile(template), out, data);
+    }
 
-            // Save the new document
-            try (FileOutputStream fos = new FileOutputStream(outputPath)) {
-                document.write(fos);
-            }
-        }
+    /**
+     * Fills the compiled template, placeholders in the body, headers, footers and every table included,
+     * and writes the document to {@code out}, which is left open.
+     */
+    public static void generateContract(CompiledTemplate template, OutputStream out, ContractRecord data) throws IOException {
+        template.write(data, out);
     }
 }
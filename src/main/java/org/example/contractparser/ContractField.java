@@ -28,6 +28,7 @@ public enum ContractField {
 
     // Filled in by the app
     REGISTRATION_NUMBER("ɔ", "Registration Number"),
+    FISA_REGISTRATION_NUMBER("ŵ", "Fisa Registration Number"),
     TODAY_DATE("ɖ", "Today's Date"),
     HIRE_DATE("ɐ", "Hire Date"),
     PHONE("ɕ", "Phone"),
@@ -35,6 +36,19 @@ public enum ContractField {
     CITY("ə", "City"),
     SALARY("ɥ", "Salary");
 
+    private static final ContractField[] BY_PLACEHOLDER;
+
+    static {
+        int max = 0;
+        for (ContractField field : values()) {
+            max = Math.max(max, field.placeholder.charAt(0));
+        }
+        BY_PLACEHOLDER = new ContractField[max + 1];
+        for (ContractField field : values()) {
+            BY_PLACEHOLDER[field.placeholder.charAt(0)] = field;
+        }
+    }
+
     private final String placeholder;
     private final String label;
 
@@ -50,4 +64,13 @@ public enum ContractField {
     public String getLabel() {
         return label;
     }
-}
\ No newline at end of file
+
+    /**
+     * Looks up the field whose placeholder is the given character.
+     *
+     * @return the field, or {@code null} when the character is not a placeholder
+     */
+    public static ContractField fromPlaceholder(char c) {
+        return c < BY_PLACEHOLDER.length ? BY_PLACEHOLDER[c] : null;
+    }
+}
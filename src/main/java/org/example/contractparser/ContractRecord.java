@@ -0,0 +1,174 @@
+package org.example.contractparser;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of contract values indexed by {@link ContractField#ordinal()}.
+ * A record is assembled once through its {@link Builder} and is only read during generation,
+ * so the same instance can be shared between threads without copying.
+ *
+ * <p>Values read from an ID also carry the OCR confidence (0-100) of the text they came from.
+ * Values typed or computed by the app have no confidence, reported as {@link Float#NaN}.</p>
+ */
+public final class ContractRecord {
+
+    private static final ContractField[] FIELDS = ContractField.values();
+    private static final ContractRecord EMPTY = new ContractRecord(new String[FIELDS.length], noConfidences());
+
+    private final String[] values;
+    private final float[] confidences;
+
+    private ContractRecord(String[] values, float[] confidences) {
+        this.values = values;
+        this.confidences = confidences;
+    }
+
+    private static float[] noConfidences() {
+        float[] confidences = new float[FIELDS.length];
+        Arrays.fill(confidences, Float.NaN);
+        return confidences;
+    }
+
+    public static ContractRecord empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder(new String[FIELDS.length], noConfidences());
+    }
+
+    public Builder toBuilder() {
+        return new Builder(values.clone(), confidences.clone());
+    }
+
+    /**
+     * @return the value of the field or {@code null} when the field was never set
+     */
+    public String get(ContractField field) {
+        return values[field.ordinal()];
+    }
+
+    public String getOrDefault(ContractField field, String defaultValue) {
+        String value = values[field.ordinal()];
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean has(ContractField field) {
+        return values[field.ordinal()] != null;
+    }
+
+    /**
+     * @return the OCR confidence of the field, or {@link Float#NaN} when it was not read from the ID
+     */
+    public float getConfidence(ContractField field) {
+        return confidences[field.ordinal()];
+    }
+
+    /**
+     * @return the lowest confidence among the fields read from the ID, or {@link Float#NaN} if there are none
+     */
+    public float getMinConfidence() {
+        float min = Float.NaN;
+        for (int i = 0; i < confidences.length; i++) {
+            if (values[i] != null && !Float.isNaN(confidences[i]) && (Float.isNaN(min) || confidences[i] < min)) {
+                min = confidences[i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Like {@link #getMinConfidence()}, but each of the {@code required} fields that is blank or has no confidence
+     * counts as 0, so a record missing one of them is always under a review threshold.
+     */
+    public float getMinConfidence(Set<ContractField> required) {
+        float min = getMinConfidence();
+        for (ContractField field : required) {
+            String value = values[field.ordinal()];
+            if (value == null || value.isBlank() || Float.isNaN(confidences[field.ordinal()])) {
+                return 0f;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return the fields that are set, in declaration order
+     */
+    public Map<ContractField, String> toMap() {
+        Map<ContractField, String> map = new EnumMap<>(ContractField.class);
+        for (ContractField field : FIELDS) {
+            String value = values[field.ordinal()];
+            if (value != null) map.put(field, value);
+        }
+        return map;
+    }
+
+    public static ContractRecord of(Map<ContractField, String> map) {
+        Builder builder = builder();
+        map.forEach(builder::set);
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ContractRecord other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ContractRecord{");
+        for (ContractField field : FIELDS) {
+            String value = values[field.ordinal()];
+            if (value != null) {
+                if (sb.length() > "ContractRecord{".length()) sb.append(", ");
+                sb.append(field.name()).append('=').append(value);
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+
+    public static final class Builder {
+        private final String[] values;
+        private final float[] confidences;
+
+        private Builder(String[] values, float[] confidences) {
+            this.values = values;
+            this.confidences = confidences;
+        }
+
+        /**
+         * Sets a value that was not read by OCR, clearing any confidence the field had.
+         */
+        public Builder set(ContractField field, String value) {
+            return set(field, value, Float.NaN);
+        }
+
+        public Builder set(ContractField field, String value, float confidence) {
+            values[field.ordinal()] = value;
+            confidences[field.ordinal()] = confidence;
+            return this;
+        }
+
+        public String get(ContractField field) {
+            return values[field.ordinal()];
+        }
+
+        public float getConfidence(ContractField field) {
+            return confidences[field.ordinal()];
+        }
+
+        public ContractRecord build() {
+            return new ContractRecord(values.clone(), confidences.clone());
+        }
+    }
+}
@@ -6,13 +6,10 @@ import org.example.contractparser.procesing.UserMapParser;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,30 +20,25 @@ import java.util.Map;
  */
 public class ContractService {
 
-    private static final String ARHIVA_DIR = "arhiva";
+    static final String ARHIVA_DIR = "arhiva";
     private static final String CONFIG_FILE = "config.yml";
     private static final int DEFAULT_SALARY = 4050;
     static final String DATE_FORMAT = "dd.MM.yyyy";
+    /** OCR confidence (0-100) under which an extracted value should be checked by a person. */
+    public static final float REVIEW_CONFIDENCE_THRESHOLD = 90f;
 
-    protected Map<String, String> extractedData;
+    private static HireIndex hireIndex;
+
+    protected ContractRecord extractedData;
 
     ContractService(boolean type, String  imagePath) throws IOException {
         IdType typeParse = type ? IdType.NEWID : IdType.OLDID;
 
-        UserMapParser parser = IdFactory.createIdParser(typeParse);
-        this.extractedData = parser.extractMap(imagePath);
-
-        System.out.println("\n\n\n\n");
-
-        for(Map.Entry<String, String> entry : this.extractedData.entrySet()){
-            System.out.println("Key: " + entry.getKey() + " Value: " + entry.getValue());
-        }
-
-
-
+        UserMapParser parser = IdFactory.createIdParser(typeParse, CachingOcrClient.getDefault());
+        this.extractedData = parser.extractRecord(imagePath);
     }
 
-    protected Map< String, String > getData(){
+    protected ContractRecord getData(){
         return this.extractedData;
     }
 
@@ -68,6 +60,17 @@ public class ContractService {
     }
 
 
+    /**
+     * @return the index of people who already have documents in {@code arhiva}, loaded on first use
+     */
+    public static synchronized HireIndex getHireIndex() throws IOException {
+        if (hireIndex == null) {
+            ensureArhivaDirectory();
+            hireIndex = HireIndex.open(new File(ARHIVA_DIR));
+        }
+        return hireIndex;
+    }
+
     public static int getSalaryFromConfig() {
         Path configPath = Paths.get(CONFIG_FILE);
 
@@ -88,13 +91,7 @@ public class ContractService {
             for (String line : lines) {
                 String trimmed = line.trim();
                 if (trimmed.startsWith("salary:")) {
-                    String value = trimmed.substring("salary:".length()).trim();
-                    value = value.replaceAll("^['\"]|['\"]$", "");
-                    try {
-                        return Integer.parseInt(value);
-                    } catch (NumberFormatException e) {
-                        return DEFAULT_SALARY;
-                    }
+                    return parseSalary(trimmed.substring("salary:".length()), DEFAULT_SALARY);
                 }
             }
         } catch (IOException ex) {
@@ -104,6 +101,46 @@ public class ContractService {
         return DEFAULT_SALARY;
     }
 
+    /**
+     * Reads the per-company salary overrides from the config file, written as {@code salary.<Company>: 4500}.
+     * Companies without an override use {@link #getSalaryFromConfig()}.
+     */
+    public static Map<String, Integer> getCompanySalariesFromConfig() {
+        Map<String, Integer> salaries = new HashMap<>();
+        Path configPath = Paths.get(CONFIG_FILE);
+        if (!Files.exists(configPath)) {
+            return salaries;
+        }
+
+        try {
+            for (String line : Files.readAllLines(configPath)) {
+                String trimmed = line.trim();
+                int colon = trimmed.indexOf(':');
+                if (!trimmed.startsWith("salary.") || colon == -1) {
+                    continue;
+                }
+                String company = trimmed.substring("salary.".length(), colon).trim();
+                Integer salary = parseSalary(trimmed.substring(colon + 1), null);
+                if (!company.isEmpty() && salary != null) {
+                    salaries.put(company, salary);
+                }
+            }
+        } catch (IOException ex) {
+            return salaries;
+        }
+
+        return salaries;
+    }
+
+    private static Integer parseSalary(String raw, Integer fallback) {
+        String value = raw.trim().replaceAll("^['\"]|['\"]$", "");
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
 
     public static String formatPhoneNumber(String phone) {
         if (phone == null) return "";
@@ -115,80 +152,106 @@ public class ContractService {
 
 
 
-    public static Map<String, String> buildCompleteDataMap(
-            Map<String, String> extractedData,
+    public static ContractRecord buildCompleteRecord(
+            ContractRecord extractedData,
             String regNumber,
             String phone,
             String place,
             String city) {
+        return buildCompleteRecord(GenerationContext.create(), extractedData, regNumber, phone, place, city, null);
+    }
+
+    /**
+     * Merges the form values into the extracted data, taking the dates and salary from the given context
+     * so that every record of a run shares them.
+     */
+    public static ContractRecord buildCompleteRecord(
+            GenerationContext context,
+            ContractRecord extractedData,
+            String regNumber,
+            String phone,
+            String place,
+            String city,
+            String template) {
 
-        int salary = getSalaryFromConfig();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT);
-        String today = LocalDate.now().format(formatter);
-        String hireDay = HireDay.getHireDay();
         String formattedPhone = formatPhoneNumber(phone);
 
         // Add additional data to extracted data
-        extractedData.put(ContractField.REGISTRATION_NUMBER.getPlaceholder(), regNumber);
-        extractedData.put(ContractField.TODAY_DATE.getPlaceholder(), today);
-        extractedData.put(ContractField.HIRE_DATE.getPlaceholder(), hireDay);
-        extractedData.put(ContractField.PHONE.getPlaceholder(), formattedPhone);
-        extractedData.put(ContractField.LOCATION.getPlaceholder(), place);
-        extractedData.put(ContractField.CITY.getPlaceholder(), city);
-        extractedData.put(ContractField.SALARY.getPlaceholder(), String.valueOf(salary));
-
-        return extractedData;
+        return extractedData.toBuilder()
+                .set(ContractField.REGISTRATION_NUMBER, regNumber)
+                .set(ContractField.TODAY_DATE, context.getToday())
+                .set(ContractField.HIRE_DATE, context.getHireDay())
+                .set(ContractField.PHONE, formattedPhone)
+                .set(ContractField.LOCATION, place)
+                .set(ContractField.CITY, city)
+                .set(ContractField.SALARY, context.getSalary(template))
+                .build();
     }
 
 
-    public static void generateDocuments(String employeeName, Map<String, String> data, String template) throws IOException {
-        ensureArhivaDirectory();
-
-        String sanitizedName = employeeName.replace(" ", "_");
-        File arhivaDir = new File(ARHIVA_DIR);
-        File contractFile = new File(arhivaDir, sanitizedName + ".docx");
-        File fisaFile = new File(arhivaDir, sanitizedName + "_fisa.docx");
-
-
-        if (!contractFile.exists()) contractFile.createNewFile();
-        if (!fisaFile.exists()) fisaFile.createNewFile();
-
-        // Load templates from resources and copy to temp files
-        try (InputStream contractTemplate = ContractService.class.getResourceAsStream(getContractLocation(template));
-             InputStream fisaTemplate = ContractService.class.getResourceAsStream(getFisaLocation(template))) {
-
-            if (contractTemplate == null) {
-                throw new IOException("Resource `/contract.docx` not found in JAR");
-            }
-            if (fisaTemplate == null) {
-                throw new IOException("Resource `/fisa.docx` not found in JAR");
-            }
-
-            // Create temporary template files
-            File tmpContract = File.createTempFile("contract_template", ".docx");
-            tmpContract.deleteOnExit();
-            Files.copy(contractTemplate, tmpContract.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * The fisa is registered right after the contract, so its number is the contract number plus one.
+     */
+    public static String getFisaRegistration(String registrationNumber) {
+        if (registrationNumber == null || registrationNumber.isBlank()) {
+            return "";
+        }
+        String[] parts = registrationNumber.split("/", 2);
+        String numPart = parts[0].trim();
+        try {
+            long value = Long.parseLong(numPart);
+            return Long.toString(value + 1);
+        } catch (NumberFormatException e) {
+            return numPart;
+        }
+    }
 
-            File tmpFisa = File.createTempFile("fisa_template", ".docx");
-            tmpFisa.deleteOnExit();
-            Files.copy(fisaTemplate, tmpFisa.toPath(), StandardCopyOption.REPLACE_EXISTING);
 
-            // Generate documents
-            Contract.generateContract(tmpContract.getAbsolutePath(), contractFile.getAbsolutePath(), data);
-            Contract.generateContract(tmpFisa.getAbsolutePath(), fisaFile.getAbsolutePath(), data);
-        }
+    /**
+     * @return false when the documents in {@code arhiva} were already generated from the same template and data
+     */
+    public static boolean generateDocuments(String employeeName, ContractRecord data, String template) throws IOException {
+        CompanyTemplate companyTemplate = TemplateRegistry.getDefault().get(template);
+        ensureArhivaDirectory();
+        return generateDocuments(new File(ARHIVA_DIR), employeeName, data, companyTemplate);
     }
 
-    private static String getContractLocation(String template){
-        if(template.equals("Robest")) return "/contract.docx";
-        if(template.equals("Amarillo")) return "/contract_armarillo.docx";
-        return "/contract_azzuro.docx";
+    /**
+     * Writes the contract and the fisa unless both are up to date with the template version and the data,
+     * see {@link DocumentFingerprint}. The data is kept in the {@link RecordStore} of the folder either way.
+     *
+     * @return true if the documents were written, false if they were skipped as unchanged
+     */
+    public static boolean generateDocuments(File outputDir, String employeeName, ContractRecord data,
+                                            CompanyTemplate companyTemplate) throws IOException {
+        File contractFile = new File(outputDir, DocumentType.CONTRACT.fileName(employeeName));
+        File fisaFile = new File(outputDir, DocumentType.FISA.fileName(employeeName));
+
+        String fingerprint = DocumentFingerprint.of(companyTemplate, data);
+        if (DocumentFingerprint.isUpToDate(fingerprint, contractFile, fisaFile)) {
+            RecordStore.of(outputDir).save(employeeName, companyTemplate.getCompany(), data);
+            return false;
+        }
+        // a write that fails halfway must not leave the old fingerprint next to the new documents
+        Files.deleteIfExists(DocumentFingerprint.sidecarOf(contractFile).toPath());
+
+        ArchiveCrypto crypto = ArchiveCrypto.getDefault();
+        try (OutputStream contractOut = crypto.newOutputStream(contractFile.toPath());
+             OutputStream fisaOut = crypto.newOutputStream(fisaFile.toPath())) {
+            writeDocument(companyTemplate, DocumentType.CONTRACT, data, contractOut);
+            writeDocument(companyTemplate, DocumentType.FISA, data, fisaOut);
+        }
+        DocumentFingerprint.write(fingerprint, contractFile);
+        RecordStore.of(outputDir).save(employeeName, companyTemplate.getCompany(), data);
+        return true;
     }
 
-    private static String getFisaLocation(String template){
-        if(template.equals("Robest")) return "/fisa.docx";
-        if(template.equals("Amarillo")) return "/fisa_armarillo.docx";
-        return "/fisa_azzuro.docx";
+    /**
+     * Generates one document from the compiled template straight into {@code out}, which is left open.
+     */
+    public static void writeDocument(CompanyTemplate companyTemplate, DocumentType type, ContractRecord data,
+                                     OutputStream out) throws IOException {
+        Contract.generateContract(companyTemplate.getCompiled(type), out, data);
     }
 
 
@@ -202,11 +265,18 @@ public class ContractService {
         private final boolean valid;
         private final String errorTitle;
         private final String errorMessage;
+        private final List<FieldValidator.Violation> violations;
 
         public ValidationResult(boolean valid, String errorTitle, String errorMessage) {
+            this(valid, errorTitle, errorMessage, List.of());
+        }
+
+        private ValidationResult(boolean valid, String errorTitle, String errorMessage,
+                                 List<FieldValidator.Violation> violations) {
             this.valid = valid;
             this.errorTitle = errorTitle;
             this.errorMessage = errorMessage;
+            this.violations = violations;
         }
 
         public static ValidationResult success() {
@@ -217,6 +287,21 @@ public class ContractService {
             return new ValidationResult(false, title, message);
         }
 
+        /**
+         * @return success when there are no violations, otherwise one error listing all of them
+         */
+        public static ValidationResult of(List<FieldValidator.Violation> violations) {
+            if (violations.isEmpty()) {
+                return success();
+            }
+            StringBuilder message = new StringBuilder();
+            for (FieldValidator.Violation violation : violations) {
+                message.append(violation).append('\n');
+            }
+            String title = violations.size() == 1 ? "Un camp este invalid" : violations.size() + " campuri sunt invalide";
+            return new ValidationResult(false, title, message.toString().trim(), List.copyOf(violations));
+        }
+
         public boolean isValid() {
             return valid;
         }
@@ -228,128 +313,30 @@ public class ContractService {
         public String getErrorMessage() {
             return errorMessage;
         }
-    }
-
 
-    public static ValidationResult validateInitialForm(String regNumber, String phone, String place, String city) {
-        if (!isFieldValid(regNumber)) {
-            return ValidationResult.error("Numarul de inregistrare lipsa",
-                "Te rog introdu numarul de inregistrare.");
-        }
-        if (!isFieldValid(phone)) {
-            return ValidationResult.error("Numarul de telefon lipsa",
-                "Te rog introdu numarul de telefon.");
-        }
-        if (!isFieldValid(place)) {
-            return ValidationResult.error("Locatia lipsa",
-                "Te rog introdu locatia.");
+        public List<FieldValidator.Violation> getViolations() {
+            return violations;
         }
-        if (!isFieldValid(city)) {
-            return ValidationResult.error("Orasul lipsa",
-                "Te rog introdu orasul.");
-        }
-        return ValidationResult.success();
     }
 
 
+    public static ValidationResult validateInitialForm(String regNumber, String phone, String place, String city) {
+        ContractRecord form = ContractRecord.builder()
+                .set(ContractField.REGISTRATION_NUMBER, regNumber)
+                .set(ContractField.PHONE, phone)
+                .set(ContractField.LOCATION, place)
+                .set(ContractField.CITY, city)
+                .build();
+        return ValidationResult.of(FieldValidator.getDefault().validate(form, FieldValidator.INITIAL_FORM));
+    }
 
     /**
-     * Validates the detailed review form with all additional fields
+     * Validates the values of the detailed review form; every field read from the ID is required.
      *
-     * @param name name
-     * @param series series
-     * @param number number
-     * @param cnp CNP
-     * @param issuedBy issued by
-     * @param address address
-     * @param validity validity date
-     * @param birthCounty birth county
-     * @param birthCountry birth country
-     * @param birthDate birth date
-     * @param addressCounty address county
-     * @param addressCountry address country
-     * @param addressStreet address street
-     * @param addressNumber address number
-     * @param addressBloc address bloc
-     * @param addressScara address scara
-     * @param addressEtaj address etaj
-     * @param addressApartment address apartment
-     * @return validation result
+     * @return validation result listing all invalid fields
      */
-    public static ValidationResult validateDetailedReviewForm(String name, String series, String number,
-                                                              String cnp, String issuedBy, String address,
-                                                              String validity, String birthCounty, String birthCountry,
-                                                              String birthDate, String addressCounty, String addressCountry,
-                                                              String addressStreet, String addressNumber, String addressBloc,
-                                                              String addressScara, String addressEtaj, String addressApartment) {
-        if (!isFieldValid(name)) {
-            return ValidationResult.error("Numele lipsa", "Te rog introdu numele.");
-        }
-        if (!isFieldValid(series)) {
-            return ValidationResult.error("Seria lipsa", "Te rog introdu seria.");
-        }
-        if (!isFieldValid(number)) {
-            return ValidationResult.error("Numarul lipsa", "Te rog introdu numarul.");
-        }
-        if (!isFieldValid(cnp)) {
-            return ValidationResult.error("CNP-ul lipsa", "Te rog introdu CNP-ul.");
-        }
-        if (!isFieldValid(issuedBy)) {
-            return ValidationResult.error("Cimpul 'Emis de' lipsa",
-                "Te rog introdu cimpul 'Emis de'.");
-        }
-        if (!isFieldValid(address)) {
-            return ValidationResult.error("Adresa lipsa", "Te rog introdu adresa.");
-        }
-        if (!isFieldValid(validity)) {
-            return ValidationResult.error("Data de valabilitate lipsa",
-                "Te rog introdu data de valabilitate.");
-        }
-        if (!isFieldValid(birthCounty)) {
-            return ValidationResult.error("Judetul de nastere lipsa",
-                "Te rog introdu judetul de nastere.");
-        }
-        if (!isFieldValid(birthCountry)) {
-            return ValidationResult.error("Tara de nastere lipsa",
-                "Te rog introdu tara de nastere.");
-        }
-        if (!isFieldValid(birthDate)) {
-            return ValidationResult.error("Data nasterii lipsa",
-                "Te rog introdu data nasterii.");
-        }
-        if (!isFieldValid(addressCounty)) {
-            return ValidationResult.error("Judetul adresei lipsa",
-                "Te rog introdu judetul adresei.");
-        }
-        if (!isFieldValid(addressCountry)) {
-            return ValidationResult.error("Tara adresei lipsa",
-                "Te rog introdu tara adresei.");
-        }
-        if (!isFieldValid(addressStreet)) {
-            return ValidationResult.error("Strada lipsa",
-                "Te rog introdu strada.");
-        }
-        if (!isFieldValid(addressNumber)) {
-            return ValidationResult.error("Numarul adresei lipsa",
-                "Te rog introdu numarul adresei.");
-        }
-        if (!isFieldValid(addressBloc)) {
-            return ValidationResult.error("Blocul lipsa",
-                "Te rog introdu blocul.");
-        }
-        if (!isFieldValid(addressScara)) {
-            return ValidationResult.error("Scara lipsa",
-                "Te rog introdu scara.");
-        }
-        if (!isFieldValid(addressEtaj)) {
-            return ValidationResult.error("Etajul lipsa",
-                "Te rog introdu etajul.");
-        }
-        if (!isFieldValid(addressApartment)) {
-            return ValidationResult.error("Apartamentul lipsa",
-                "Te rog introdu apartamentul.");
-        }
-        return ValidationResult.success();
+    public static ValidationResult validateDetailedReviewForm(ContractRecord edited) {
+        return ValidationResult.of(FieldValidator.getDefault().validate(edited, FieldValidator.REVIEW_FORM));
     }
 }
 
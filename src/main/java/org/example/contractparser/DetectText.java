@@ -1,6 +1,8 @@
 package org.example.contractparser;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import org.example.contractparser.jfr.ImageLoadEvent;
+import org.example.contractparser.jfr.OcrRequestEvent;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.SdkBytes;
@@ -14,7 +16,7 @@ import java.io.IOException;
 import java.util.*;
 
 
-public class DetectText {
+public class DetectText implements OcrClient {
 
     private final TextractClient textractClient;
     private final Dotenv dotenv;
@@ -27,10 +29,6 @@ public class DetectText {
 
         String awsAccessKeyId = env.get("AWS_ACCESS_KEY_ID");
         String awsSecretAccessKey = env.get("AWS_SECRET_ACCESS_KEY");
-        System.out.println("AWS_ACCESS_KEY_ID: " + awsAccessKeyId);
-        System.out.println("AWS_SECRET_ACCESS_KEY: " + awsSecretAccessKey);
-
-
 
         AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(awsAccessKeyId, awsSecretAccessKey);
 
@@ -55,12 +53,21 @@ public class DetectText {
 
 
 
-    public List<String> extractTextLines(String imagePath) throws IOException {
+    @Override
+    public List<TextBlock> extractTextBlocks(String imagePath) throws IOException {
         File imageFile = new File(imagePath);
-        List<String> lines = new ArrayList<>();
+        List<TextBlock> blocks = new ArrayList<>();
 
         try (FileInputStream imageStream = new FileInputStream(imageFile)) {
+            ImageLoadEvent load = new ImageLoadEvent();
+            load.begin();
             SdkBytes sourceBytes = SdkBytes.fromInputStream(imageStream);
+            load.end();
+            if (load.shouldCommit()) {
+                load.image = imagePath;
+                load.bytes = sourceBytes.asByteBuffer().remaining();
+                load.commit();
+            }
 
             Document document = Document.builder()
                     .bytes(sourceBytes)
@@ -70,24 +77,29 @@ public class DetectText {
                     .document(document)
                     .build();
 
+            OcrRequestEvent event = new OcrRequestEvent();
+            event.begin();
             DetectDocumentTextResponse response = textractClient.detectDocumentText(request);
+            event.end();
+            if (event.shouldCommit()) {
+                event.client = "Textract";
+                event.image = imagePath;
+                event.bytes = sourceBytes.asByteBuffer().remaining();
+                event.blocks = response.blocks().size();
+                event.commit();
+            }
 
             for (Block block : response.blocks()) {
                 if (block.blockType() == BlockType.LINE) {
-                   String lineText = block.text().trim();
-                if (!lineText.isEmpty()) {
-                    lines.add(lineText);
-                }
-
-                System.out.println(lineText);
-
+                    String lineText = block.text().trim();
+                    if (!lineText.isEmpty()) {
+                        blocks.add(new TextBlock(lineText, block.confidence(), block.geometry()));
+                    }
                 }
             }
         }
 
-        System.out.println("\n\nExtracted lines: " + lines);
-
-        return lines;
+        return blocks;
     }
 
     public void close() {
@@ -120,6 +132,13 @@ public class DetectText {
             return geometry;
         }
 
+        /**
+         * @return the Textract confidence from 0 to 100, or {@link Float#NaN} when unknown
+         */
+        public float confidenceOrNaN() {
+            return confidence != null ? confidence : Float.NaN;
+        }
+
         @Override
         public String toString() {
             return String.format("Text: %s (Confidence: %.2f%%)", text, confidence);
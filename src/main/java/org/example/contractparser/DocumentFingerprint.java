@@ -0,0 +1,75 @@
+package org.example.contractparser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Digest of everything a generated contract depends on: the template version, the record values and whether
+ * the archive is encrypted.
+ * It is stored in a {@code .fingerprint} sidecar next to the contract, so pressing create again with
+ * unchanged data, or re-running a batch, leaves documents that are already up to date alone.
+ */
+public final class DocumentFingerprint {
+
+    static final String SIDECAR_EXTENSION = ".fingerprint";
+
+    private DocumentFingerprint() {
+    }
+
+    public static String of(CompanyTemplate template, ContractRecord data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        digest.update(template.getVersion().getBytes(StandardCharsets.US_ASCII));
+        if (ArchiveCrypto.getDefault().isEnabled()) {
+            digest.update((byte) 1); // plain documents are written again, encrypted, once a key is set
+        }
+        ByteBuffer header = ByteBuffer.allocate(8);
+        for (ContractField field : ContractField.values()) {
+            String value = data.get(field);
+            byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+            header.clear();
+            header.putInt(field.ordinal()).putInt(bytes != null ? bytes.length : -1);
+            digest.update(header.array());
+            if (bytes != null) {
+                digest.update(bytes);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static File sidecarOf(File document) {
+        return new File(document.getParentFile(), document.getName() + SIDECAR_EXTENSION);
+    }
+
+    /**
+     * @return true when every document exists and the sidecar of the first one holds the fingerprint
+     */
+    public static boolean isUpToDate(String fingerprint, File... documents) {
+        for (File document : documents) {
+            if (!document.isFile()) {
+                return false;
+            }
+        }
+        File sidecar = sidecarOf(documents[0]);
+        try {
+            return sidecar.isFile() && Files.readString(sidecar.toPath(), StandardCharsets.US_ASCII).trim().equals(fingerprint);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static void write(String fingerprint, File document) throws IOException {
+        Files.writeString(sidecarOf(document).toPath(), fingerprint, StandardCharsets.US_ASCII);
+    }
+}
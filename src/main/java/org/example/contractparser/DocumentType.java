@@ -0,0 +1,31 @@
+package org.example.contractparser;
+
+/**
+ * The two documents generated for every employee.
+ */
+public enum DocumentType {
+
+    CONTRACT(""),
+    FISA("_fisa");
+
+    private final String suffix;
+
+    DocumentType(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * @return the archive file name, e.g. {@code Ion_Popescu_fisa.docx}
+     */
+    public String fileName(String employeeName) {
+        return employeeName.replace(" ", "_") + suffix + ".docx";
+    }
+
+    /**
+     * Name used for the {@code n}-th employee with the same name in one archive: {@code Ion Popescu},
+     * {@code Ion Popescu 2}, ..., so the files become {@code Ion_Popescu_2.docx} and {@code Ion_Popescu_2_fisa.docx}.
+     */
+    public static String numberedName(String employeeName, int n) {
+        return n == 1 ? employeeName : employeeName + " " + n;
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.contractparser;
+
+import org.example.contractparser.procesing.Cnp;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Format rules for contract fields, checked all at once so a form or a batch row reports every problem in one go.
+ *
+ * <p>Each field has at most one format rule, compiled when the validator is built. Blank values are only reported
+ * for the fields a caller requires; format rules skip them. {@link #validateColumns} checks a whole batch one field
+ * at a time, so each rule is looked up once per column instead of once per cell.</p>
+ */
+public final class FieldValidator {
+
+    /** Fields typed in the first form. */
+    public static final Set<ContractField> INITIAL_FORM = Collections.unmodifiableSet(EnumSet.of(
+            ContractField.REGISTRATION_NUMBER, ContractField.PHONE, ContractField.LOCATION, ContractField.CITY));
+
+    /** Fields read from the ID and checked in the review page. */
+    public static final Set<ContractField> REVIEW_FORM = Collections.unmodifiableSet(
+            EnumSet.range(ContractField.NAME, ContractField.ADDRESS_APARTMENT));
+
+    /** Fields every ID prints and no contract can do without; a batch record lacking one always goes to review. */
+    public static final Set<ContractField> AUTO_APPROVAL = Collections.unmodifiableSet(EnumSet.of(
+            ContractField.NAME, ContractField.CNP, ContractField.ADDRESS));
+
+    private static final ContractField[] FIELDS = ContractField.values();
+    private static final FieldValidator DEFAULT = standard();
+
+    /**
+     * Checks one value that is not blank.
+     */
+    @FunctionalInterface
+    public interface Rule {
+        /**
+         * @return why the value is wrong, or {@code null} when it is fine
+         */
+        String check(String value);
+    }
+
+    public static final class Violation {
+        private final ContractField field;
+        private final String message;
+
+        Violation(ContractField field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        public ContractField getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return field.getLabel() + ": " + message;
+        }
+    }
+
+    private final Rule[] rules = new Rule[FIELDS.length];
+
+    private FieldValidator() {
+    }
+
+    public static FieldValidator getDefault() {
+        return DEFAULT;
+    }
+
+    private static FieldValidator standard() {
+        Pattern series = Pattern.compile("[A-Z]{2}");
+        Pattern number = Pattern.compile("[A-Z0-9]{6,9}");
+        Pattern phone = Pattern.compile("(?:\\+40|0040|0)\\d{9}");
+        Pattern phoneSeparators = Pattern.compile("[\\s.()-]");
+        Pattern registration = Pattern.compile("\\d+(?:\\s*/.*)?");
+        DateTimeFormatter fullYear = DateTimeFormatter.ofPattern("dd.MM.uuuu").withResolverStyle(ResolverStyle.STRICT);
+        DateTimeFormatter shortYear = DateTimeFormatter.ofPattern("dd.MM.uu").withResolverStyle(ResolverStyle.STRICT);
+
+        FieldValidator validator = new FieldValidator();
+        validator.rules[ContractField.CNP.ordinal()] = value -> {
+            if (value.length() != Cnp.LENGTH || !value.chars().allMatch(Character::isDigit)) {
+                return "trebuie sa aiba 13 cifre";
+            }
+            return Cnp.isValid(value) ? null : "data, judetul sau cifra de control nu se potrivesc";
+        };
+        validator.rules[ContractField.SERIES.ordinal()] = value ->
+                series.matcher(value).matches() ? null : "trebuie sa fie doua litere mari";
+        validator.rules[ContractField.NUMBER.ordinal()] = value ->
+                number.matcher(value).matches() ? null : "trebuie sa aiba intre 6 si 9 cifre sau litere";
+        validator.rules[ContractField.BIRTH_DATE.ordinal()] = value ->
+                isDate(value, fullYear) ? null : "data trebuie scrisa zz.ll.aaaa";
+        validator.rules[ContractField.VALIDITY.ordinal()] = value ->
+                isDate(value, fullYear) || isDate(value, shortYear) ? null : "data trebuie scrisa zz.ll.aaaa";
+        validator.rules[ContractField.PHONE.ordinal()] = value ->
+                phone.matcher(phoneSeparators.matcher(value).replaceAll("")).matches()
+                        ? null : "numar de telefon romanesc invalid";
+        validator.rules[ContractField.REGISTRATION_NUMBER.ordinal()] = value ->
+                registration.matcher(value).matches() ? null : "trebuie sa inceapa cu un numar, de exemplu 124/19.10.2026";
+        return validator;
+    }
+
+    /**
+     * @return a copy of this validator that checks {@code field} with {@code rule} instead
+     */
+    public FieldValidator with(ContractField field, Rule rule) {
+        FieldValidator copy = new FieldValidator();
+        System.arraycopy(rules, 0, copy.rules, 0, rules.length);
+        copy.rules[field.ordinal()] = rule;
+        return copy;
+    }
+
+    private static boolean isDate(String value, DateTimeFormatter format) {
+        try {
+            LocalDate.parse(value, format);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param required fields that must not be blank
+     * @return every violation of the record, in field order; empty when the record is valid
+     */
+    public List<Violation> validate(ContractRecord record, Set<ContractField> required) {
+        List<Violation> violations = new ArrayList<>();
+        for (ContractField field : FIELDS) {
+            Violation violation = check(field, record.get(field), required.contains(field));
+            if (violation != null) violations.add(violation);
+        }
+        return violations;
+    }
+
+    /**
+     * Validates many rows given as one array of values per field.
+     *
+     * @param columns values of each field, all arrays {@code rows} long
+     * @return the violations of each row, an empty list for rows without any
+     */
+    public List<List<Violation>> validateColumns(Map<ContractField, String[]> columns, int rows, Set<ContractField> required) {
+        List<List<Violation>> violations = new ArrayList<>(Collections.nCopies(rows, List.of()));
+        for (ContractField field : FIELDS) {
+            String[] column = columns.get(field);
+            boolean isRequired = required.contains(field);
+            if (column == null) {
+                if (isRequired) {
+                    for (int row = 0; row < rows; row++) add(violations, row, new Violation(field, "lipseste"));
+                }
+                continue;
+            }
+            for (int row = 0; row < rows; row++) {
+                Violation violation = check(field, column[row], isRequired);
+                if (violation != null) add(violations, row, violation);
+            }
+        }
+        return violations;
+    }
+
+    private Violation check(ContractField field, String value, boolean required) {
+        if (value == null || value.isBlank()) {
+            return required ? new Violation(field, "lipseste") : null;
+        }
+        Rule rule = rules[field.ordinal()];
+        String message = rule != null ? rule.check(value.trim()) : null;
+        return message != null ? new Violation(field, message) : null;
+    }
+
+    private static void add(List<List<Violation>> violations, int row, Violation violation) {
+        if (violations.get(row).isEmpty()) violations.set(row, new ArrayList<>(2));
+        violations.get(row).add(violation);
+    }
+}
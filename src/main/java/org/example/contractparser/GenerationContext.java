@@ -0,0 +1,59 @@
+package org.example.contractparser;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Values shared by every contract generated in one run: the date, the hire day and the salaries.
+ * They are computed once when the context is created, so a batch started before midnight
+ * keeps the same dates for all employees and {@code config.yml} is read a single time.
+ */
+public final class GenerationContext {
+
+    private final LocalDate todayDate;
+    private final String today;
+    private final String hireDay;
+    private final String defaultSalary;
+    private final Map<String, Integer> companySalaries;
+
+    private GenerationContext(LocalDate todayDate, int defaultSalary, Map<String, Integer> companySalaries) {
+        this.todayDate = todayDate;
+        this.today = todayDate.format(DateTimeFormatter.ofPattern(ContractService.DATE_FORMAT));
+        this.hireDay = HireDay.getHireDay(todayDate);
+        this.defaultSalary = String.valueOf(defaultSalary);
+        this.companySalaries = Map.copyOf(companySalaries);
+    }
+
+    public static GenerationContext create() {
+        return create(Clock.systemDefaultZone());
+    }
+
+    public static GenerationContext create(Clock clock) {
+        return new GenerationContext(LocalDate.now(clock),
+                ContractService.getSalaryFromConfig(),
+                ContractService.getCompanySalariesFromConfig());
+    }
+
+    public LocalDate getTodayDate() {
+        return todayDate;
+    }
+
+    public String getToday() {
+        return today;
+    }
+
+    public String getHireDay() {
+        return hireDay;
+    }
+
+    /**
+     * @param company template/company name, may be {@code null}
+     * @return the company override from the config, or the default salary
+     */
+    public String getSalary(String company) {
+        Integer salary = company != null ? companySalaries.get(company) : null;
+        return salary != null ? String.valueOf(salary) : defaultSalary;
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.contractparser;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -14,8 +15,9 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
 
 public class HelloApplication extends Application {
     private ImageView imageView = new ImageView();
@@ -27,9 +29,6 @@ public class HelloApplication extends Application {
     public void start(Stage stage) {
         this.primaryStage = stage;
 
-        // Initialize configuration
-        ContractService.initializeConfig();
-
         stage.setTitle("ContractParser");
 
         Label imageLabel = new Label("ID Image (JPG/PNG):");
@@ -42,6 +41,18 @@ public class HelloApplication extends Application {
 
         TextField regNumberField = new TextField();
         regNumberField.setPromptText("Numar de Inregistrare");
+        Button allocateButton = new Button("Aloca");
+        allocateButton.setStyle(glassButtonStyle());
+        allocateButton.setOnAction(e -> {
+            try {
+                // reserves the contract number and the one after it, used by the fisa
+                regNumberField.setText(RegistrationSequence.getDefault().allocatePair(GenerationContext.create()));
+            } catch (IOException | RuntimeException ex) {
+                showErrorAlert("Numar de inregistrare", "Nu s-a putut aloca un numar: " + ex.getMessage());
+            }
+        });
+        HBox regNumberBox = new HBox(10, regNumberField, allocateButton);
+        HBox.setHgrow(regNumberField, Priority.ALWAYS);
         TextField phoneField = new TextField();
         phoneField.setPromptText("Numar de Telefon");
         TextField placeField = new TextField();
@@ -52,13 +63,19 @@ public class HelloApplication extends Application {
         CheckBox digitalIdCheckbox = new CheckBox("Buletin digital");
 
         ComboBox<String> selectBox = new ComboBox<>();
-        selectBox.getItems().addAll("Robest", "Amarillo", "Azzuro");
+        // config, arhiva and templates are prepared in the background, the list fills in when they are ready
+        Startup.registry()
+                .thenAccept(registry -> Platform.runLater(() -> selectBox.getItems().setAll(registry.getCompanies())))
+                .exceptionally(ex -> {
+                    Platform.runLater(() -> showErrorAlert("Sabloane indisponibile", ex.getMessage()));
+                    return null;
+                });
         selectBox.setPromptText("Selecteaza compania");
         selectBox.setMaxWidth(Double.MAX_VALUE);
 
         VBox fieldsBox = new VBox(15,
                 imageBox,
-                new Label("Numar de inregistrare:"), regNumberField,
+                new Label("Numar de inregistrare:"), regNumberBox,
                 new Label("Telefon:"), phoneField,
                 new Label("Locatie:"), placeField,
                 new Label("Oras:"), cityField,
@@ -76,7 +93,11 @@ public class HelloApplication extends Application {
         submitButton.setOnMousePressed(e -> submitButton.setStyle(glassButtonPressedStyle()));
         submitButton.setOnMouseReleased(e -> submitButton.setStyle(glassButtonStyle()));
 
-        HBox submitBox = new HBox(submitButton);
+        Button reportButton = new Button("Raport");
+        reportButton.setStyle(glassButtonStyle());
+        reportButton.setOnAction(e -> exportReport(stage, reportButton));
+
+        HBox submitBox = new HBox(15, reportButton, submitButton);
         submitBox.setAlignment(Pos.CENTER);
 
         VBox root = new VBox(20, fieldsBox, submitBox);
@@ -87,6 +108,15 @@ public class HelloApplication extends Application {
         stage.setScene(scene);
         stage.show();
 
+        CompletableFuture<Void> warmUp = Startup.warmUp();
+        if (getParameters().getRaw().contains(Startup.EXIT_AFTER_FIRST_FRAME)) {
+            Platform.runLater(() -> {
+                System.out.println("First frame after " + Startup.uptimeMillis() + " ms");
+                // wait for the warm-up so an AppCDS archive recorded on this run also holds its classes
+                warmUp.whenComplete((ignored, ex) -> Platform.exit());
+            });
+        }
+
         submitButton.setOnAction(e -> {
             // Validate initial form fields
             ContractService.ValidationResult validation = ContractService.validateInitialForm(
@@ -110,7 +140,7 @@ public class HelloApplication extends Application {
             ContractService.ensureArhivaDirectory();
 
             // Extract data from image if present
-            Map<String, String> placeholders = new HashMap<>();
+            ContractRecord placeholders = ContractRecord.empty();
             template = selectBox.getValue();
             if (imageView.getImage() != null) {
                 try {
@@ -182,66 +212,118 @@ public class HelloApplication extends Application {
         }
     }
 
-    private void showDetailedReviewPage(Map<String, String> extractedData, String regNumber,
+    /**
+     * Saves the hires of the current month from the archive as a spreadsheet, off the JavaFX thread.
+     */
+    private void exportReport(Stage stage, Button reportButton) {
+        YearMonth month = YearMonth.now();
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Salveaza raportul de angajari");
+        fileChooser.setInitialFileName(HiringReport.defaultFileName(month));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel", "*.xlsx"));
+        File output = fileChooser.showSaveDialog(stage);
+        if (output == null) {
+            return;
+        }
+
+        reportButton.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                ContractService.ensureArhivaDirectory();
+                return HiringReport.write(RecordStore.of(new File(ContractService.ARHIVA_DIR)), month, output);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenComplete((rows, ex) -> Platform.runLater(() -> {
+            reportButton.setDisable(false);
+            if (ex != null) {
+                showErrorAlert("Raport", "Raportul nu a putut fi generat: " + ex.getMessage());
+            } else {
+                showSuccessAlert("Raport generat", rows + " angajari in " + month + " salvate in " + output.getName() + ".");
+            }
+        }));
+    }
+
+    private void showDetailedReviewPage(ContractRecord extractedData, String regNumber,
                                         String phone, String place, String city) {
         primaryStage.setTitle("Review Extracted Data");
 
         // Original fields
-        TextField nameField = new TextField(extractedData.getOrDefault("ɛ", ""));
+        TextField nameField = new TextField(extractedData.getOrDefault(ContractField.NAME, ""));
         nameField.setPromptText("Nume");
 
-        TextField seriesField = new TextField(extractedData.getOrDefault("ɜ", ""));
+        TextField seriesField = new TextField(extractedData.getOrDefault(ContractField.SERIES, ""));
         seriesField.setPromptText("Seria");
 
-        TextField numberField = new TextField(extractedData.getOrDefault("ɝ", ""));
+        TextField numberField = new TextField(extractedData.getOrDefault(ContractField.NUMBER, ""));
         numberField.setPromptText("Numarul");
 
-        TextField cnpField = new TextField(extractedData.getOrDefault("ɞ", ""));
+        TextField cnpField = new TextField(extractedData.getOrDefault(ContractField.CNP, ""));
         cnpField.setPromptText("CNP");
 
-        TextField issuedByField = new TextField(extractedData.getOrDefault("ɟ", ""));
+        TextField issuedByField = new TextField(extractedData.getOrDefault(ContractField.ISSUED_BY, ""));
         issuedByField.setPromptText("Emis de");
 
-        TextField addressField = new TextField(extractedData.getOrDefault("ɠ", ""));
+        TextField addressField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS, ""));
         addressField.setPromptText("Adresa");
 
-        TextField validityField = new TextField(extractedData.getOrDefault("ɣ", ""));
+        TextField validityField = new TextField(extractedData.getOrDefault(ContractField.VALIDITY, ""));
         validityField.setPromptText("Data de valabilitate");
 
         // New additional fields
-       TextField birthCountyField = new TextField(extractedData.getOrDefault("Ȣ", ""));
+       TextField birthCountyField = new TextField(extractedData.getOrDefault(ContractField.BIRTH_PLACE, ""));
         birthCountyField.setPromptText("Judet nastere");
 
-        TextField birthCountryField = new TextField(extractedData.getOrDefault("Ȥ", ""));
+        TextField birthCountryField = new TextField(extractedData.getOrDefault(ContractField.BIRTH_COUNTRY, ""));
         birthCountryField.setPromptText("Tara nastere");
 
-        TextField birthDateField = new TextField(extractedData.getOrDefault("ȕ", ""));
+        TextField birthDateField = new TextField(extractedData.getOrDefault(ContractField.BIRTH_DATE, ""));
         birthDateField.setPromptText("Data nastere");
 
-        TextField addressCountyField = new TextField(extractedData.getOrDefault("Ƚ", ""));
+        TextField addressCountyField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_COUNTY, ""));
         addressCountyField.setPromptText("Judet adresa");
 
-        TextField addressCountryField = new TextField(extractedData.getOrDefault("ʦ", ""));
+        TextField addressCountryField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_CITY, ""));
         addressCountryField.setPromptText("Tara adresa");
 
-        TextField addressStreetField = new TextField(extractedData.getOrDefault("Ɋ", ""));
+        TextField addressStreetField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_STREET, ""));
         addressStreetField.setPromptText("Strada");
 
-        TextField addressNumberField = new TextField(extractedData.getOrDefault("ʡ", ""));
+        TextField addressNumberField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_NUMBER, ""));
         addressNumberField.setPromptText("Numar");
 
-        TextField addressBlocField = new TextField(extractedData.getOrDefault("ʠ", ""));
+        TextField addressBlocField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_BLOC, ""));
         addressBlocField.setPromptText("Bloc");
 
-        TextField addressScaraField = new TextField(extractedData.getOrDefault("ʢ", ""));
+        TextField addressScaraField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_SCARA, ""));
         addressScaraField.setPromptText("Scara");
 
-        TextField adressEtajField = new TextField(extractedData.getOrDefault("ʣ", ""));
+        TextField adressEtajField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_ETAJ, ""));
         adressEtajField.setPromptText("Etaj");
 
-        TextField addressApartmentField = new TextField(extractedData.getOrDefault("ʤ", ""));
+        TextField addressApartmentField = new TextField(extractedData.getOrDefault(ContractField.ADDRESS_APARTMENT, ""));
         addressApartmentField.setPromptText("Apartament");
 
+        // Point the clerk at the values the OCR was unsure about
+        highlightLowConfidence(extractedData, ContractField.NAME, nameField);
+        highlightLowConfidence(extractedData, ContractField.SERIES, seriesField);
+        highlightLowConfidence(extractedData, ContractField.NUMBER, numberField);
+        highlightLowConfidence(extractedData, ContractField.CNP, cnpField);
+        highlightLowConfidence(extractedData, ContractField.ISSUED_BY, issuedByField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS, addressField);
+        highlightLowConfidence(extractedData, ContractField.VALIDITY, validityField);
+        highlightLowConfidence(extractedData, ContractField.BIRTH_PLACE, birthCountyField);
+        highlightLowConfidence(extractedData, ContractField.BIRTH_COUNTRY, birthCountryField);
+        highlightLowConfidence(extractedData, ContractField.BIRTH_DATE, birthDateField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_COUNTY, addressCountyField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_CITY, addressCountryField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_STREET, addressStreetField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_NUMBER, addressNumberField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_BLOC, addressBlocField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_SCARA, addressScaraField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_ETAJ, adressEtajField);
+        highlightLowConfidence(extractedData, ContractField.ADDRESS_APARTMENT, addressApartmentField);
+
         VBox fieldsBox = new VBox(15,
                 new Label("Nume:"), nameField,
                 new Label("Seria:"), seriesField,
@@ -277,68 +359,62 @@ public class HelloApplication extends Application {
         backButton.setOnAction(e -> start(primaryStage));
 
         createButton.setOnAction(e -> {
-            // Validate detailed review form fields
-            ContractService.ValidationResult validation = ContractService.validateDetailedReviewForm(
-                    nameField.getText(),
-                    seriesField.getText(),
-                    numberField.getText(),
-                    cnpField.getText(),
-                    issuedByField.getText(),
-                    addressField.getText(),
-                    validityField.getText(),
-                    birthCountyField.getText(),
-                    birthCountryField.getText(),
-                    birthDateField.getText(),
-                    addressCountyField.getText(),
-                    addressCountryField.getText(),
-                    addressStreetField.getText(),
-                    addressNumberField.getText(),
-                    addressBlocField.getText(),
-                    addressScaraField.getText(),
-                    adressEtajField.getText(),
-                    addressApartmentField.getText()
-            );
-
+            // Update extracted data with all edited values
+            ContractRecord editedData = extractedData.toBuilder()
+                    .set(ContractField.FISA_REGISTRATION_NUMBER, ContractService.getFisaRegistration(regNumber))
+                    .set(ContractField.NAME, nameField.getText())
+                    .set(ContractField.SERIES, seriesField.getText())
+                    .set(ContractField.NUMBER, numberField.getText())
+                    .set(ContractField.CNP, cnpField.getText())
+                    .set(ContractField.ISSUED_BY, issuedByField.getText())
+                    .set(ContractField.ADDRESS, addressField.getText())
+                    .set(ContractField.VALIDITY, validityField.getText())
+                    // Add new fields to extracted data
+                    .set(ContractField.BIRTH_PLACE, birthCountyField.getText())
+                    .set(ContractField.BIRTH_COUNTRY, birthCountryField.getText())
+                    .set(ContractField.BIRTH_DATE, birthDateField.getText())
+                    .set(ContractField.ADDRESS_COUNTY, addressCountyField.getText())
+                    .set(ContractField.ADDRESS_CITY, addressCountryField.getText())
+                    .set(ContractField.ADDRESS_STREET, addressStreetField.getText())
+                    .set(ContractField.ADDRESS_NUMBER, addressNumberField.getText())
+                    .set(ContractField.ADDRESS_BLOC, addressBlocField.getText())
+                    .set(ContractField.ADDRESS_SCARA, addressScaraField.getText())
+                    .set(ContractField.ADDRESS_ETAJ, adressEtajField.getText())
+                    .set(ContractField.ADDRESS_APARTMENT, addressApartmentField.getText())
+                    .build();
+
+            // Validate all edited values at once
+            ContractService.ValidationResult validation = ContractService.validateDetailedReviewForm(editedData);
             if (!validation.isValid()) {
                 showErrorAlert(validation.getErrorTitle(), validation.getErrorMessage());
                 return;
             }
 
-            extractedData.put("ŵ", getFisaRegistration(regNumber));
-
-            // Update extracted data with all edited values
-            extractedData.put("ɛ", nameField.getText());
-            extractedData.put("ɜ", seriesField.getText());
-            extractedData.put("ɝ", numberField.getText());
-            extractedData.put("ɞ", cnpField.getText());
-            extractedData.put("ɟ", issuedByField.getText());
-            extractedData.put("ɠ", addressField.getText());
-            extractedData.put("ɣ", validityField.getText());
-
-            // Add new fields to extracted data
-            extractedData.put("Ȣ", birthCountyField.getText());
-            extractedData.put("Ȥ", birthCountryField.getText());
-            extractedData.put("ȕ", birthDateField.getText());
-            extractedData.put("Ƚ", addressCountyField.getText());
-            extractedData.put("ʦ", addressCountryField.getText());
-            extractedData.put("Ɋ", addressStreetField.getText());
-            extractedData.put("ʡ", addressNumberField.getText());
-            extractedData.put("ʠ", addressBlocField.getText());
-            extractedData.put("ʢ", addressScaraField.getText());
-            extractedData.put("ʣ", adressEtajField.getText());
-            extractedData.put("ʤ", addressApartmentField.getText());
-
             // Build complete data map with all placeholders
-            Map<String, String> completeData = ContractService.buildCompleteDataMap(
-                    extractedData, regNumber, phone, place, city
+            ContractRecord completeData = ContractService.buildCompleteRecord(
+                    GenerationContext.create(), editedData, regNumber, phone, place, city, template
             );
 
             // Generate documents
             try {
-                ContractService.generateDocuments(nameField.getText(), completeData, template);
+                HireIndex hires = ContractService.getHireIndex();
+                HireIndex.Hire previous = hires.find(cnpField.getText());
+                if (previous != null && !confirmDuplicateHire(previous)) {
+                    return;
+                }
+
+                boolean written = ContractService.generateDocuments(nameField.getText(), completeData, template);
+                if (written || previous == null) {
+                    hires.record(cnpField.getText(), nameField.getText());
+                }
 
-                showSuccessAlert("Contracte generate",
-                        "Contractul si Fisa au fost generate cu succes in folderul 'arhiva'.");
+                if (written) {
+                    showSuccessAlert("Contracte generate",
+                            "Contractul si Fisa au fost generate cu succes in folderul 'arhiva'.");
+                } else {
+                    showSuccessAlert("Contracte neschimbate",
+                            "Contractul si Fisa din folderul 'arhiva' sunt deja la zi.");
+                }
                 start(primaryStage);
 
             } catch (IOException ex) {
@@ -363,6 +439,23 @@ public class HelloApplication extends Application {
 
 
 
+    private void highlightLowConfidence(ContractRecord data, ContractField field, TextField textField) {
+        float confidence = data.getConfidence(field);
+        if (confidence < ContractService.REVIEW_CONFIDENCE_THRESHOLD) {
+            textField.setStyle("-fx-border-color: #e0a800; -fx-border-width: 2; -fx-border-radius: 3;");
+            textField.setTooltip(new Tooltip(String.format("Incredere OCR scazuta: %.0f%%", confidence)));
+        }
+    }
+
+    private boolean confirmDuplicateHire(HireIndex.Hire previous) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Angajat existent");
+        alert.setHeaderText("Exista deja un contract pentru acest CNP");
+        alert.setContentText("Contractul a fost generat pentru " + previous.getEmployeeName() + " pe data de "
+                + previous.getDate() + ". Generati totusi un contract nou?");
+        return alert.showAndWait().filter(button -> button == ButtonType.OK).isPresent();
+    }
+
     private void showErrorAlert(String header, String content) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -380,20 +473,6 @@ public class HelloApplication extends Application {
         alert.showAndWait();
     }
 
-    private String getFisaRegistration(String registrationNumber) {
-        if (registrationNumber == null || registrationNumber.isBlank()) {
-            return "";
-        }
-        String[] parts = registrationNumber.split("/", 2);
-        String numPart = parts[0].trim();
-        try {
-            long value = Long.parseLong(numPart);
-            return Long.toString(value + 1);
-        } catch (NumberFormatException e) {
-            return numPart;
-        }
-    }
-
     public static void main(String[] args) {
         launch();
     }
@@ -11,12 +11,15 @@ public class HireDay {
     static DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT);
     
     public static String getHireDay(){
-        LocalDate localDate = LocalDate.now();
+        return getHireDay(LocalDate.now());
+    }
+
+    public static String getHireDay(LocalDate today){
         int increment = 1;
-        if (localDate.getDayOfWeek() == DayOfWeek.FRIDAY) {
+        if (today.getDayOfWeek() == DayOfWeek.FRIDAY) {
             increment += 2;
         }
 
-        return LocalDate.now().plusDays(increment).format(formatter);
+        return today.plusDays(increment).format(formatter);
     }
-}
\ No newline at end of file
+}
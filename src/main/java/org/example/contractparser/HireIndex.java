@@ -0,0 +1,395 @@
+package org.example.contractparser;
+
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.example.contractparser.procesing.Cnp;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Remembers which people already have a contract in an archive folder, so the same person is not hired twice.
+ *
+ * <p>People are keyed by a salted SHA-256 of their CNP; the CNP itself is never written. The index file
+ * ({@value #FILE_NAME}) starts with the salt and then holds one {@code hash;date;owner;name} line per hire, where
+ * the owner is the shared job that claimed the hire, if any. It is only appended to, and a later line for the same
+ * hash replaces an earlier one; a line without a date removes it. The file is read once into a hash map and then
+ * only the lines other processes appended since are read, so a lookup costs the same for ten or ten thousand
+ * hires.</p>
+ *
+ * <p>Several processes may use one index: the UI, batch runs and {@code SharedWorker}s on other machines. Every
+ * write takes an exclusive lock on {@value #LOCK_FILE_NAME} next to it, and {@link #claim} reads what the others
+ * appended under the same lock before deciding, so of two processes claiming one CNP only the first succeeds. A
+ * rebuild keeps the salt, and an index replaced by a rebuild is read again from the start.</p>
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.HireIndex --rebuild [arhiva]
+ * </pre>
+ */
+public final class HireIndex {
+
+    public static final String FILE_NAME = "hires.idx";
+    static final String LOCK_FILE_NAME = FILE_NAME + ".lock";
+    private static final String SALT_PREFIX = "#salt ";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern(ContractService.DATE_FORMAT);
+    /** A JVM may hold a file lock only once, so threads and index instances of one process queue up here first. */
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * A person already in the index: the name their documents were generated under and when.
+     */
+    public static final class Hire {
+        private final String employeeName;
+        private final String date;
+        private final String owner;
+
+        private Hire(String employeeName, String date, String owner) {
+            this.employeeName = employeeName;
+            this.date = date;
+            this.owner = owner;
+        }
+
+        public String getEmployeeName() {
+            return employeeName;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        @Override
+        public String toString() {
+            return employeeName + " (" + date + ")";
+        }
+    }
+
+    private interface Locked<T> {
+        T run() throws IOException;
+    }
+
+    private final Path file;
+    private final Path lockFile;
+    private final Map<String, Hire> hires = new ConcurrentHashMap<>();
+    private volatile byte[] salt;
+    /** Bytes of the file already read, and the identity of that file, to notice appends and rebuilds. */
+    private long position;
+    private Object fileKey;
+
+    private HireIndex(Path file) {
+        this.file = file;
+        this.lockFile = file.resolveSibling(LOCK_FILE_NAME);
+    }
+
+    /**
+     * Loads the index of an archive folder, creating an empty one if the folder has none yet.
+     */
+    public static HireIndex open(File archiveDir) throws IOException {
+        Path file = archiveDir.toPath().resolve(FILE_NAME);
+        HireIndex index = new HireIndex(file);
+        if (!Files.exists(file)) {
+            Files.createDirectories(archiveDir.toPath());
+            locked(index.lockFile, () -> {
+                if (!Files.exists(file)) {
+                    writeHeader(file, newSalt());
+                }
+                return null;
+            });
+        }
+        index.refresh();
+        return index;
+    }
+
+    /**
+     * Recreates the index of an archive folder from the contracts in it. Documents are read in parallel and every
+     * valid CNP found in a contract is registered under the contract's name; fisa files hold the same CNP and are skipped.
+     * The salt of an existing index is kept, so processes that have it open keep finding the same people.
+     */
+    public static HireIndex rebuild(File archiveDir) throws IOException {
+        Path dir = archiveDir.toPath();
+        Path file = dir.resolve(FILE_NAME);
+        HireIndex index = new HireIndex(file);
+        return locked(index.lockFile, () -> {
+            index.salt = Files.exists(file) ? readSalt(file) : newSalt();
+
+            List<Path> contracts;
+            try (Stream<Path> files = Files.list(dir)) {
+                contracts = files.filter(p -> p.getFileName().toString().endsWith(".docx"))
+                        .filter(p -> !p.getFileName().toString().endsWith(DocumentType.FISA.fileName("")))
+                        .toList();
+            }
+
+            try {
+                contracts.parallelStream().forEach(contract -> {
+                    String name = contract.getFileName().toString().replaceFirst("\\.docx$", "").replace('_', ' ');
+                    try (InputStream in = ArchiveCrypto.getDefault().newInputStream(contract);
+                         XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(in))) {
+                        String date = LocalDate.ofInstant(Instant.ofEpochMilli(contract.toFile().lastModified()),
+                                ZoneId.systemDefault()).format(DATE);
+                        String text = extractor.getText();
+                        for (int i = 0; i + Cnp.LENGTH <= text.length(); i++) {
+                            CharSequence candidate = CharBuffer.wrap(text, i, i + Cnp.LENGTH);
+                            if (isDigitBoundary(text, i - 1) && isDigitBoundary(text, i + Cnp.LENGTH) && Cnp.isValid(candidate)) {
+                                index.hires.putIfAbsent(index.key(candidate), new Hire(name, date, ""));
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(contract + ": " + e.getMessage(), e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // write next to the old index and swap, so a failed rebuild leaves the old one in place
+            Path temp = dir.resolve(FILE_NAME + ".tmp");
+            writeHeader(temp, index.salt);
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+                for (Map.Entry<String, Hire> entry : index.hires.entrySet()) {
+                    writer.write(line(entry.getKey(), entry.getValue()));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.hires.clear();
+            index.refresh();
+            return index;
+        });
+    }
+
+    private static boolean isDigitBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isDigit(text.charAt(index));
+    }
+
+    /**
+     * @return the earlier hire of the person with this CNP, or {@code null} if there is none
+     */
+    public Hire find(String cnp) throws IOException {
+        refresh();
+        return hires.get(key(cnp));
+    }
+
+    /**
+     * Claims a CNP for documents that are about to be generated, so two rows, or two processes, cannot both pass.
+     * The claim is written right away; {@link #forget(String)} takes it back when the documents are not generated.
+     *
+     * @param owner the shared job making the claim, so a retry of the same job after a crash is let through,
+     *              or {@code null}
+     * @return the earlier hire of this CNP, or {@code null} if the claim succeeded
+     */
+    public synchronized Hire claim(String cnp, String employeeName, String owner) throws IOException {
+        return locked(lockFile, () -> {
+            refresh();
+            String key = key(cnp);
+            Hire previous = hires.get(key);
+            if (previous != null && (owner == null || !owner.equals(previous.owner))) {
+                return previous;
+            }
+            append(key, new Hire(employeeName, LocalDate.now().format(DATE), owner != null ? owner : ""));
+            return null;
+        });
+    }
+
+    /**
+     * Drops a claim made by {@link #claim} whose documents were not generated.
+     */
+    public synchronized void forget(String cnp) throws IOException {
+        locked(lockFile, () -> {
+            refresh();
+            String key = key(cnp);
+            if (hires.containsKey(key)) {
+                append(key, null);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drops the claim a shared job made with {@link #claim}, for a job given up without its CNP being known,
+     * such as one abandoned by its workers. Hires already {@link #record recorded} are kept.
+     */
+    public synchronized void forgetOwner(String owner) throws IOException {
+        locked(lockFile, () -> {
+            refresh();
+            for (String key : List.copyOf(hires.keySet())) {
+                Hire hire = hires.get(key);
+                if (hire != null && hire.owner.equals(owner)) {
+                    append(key, null);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Stores the hire of a person whose documents were generated, replacing an earlier hire of the same CNP.
+     */
+    public synchronized void record(String cnp, String employeeName) throws IOException {
+        locked(lockFile, () -> {
+            refresh();
+            append(key(cnp), new Hire(employeeName, LocalDate.now().format(DATE), ""));
+            return null;
+        });
+    }
+
+    public int size() {
+        return hires.size();
+    }
+
+    /**
+     * Appends one line; called with the file lock held and the index up to date, so the line read back next is ours.
+     */
+    private void append(String key, Hire hire) throws IOException {
+        Files.writeString(file, hire != null ? line(key, hire) : key + ";;;\n", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        refresh();
+    }
+
+    /**
+     * Reads the lines appended since the last call, or the whole file again when a rebuild replaced it.
+     */
+    private synchronized void refresh() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        // file systems without inode numbers tell a rebuilt index by its creation time
+        Object key = attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+        if (position == 0 || !Objects.equals(key, fileKey) || attributes.size() < position) {
+            hires.clear();
+            salt = readSalt(file);
+            position = 0;
+            fileKey = key;
+        }
+        if (attributes.size() == position) {
+            return;
+        }
+
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(attributes.size() - position));
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) != -1) {
+                // read up to the size seen above
+            }
+            bytes = Arrays.copyOf(buffer.array(), buffer.position());
+        }
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            // a line another process is still writing has no newline yet and is read next time
+            parseLine(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+            start = i + 1;
+        }
+        position += start;
+    }
+
+    private void parseLine(String line) {
+        if (line.startsWith(SALT_PREFIX)) {
+            return;
+        }
+        String[] parts = line.split(";", 4);
+        if (parts.length < 3) {
+            return;
+        }
+        if (parts[1].isEmpty()) {
+            hires.remove(parts[0]);
+        } else if (parts.length == 3) {
+            hires.put(parts[0], new Hire(parts[2], parts[1], ""));
+        } else {
+            hires.put(parts[0], new Hire(parts[3], parts[1], parts[2]));
+        }
+    }
+
+    private String key(CharSequence cnp) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            for (int i = 0; i < cnp.length(); i++) {
+                char c = cnp.charAt(i);
+                if (c != ' ') digest.update((byte) c);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String line(String key, Hire hire) {
+        return key + ";" + hire.date + ";" + hire.owner.replace(';', '_') + ";" + hire.employeeName.replace('\n', ' ') + "\n";
+    }
+
+    private static byte[] readSalt(Path file) throws IOException {
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+        }
+        if (header == null || !header.startsWith(SALT_PREFIX)) {
+            throw new IOException("Indexul " + file + " nu are salt, refaceti-l cu --rebuild");
+        }
+        return Base64.getDecoder().decode(header.substring(SALT_PREFIX.length()).trim());
+    }
+
+    private static void writeHeader(Path target, byte[] salt) throws IOException {
+        Files.writeString(target, SALT_PREFIX + Base64.getEncoder().encodeToString(salt) + "\n", StandardCharsets.UTF_8);
+    }
+
+    private static byte[] newSalt() {
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * Runs {@code action} holding the index lock of this process and then the file lock shared with the others.
+     */
+    private static <T> T locked(Path lockFile, Locked<T> action) throws IOException {
+        synchronized (PROCESS_LOCKS.computeIfAbsent(lockFile.toAbsolutePath().normalize(), path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !args[0].equals("--rebuild")) {
+            System.err.println("Usage: HireIndex --rebuild [arhiva]");
+            System.exit(1);
+        }
+        File archiveDir = new File(args.length > 1 ? args[1] : "arhiva");
+        long start = System.nanoTime();
+        HireIndex index = rebuild(archiveDir);
+        System.out.println("Indexed " + index.size() + " people from " + archiveDir + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.contractparser;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Spreadsheet of the hires in a {@link RecordStore}: name, CNP, company, registration number, hire date,
+ * salary and city, one row per employee.
+ *
+ * <p>Rows are written with POI's streaming {@link SXSSFWorkbook}: only the last {@value #ROW_WINDOW} rows stay
+ * in memory, older ones are flushed to a compressed temporary file. Records are read in chunks of
+ * {@value #CHUNK} on all cores, so the heap stays flat however many employees the archive holds.</p>
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.HiringReport [--archive=arhiva] [--month=2026-10|--all]
+ *      [--output=raport.xlsx]
+ * </pre>
+ */
+public final class HiringReport {
+
+    static final int ROW_WINDOW = 100;
+    private static final int CHUNK = 1024;
+    private static final String[] HEADERS = {"Nume", "CNP", "Companie", "Nr. inregistrare", "Data angajarii", "Salariu", "Oras"};
+    private static final int[] WIDTHS = {30, 16, 16, 20, 16, 10, 20};
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern(ContractService.DATE_FORMAT);
+
+    private HiringReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File archive = new File("arhiva");
+        YearMonth month = YearMonth.now();
+        File output = null;
+        for (String arg : args) {
+            if (arg.startsWith("--archive=")) archive = new File(arg.substring("--archive=".length()));
+            else if (arg.startsWith("--month=")) month = YearMonth.parse(arg.substring("--month=".length()));
+            else if (arg.equals("--all")) month = null;
+            else if (arg.startsWith("--output=")) output = new File(arg.substring("--output=".length()));
+            else {
+                System.err.println("Usage: HiringReport [--archive=arhiva] [--month=yyyy-MM|--all] [--output=file.xlsx]");
+                System.exit(1);
+            }
+        }
+        if (output == null) {
+            output = new File(defaultFileName(month));
+        }
+
+        long start = System.nanoTime();
+        int rows = write(RecordStore.of(archive), month, output);
+        System.out.println(rows + " hires written to " + output.getAbsolutePath() + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * @return e.g. {@code raport-angajari-2026-10.xlsx}, or {@code raport-angajari.xlsx} for every month
+     */
+    public static String defaultFileName(YearMonth month) {
+        return "raport-angajari" + (month != null ? "-" + month : "") + ".xlsx";
+    }
+
+    /**
+     * Writes the report to a file, replacing it only once the whole report was written.
+     *
+     * @param month the hire month to keep, or {@code null} for every hire
+     * @return the number of employees in the report
+     */
+    public static int write(RecordStore store, YearMonth month, File output) throws IOException {
+        Path target = output.getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), "report", ".tmp");
+        try {
+            int rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                rows = write(store, month, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Streams the report into {@code out}, which is left open. Employees are sorted by their record file name.
+     */
+    public static int write(RecordStore store, YearMonth month, OutputStream out) throws IOException {
+        List<Path> files = store.list();
+        files.sort(Comparator.comparing(Path::getFileName));
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(month != null ? month.toString() : "Angajari");
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy"));
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, WIDTHS[i] * 256);
+            }
+            sheet.createFreezePane(0, 1);
+
+            int rowIndex = 1;
+            for (int from = 0; from < files.size(); from += CHUNK) {
+                // parsing runs in parallel, rows are still written in order
+                List<RecordStore.StoredRecord> chunk = files.subList(from, Math.min(files.size(), from + CHUNK))
+                        .parallelStream()
+                        .map(HiringReport::readQuietly)
+                        .toList();
+                for (RecordStore.StoredRecord stored : chunk) {
+                    if (stored == null) {
+                        continue;
+                    }
+                    LocalDate hired = hireDate(stored);
+                    if (month != null && (hired == null || !YearMonth.from(hired).equals(month))) {
+                        continue;
+                    }
+                    writeRow(sheet.createRow(rowIndex++), stored, hired, dateStyle);
+                }
+            }
+            workbook.write(out);
+            return rowIndex - 1;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static void writeRow(Row row, RecordStore.StoredRecord stored, LocalDate hired, CellStyle dateStyle) {
+        ContractRecord record = stored.getRecord();
+        row.createCell(0).setCellValue(stored.getEmployeeName());
+        row.createCell(1).setCellValue(record.getOrDefault(ContractField.CNP, ""));
+        row.createCell(2).setCellValue(stored.getCompany() != null ? stored.getCompany() : "");
+        row.createCell(3).setCellValue(record.getOrDefault(ContractField.REGISTRATION_NUMBER, ""));
+        Cell date = row.createCell(4);
+        if (hired != null) {
+            date.setCellValue(hired);
+            date.setCellStyle(dateStyle);
+        }
+        String salary = record.getOrDefault(ContractField.SALARY, "").trim();
+        Cell salaryCell = row.createCell(5);
+        try {
+            salaryCell.setCellValue(Integer.parseInt(salary));
+        } catch (NumberFormatException e) {
+            salaryCell.setCellValue(salary);
+        }
+        row.createCell(6).setCellValue(record.getOrDefault(ContractField.CITY, ""));
+    }
+
+    /**
+     * @return the hire date of the record, else the day its documents were generated, else the day it was saved
+     */
+    static LocalDate hireDate(RecordStore.StoredRecord stored) {
+        for (ContractField field : new ContractField[]{ContractField.HIRE_DATE, ContractField.TODAY_DATE}) {
+            String value = stored.getRecord().get(field);
+            if (value != null) {
+                try {
+                    return LocalDate.parse(value.trim(), DATE);
+                } catch (DateTimeParseException e) {
+                    // try the next one
+                }
+            }
+        }
+        return stored.getSaved() != null ? LocalDate.ofInstant(stored.getSaved(), ZoneId.systemDefault()) : null;
+    }
+
+    private static RecordStore.StoredRecord readQuietly(Path file) {
+        try {
+            return RecordStore.read(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Skipping unreadable record " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.contractparser;
+
+import org.example.contractparser.jfr.ImageLoadEvent;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Perceptual difference hash (dHash) of a scan. Re-saved, re-compressed or slightly resized copies of the
+ * same scan get hashes only a few bits apart, while a byte hash would differ completely.
+ *
+ * <p>The image is reduced to a 33x32 grayscale grid and every pixel is compared with its right neighbour,
+ * giving {@value #BITS} bits. The usual 64 bits cannot tell two people apart on cards of the same design; at this
+ * size their names, photos and numbers still change dozens of bits.</p>
+ */
+public final class ImageHash {
+
+    public static final int BITS = 1024;
+    private static final int WIDTH = 33;
+    private static final int HEIGHT = 32;
+
+    private ImageHash() {
+    }
+
+    /**
+     * @return the hash of the image file, or {@code null} when it is not an image ImageIO can read
+     */
+    public static long[] of(File image) throws IOException {
+        if (!image.isFile()) {
+            return null;
+        }
+        ImageLoadEvent event = new ImageLoadEvent();
+        event.begin();
+        BufferedImage decoded = ImageIO.read(image);
+        event.end();
+        if (event.shouldCommit()) {
+            event.image = image.getPath();
+            event.bytes = image.length();
+            event.decoded = decoded != null;
+            event.width = decoded != null ? decoded.getWidth() : 0;
+            event.height = decoded != null ? decoded.getHeight() : 0;
+            event.commit();
+        }
+        return decoded != null ? dHash(decoded) : null;
+    }
+
+    public static long[] dHash(BufferedImage image) {
+        BufferedImage gray = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        try {
+            g.drawImage(image.getScaledInstance(WIDTH, HEIGHT, Image.SCALE_AREA_AVERAGING), 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+
+        long[] hash = new long[BITS / 64];
+        int bit = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++, bit++) {
+                if (gray.getRaster().getSample(x, y, 0) > gray.getRaster().getSample(x + 1, y, 0)) {
+                    hash[bit >>> 6] |= 1L << (bit & 63);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return the number of differing bits
+     */
+    public static int distance(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            distance += Long.bitCount(a[i] ^ b[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * @return true for hashes of (almost) uniform images, which say nothing about the scan
+     */
+    public static boolean isFlat(long[] hash) {
+        int bits = 0;
+        for (long word : hash) bits += Long.bitCount(word);
+        return bits < BITS / 32 || bits > BITS - BITS / 32;
+    }
+
+    public static String toHex(long[] hash) {
+        StringBuilder sb = new StringBuilder(BITS / 4);
+        for (long word : hash) {
+            sb.append(String.format("%016x", word));
+        }
+        return sb.toString();
+    }
+
+    public static long[] fromHex(String hex) {
+        if (hex.length() != BITS / 4) {
+            throw new IllegalArgumentException("Not an image hash: " + hex);
+        }
+        long[] hash = new long[BITS / 64];
+        for (int i = 0; i < hash.length; i++) {
+            hash[i] = Long.parseUnsignedLong(hex.substring(i * 16, i * 16 + 16), 16);
+        }
+        return hash;
+    }
+}
@@ -1,9 +1,14 @@
 package org.example.contractparser;
 
 import javafx.application.Application;
+import org.example.contractparser.server.ContractHttpServer;
 
 public class Launcher {
-       public static void main(String[] args) {
+       public static void main(String[] args) throws Exception {
+           if (args.length > 0 && args[0].equals("--server")) {
+               ContractHttpServer.main(args);
+               return;
+           }
            Application.launch(HelloApplication.class, args);
        }
    }
@@ -0,0 +1,24 @@
+package org.example.contractparser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns an ID card image into its text lines, in reading order.
+ */
+public interface OcrClient {
+
+    /**
+     * @return the LINE blocks of the image with their confidence and bounding box
+     */
+    List<DetectText.TextBlock> extractTextBlocks(String imagePath) throws IOException;
+
+    default List<String> extractTextLines(String imagePath) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (DetectText.TextBlock block : extractTextBlocks(imagePath)) {
+            lines.add(block.getText());
+        }
+        return lines;
+    }
+}
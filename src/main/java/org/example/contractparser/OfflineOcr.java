@@ -0,0 +1,99 @@
+package org.example.contractparser;
+
+import org.example.contractparser.jfr.OcrRequestEvent;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+import software.amazon.awssdk.services.textract.model.Geometry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for Textract that reads the lines of an image from a transcript next to it
+ * ({@code scan.jpg} is read from {@code scan.txt}). An optional latency simulates the round trip
+ * to AWS, so batch runs and benchmarks behave like the real thing without paying for OCR.
+ *
+ * <p>A transcript line is either plain text, read with full confidence and stacked one line under the other,
+ * or {@code text<TAB>confidence<TAB>left,top,width,height} with the values Textract would report.</p>
+ */
+public class OfflineOcr implements OcrClient {
+
+    private static final float LINE_HEIGHT = 0.04f;
+
+    private final long latencyMillis;
+
+    public OfflineOcr() {
+        this(0);
+    }
+
+    public OfflineOcr(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public List<DetectText.TextBlock> extractTextBlocks(String imagePath) throws IOException {
+        OcrRequestEvent event = new OcrRequestEvent();
+        event.begin();
+        Path transcript = transcriptOf(imagePath);
+        if (!Files.exists(transcript)) {
+            throw new IOException("No OCR transcript found at " + transcript.toAbsolutePath());
+        }
+
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for OCR", e);
+            }
+        }
+
+        List<DetectText.TextBlock> blocks = new ArrayList<>();
+        for (String line : Files.readAllLines(transcript, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                blocks.add(parseLine(line, blocks.size()));
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.client = "Offline";
+            event.image = imagePath;
+            event.bytes = Files.size(transcript);
+            event.blocks = blocks.size();
+            event.commit();
+        }
+        return blocks;
+    }
+
+    static DetectText.TextBlock parseLine(String line, int index) {
+        String[] parts = line.split("\t");
+        String text = parts[0].trim();
+        if (parts.length < 3) {
+            float top = Math.min(0.97f, index * LINE_HEIGHT);
+            float width = Math.min(0.9f, 0.015f * text.length());
+            return new DetectText.TextBlock(text, 100f, geometry(0.05f, top, width, LINE_HEIGHT * 0.8f));
+        }
+
+        String[] box = parts[2].split(",");
+        return new DetectText.TextBlock(text, Float.parseFloat(parts[1].trim()),
+                geometry(Float.parseFloat(box[0]), Float.parseFloat(box[1]),
+                        Float.parseFloat(box[2]), Float.parseFloat(box[3])));
+    }
+
+    static Geometry geometry(float left, float top, float width, float height) {
+        return Geometry.builder()
+                .boundingBox(BoundingBox.builder().left(left).top(top).width(width).height(height).build())
+                .build();
+    }
+
+    public static Path transcriptOf(String imagePath) {
+        Path image = Path.of(imagePath);
+        String name = image.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return image.resolveSibling(base + ".txt");
+    }
+}
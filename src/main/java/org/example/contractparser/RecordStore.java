@@ -0,0 +1,156 @@
+package org.example.contractparser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The final data of every generated contract, kept as one JSON file per employee in {@value #DIR_NAME} inside the
+ * archive folder. Documents can be generated again from these records, with another template or changed values,
+ * without scanning the IDs again.
+ *
+ * <pre>
+ * {"employee": "Ion Popescu", "company": "Robest", "saved": "2026-10-19T08:00:00Z", "fields": {"NAME": "...", ...}}
+ * </pre>
+ */
+public final class RecordStore {
+
+    public static final String DIR_NAME = "records";
+    private static final String EXTENSION = ".json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * One stored employee: the name the documents were generated under, the company template and the values.
+     */
+    public static final class StoredRecord {
+        private final String employeeName;
+        private final String company;
+        private final Instant saved;
+        private final ContractRecord record;
+
+        public StoredRecord(String employeeName, String company, Instant saved, ContractRecord record) {
+            this.employeeName = employeeName;
+            this.company = company;
+            this.saved = saved;
+            this.record = record;
+        }
+
+        public String getEmployeeName() {
+            return employeeName;
+        }
+
+        public String getCompany() {
+            return company;
+        }
+
+        public Instant getSaved() {
+            return saved;
+        }
+
+        public ContractRecord getRecord() {
+            return record;
+        }
+    }
+
+    private final Path directory;
+
+    private RecordStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the store of the given archive folder; the records folder is created on the first save
+     */
+    public static RecordStore of(File archiveDir) {
+        return new RecordStore(new File(archiveDir, DIR_NAME).toPath());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the record of an employee, replacing the previous one. The file is written next to it first
+     * and then moved, so readers never see half a record.
+     */
+    public void save(String employeeName, String company, ContractRecord record) throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (Map.Entry<ContractField, String> entry : record.toMap().entrySet()) {
+            fields.put(entry.getKey().name(), entry.getValue());
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("employee", employeeName);
+        json.put("company", company);
+        json.put("saved", Instant.now().toString());
+        json.put("fields", fields);
+
+        Files.createDirectories(directory);
+        Path file = fileOf(employeeName);
+        Path temp = Files.createTempFile(directory, "record", ".tmp");
+        try {
+            try (OutputStream out = ArchiveCrypto.getDefault().newOutputStream(temp)) {
+                MAPPER.writeValue(out, json);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the record files, in no particular order; empty when nothing was saved yet
+     */
+    public List<Path> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path entry : entries) {
+                files.add(entry);
+            }
+        }
+        return files;
+    }
+
+    public static StoredRecord read(Path file) throws IOException {
+        JsonNode json;
+        try (InputStream in = ArchiveCrypto.getDefault().newInputStream(file)) {
+            json = MAPPER.readTree(in);
+        }
+        ContractRecord.Builder record = ContractRecord.builder();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = json.path("fields").fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            try {
+                record.set(ContractField.valueOf(field.getKey()), field.getValue().asText());
+            } catch (IllegalArgumentException e) {
+                // a field that no longer exists in this version
+            }
+        }
+        String saved = json.path("saved").asText(null);
+        return new StoredRecord(json.path("employee").asText(), json.path("company").asText(null),
+                saved != null ? Instant.parse(saved) : null, record.build());
+    }
+
+    /**
+     * @return the file the record of {@code employeeName} is kept in, named like the contract
+     */
+    public Path fileOf(String employeeName) {
+        String name = DocumentType.CONTRACT.fileName(employeeName);
+        return directory.resolve(name.substring(0, name.length() - ".docx".length()) + EXTENSION);
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.contractparser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hands out registration numbers that are unique across every clerk and batch run on this machine.
+ *
+ * <p>The next free number is a single long in {@value #FILE_NAME} next to the JAR. The file is memory-mapped and
+ * every allocation takes an exclusive lock on it, so two processes never get the same number. A batch takes all the
+ * numbers it needs in one allocation, so its workers never touch the file. Numbers of documents that end up not
+ * being generated are not given back.</p>
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.RegistrationSequence [--next=N]
+ * </pre>
+ */
+public final class RegistrationSequence implements Closeable {
+
+    public static final String FILE_NAME = "registration.seq";
+    private static RegistrationSequence defaultSequence;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer counter;
+
+    private RegistrationSequence(FileChannel channel) throws IOException {
+        this.channel = channel;
+        // a new file is grown to 8 zero bytes, read as "start at 1"
+        this.counter = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+    }
+
+    public static RegistrationSequence open(Path file) throws IOException {
+        return new RegistrationSequence(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * @return the sequence kept in the JAR directory, opened on first use
+     */
+    public static synchronized RegistrationSequence getDefault() {
+        if (defaultSequence == null) {
+            try {
+                defaultSequence = open(new File(ConfigToJarDir.getJarDir(), FILE_NAME).toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException("Cannot locate the JAR directory", e);
+            }
+        }
+        return defaultSequence;
+    }
+
+    /**
+     * Reserves {@code count} consecutive numbers.
+     *
+     * @return the first of them
+     */
+    public synchronized long allocate(int count) throws IOException {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        // the lock keeps other processes out, synchronized keeps other threads of this one out
+        FileLock lock = channel.lock(0, Long.BYTES, false);
+        try {
+            long next = Math.max(1, counter.getLong(0));
+            counter.putLong(0, next + count);
+            counter.force();
+            return next;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Reserves the numbers of one contract and its fisa, which is registered right after it.
+     *
+     * @return the contract registration, for example {@code 124/19.10.2026}; the fisa gets {@code 125}
+     */
+    public String allocatePair(GenerationContext context) throws IOException {
+        return format(allocate(2), context);
+    }
+
+    public static String format(long number, GenerationContext context) {
+        return number + "/" + context.getToday();
+    }
+
+    /**
+     * @return the number the next allocation will start at
+     */
+    public synchronized long peek() throws IOException {
+        FileLock lock = channel.lock(0, Long.BYTES, true);
+        try {
+            return Math.max(1, counter.getLong(0));
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Moves the sequence, for example to continue after the numbers of a paper register.
+     */
+    public synchronized void reset(long next) throws IOException {
+        FileLock lock = channel.lock(0, Long.BYTES, false);
+        try {
+            counter.putLong(0, next);
+            counter.force();
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        RegistrationSequence sequence = getDefault();
+        if (args.length > 0 && args[0].startsWith("--next=")) {
+            sequence.reset(Long.parseLong(args[0].substring("--next=".length())));
+        }
+        System.out.println("Next registration number: " + sequence.peek());
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.contractparser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.example.contractparser.procesing.Gazetteer;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps slow initialization off the JavaFX thread so the first window shows as soon as JavaFX itself is up.
+ *
+ * <p>Config, the archive folder and the templates are prepared on a background thread as soon as the app starts.
+ * Once the first frame is on screen, the same thread loads the POI, AWS SDK and Jackson classes the first
+ * extraction and generation will need, so the first click does not pay for them either.</p>
+ */
+public final class Startup {
+
+    /** Prints the time to the first frame and exits, used by {@link StartupBenchmark} and the AppCDS profile. */
+    public static final String EXIT_AFTER_FIRST_FRAME = "--exit-after-first-frame";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "startup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static CompletableFuture<TemplateRegistry> registry;
+    private static CompletableFuture<Void> warmUp;
+
+    private Startup() {
+    }
+
+    /**
+     * Starts preparing config, archive and templates the first time it is called.
+     *
+     * @return the template registry once it is loaded
+     */
+    public static synchronized CompletableFuture<TemplateRegistry> registry() {
+        if (registry == null) {
+            registry = CompletableFuture.supplyAsync(() -> {
+                ContractService.initializeConfig();
+                ContractService.ensureArhivaDirectory();
+                return TemplateRegistry.getDefault();
+            }, EXECUTOR);
+        }
+        return registry;
+    }
+
+    /**
+     * Loads the classes of the first extraction and generation in the background, once.
+     */
+    public static synchronized CompletableFuture<Void> warmUp() {
+        if (warmUp != null) {
+            return warmUp;
+        }
+        warmUp = CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try (XWPFDocument document = new XWPFDocument()) {
+                document.createParagraph().createRun().setText("warm-up");
+                document.write(OutputStream.nullOutputStream());
+                TextractClient.builder();
+                new ObjectMapper().writeValueAsString(ContractRecord.empty().toMap());
+                Gazetteer.getDefault();
+                FieldValidator.getDefault();
+            } catch (Exception e) {
+                // only a warm-up, the real call will report the problem
+                System.err.println("Warm-up failed: " + e.getMessage());
+            }
+            System.out.println("Warm-up done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }, EXECUTOR);
+        return warmUp;
+    }
+
+    /**
+     * @return milliseconds since the JVM was started
+     */
+    public static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.contractparser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures cold start of the shaded JAR to the first frame, with and without the AppCDS archive.
+ * Each run starts a fresh JVM with {@value Startup#EXIT_AFTER_FIRST_FRAME}; the median of the runs is reported.
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.StartupBenchmark ContractParser.jar [ContractParser.jsa] [runs]
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    private static final String FIRST_FRAME = "First frame after ";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: StartupBenchmark <jar> [archive.jsa] [runs]");
+            System.exit(1);
+        }
+        String jar = args[0];
+        String archive = args.length > 1 && new File(args[1]).isFile() ? args[1] : null;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.printf("%-10s %14s %14s%n", "archive", "first frame ms", "process ms");
+        report("none", jar, null, runs);
+        if (archive != null) {
+            report("appcds", jar, archive, runs);
+        } else {
+            System.out.println("No AppCDS archive given, build one with mvn -Pappcds package.");
+        }
+    }
+
+    private static void report(String name, String jar, String archive, int runs) throws IOException, InterruptedException {
+        long[] firstFrame = new long[runs];
+        long[] process = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] run = runOnce(jar, archive);
+            firstFrame[i] = run[0];
+            process[i] = run[1];
+        }
+        System.out.printf("%-10s %14d %14d%n", name, median(firstFrame), median(process));
+    }
+
+    /**
+     * @return time to the first frame as reported by the app, and wall time of the whole process
+     */
+    private static long[] runOnce(String jar, String archive) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.addAll(List.of("-jar", jar, Startup.EXIT_AFTER_FIRST_FRAME));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long firstFrame = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(FIRST_FRAME)) {
+                    firstFrame = Long.parseLong(line.substring(FIRST_FRAME.length()).replace(" ms", "").trim());
+                }
+            }
+        }
+        int exit = process.waitFor();
+        long wall = (System.nanoTime() - start) / 1_000_000;
+        if (exit != 0 || firstFrame < 0) {
+            throw new IOException("Startup run failed with exit code " + exit + ": " + command);
+        }
+        return new long[]{firstFrame, wall};
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.contractparser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the contract/fisa templates of every company in memory.
+ *
+ * <p>Templates are read from a {@code templates} directory next to the JAR, one sub-directory per company
+ * holding {@code contract.docx} and {@code fisa.docx}. The three built-in companies are also served from the
+ * JAR resources unless the directory overrides them. Every pair is parsed once when loaded to make sure it is a
+ * valid document, and the directory is watched so edited or new templates are picked up while the app runs and
+ * removed ones are dropped.</p>
+ */
+public class TemplateRegistry {
+
+    public static final String TEMPLATES_DIR = "templates";
+    static final String CONTRACT_FILE = "contract.docx";
+    static final String FISA_FILE = "fisa.docx";
+
+    private static final Map<String, String[]> BUILT_IN = new LinkedHashMap<>();
+
+    static {
+        BUILT_IN.put("Robest", new String[]{"/contract.docx", "/fisa.docx"});
+        BUILT_IN.put("Amarillo", new String[]{"/contract_armarillo.docx", "/fisa_armarillo.docx"});
+        BUILT_IN.put("Azzuro", new String[]{"/contract_azzuro.docx", "/fisa_azzuro.docx"});
+    }
+
+    private static volatile TemplateRegistry defaultRegistry;
+
+    private final Path directory;
+    private final Map<String, CompanyTemplate> templates = new ConcurrentHashMap<>();
+    private WatchService watchService;
+
+    public TemplateRegistry(Path directory) {
+        this.directory = directory;
+        loadBuiltIn();
+        loadDirectory();
+    }
+
+    /**
+     * @return the registry over the {@code templates} directory next to the JAR, watched for changes
+     */
+    public static TemplateRegistry getDefault() {
+        TemplateRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (TemplateRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = new TemplateRegistry(defaultDirectory());
+                    registry.startWatching();
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    private static Path defaultDirectory() {
+        try {
+            return new File(ConfigToJarDir.getJarDir(), TEMPLATES_DIR).toPath();
+        } catch (Exception e) {
+            return Path.of(TEMPLATES_DIR);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return company keys in display order, built-in companies first and the others alphabetically
+     */
+    public List<String> getCompanies() {
+        List<String> companies = new ArrayList<>();
+        for (String company : BUILT_IN.keySet()) {
+            if (templates.containsKey(key(company))) companies.add(company);
+        }
+        List<String> added = new ArrayList<>();
+        for (CompanyTemplate template : templates.values()) {
+            if (!companies.contains(template.getCompany())) added.add(template.getCompany());
+        }
+        added.sort(String.CASE_INSENSITIVE_ORDER);
+        companies.addAll(added);
+        return companies;
+    }
+
+    public CompanyTemplate get(String company) throws IOException {
+        CompanyTemplate template = company != null ? templates.get(key(company)) : null;
+        if (template == null) {
+            throw new IOException("No templates found for company '" + company + "' in " + directory.toAbsolutePath());
+        }
+        return template;
+    }
+
+
+    private void loadBuiltIn() {
+        for (String company : BUILT_IN.keySet()) {
+            loadBuiltIn(company);
+        }
+    }
+
+    private void loadBuiltIn(String company) {
+        String[] resources = BUILT_IN.get(company);
+        try (InputStream contract = TemplateRegistry.class.getResourceAsStream(resources[0]);
+             InputStream fisa = TemplateRegistry.class.getResourceAsStream(resources[1])) {
+            if (contract == null || fisa == null) {
+                return;
+            }
+            register(company, contract.readAllBytes(), fisa.readAllBytes(), "classpath");
+        } catch (IOException e) {
+            System.err.println("Invalid built-in template for " + company + ": " + e.getMessage());
+        }
+    }
+
+    private void loadDirectory() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> companies = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path companyDir : companies) {
+                loadCompany(companyDir);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not scan " + directory.toAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads and validates one company directory. A broken or half-copied template keeps the previous version.
+     */
+    void loadCompany(Path companyDir) {
+        Path contract = companyDir.resolve(CONTRACT_FILE);
+        Path fisa = companyDir.resolve(FISA_FILE);
+        if (!Files.isRegularFile(contract) || !Files.isRegularFile(fisa)) {
+            return;
+        }
+        String company = companyDir.getFileName().toString();
+        try {
+            register(company, Files.readAllBytes(contract), Files.readAllBytes(fisa), companyDir.toString());
+            System.err.println("Loaded templates for " + company + " from " + companyDir.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("Invalid templates for " + company + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the templates loaded from a company directory that was removed. A built-in company goes back to
+     * the version in the JAR, any other company disappears from the list.
+     */
+    void unloadCompany(Path companyDir) {
+        String company = companyDir.getFileName().toString();
+        CompanyTemplate current = templates.get(key(company));
+        if (current == null || !current.getSource().equals(companyDir.toString())) {
+            return;
+        }
+        templates.remove(key(company), current);
+        for (String builtIn : BUILT_IN.keySet()) {
+            if (key(builtIn).equals(key(company))) {
+                loadBuiltIn(builtIn);
+            }
+        }
+        System.err.println("Unloaded templates for " + company + " from " + companyDir.toAbsolutePath());
+    }
+
+    private void register(String company, byte[] contract, byte[] fisa, String source) throws IOException {
+        templates.put(key(company), new CompanyTemplate(company, contract, fisa,
+                compile(contract, company, CONTRACT_FILE), compile(fisa, company, FISA_FILE), digest(contract, fisa), source));
+    }
+
+    /**
+     * Compiling parses the whole document, so it is also the validation.
+     */
+    private static CompiledTemplate compile(byte[] bytes, String company, String name) throws IOException {
+        try {
+            return CompiledTemplate.compile(bytes, company + "/" + name);
+        } catch (IOException | RuntimeException e) {
+            throw new IOException(name + " is not a valid .docx document", e);
+        }
+    }
+
+    private static String digest(byte[] contract, byte[] fisa) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contract);
+            digest.update(fisa);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String key(String company) {
+        return company.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * Starts a daemon thread that reloads a company whenever a file in its directory changes.
+     */
+    public synchronized void startWatching() {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            watchService = FileSystems.getDefault().newWatchService();
+            register(directory);
+            try (DirectoryStream<Path> companies = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path companyDir : companies) {
+                    register(companyDir);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Template hot reload disabled: " + e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(this::watchLoop, "template-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void register(Path dir) throws IOException {
+        dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * A failure on one event is logged and the loop goes on, so hot reload keeps working for the other
+     * companies. Only closing the watch service or interrupting the thread stops it.
+     */
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    handle(dir, event);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not reload templates from " + dir.toAbsolutePath() + ": " + e.getMessage());
+                }
+            }
+            if (!key.reset()) {
+                // the watched directory itself is gone
+                if (dir.equals(directory)) {
+                    System.err.println("Template directory " + directory.toAbsolutePath() + " was removed, hot reload stopped");
+                    return;
+                }
+                unloadCompany(dir);
+            }
+        }
+    }
+
+    private void handle(Path dir, WatchEvent<?> event) throws IOException {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            loadDirectory();
+            return;
+        }
+        Path changed = dir.resolve((Path) event.context());
+        if (!dir.equals(directory)) {
+            loadCompany(dir);
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            unloadCompany(changed);
+        } else if (Files.isDirectory(changed)) {
+            register(changed);
+            loadCompany(changed);
+        }
+    }
+}
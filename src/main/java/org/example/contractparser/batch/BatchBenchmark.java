@@ -0,0 +1,114 @@
+package org.example.contractparser.batch;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.OfflineOcr;
+import org.example.contractparser.TemplateRegistry;
+import org.example.contractparser.procesing.IdType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Compares the batch execution modes on 10, 100 and 1000 queued IDs using {@link OfflineOcr}
+ * with a simulated Textract latency, so no AWS calls are made.
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.batch.BatchBenchmark [ocrLatencyMillis]
+ * </pre>
+ */
+public class BatchBenchmark {
+
+    static final String COMPANY = "Bench";
+    private static final int[] SIZES = {10, 100, 1000};
+
+    public static void main(String[] args) throws Exception {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        Path workDir = Files.createTempDirectory("contract-benchmark");
+        try {
+            writeTemplates(workDir.resolve(TemplateRegistry.TEMPLATES_DIR).resolve(COMPANY));
+            TemplateRegistry registry = new TemplateRegistry(workDir.resolve(TemplateRegistry.TEMPLATES_DIR));
+            OfflineOcr ocr = new OfflineOcr(latency);
+
+            System.out.printf("OCR latency %d ms, %d processors%n", latency, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-16s %6s %10s %10s%n", "mode", "jobs", "millis", "jobs/s");
+            for (int size : SIZES) {
+                List<BatchJob> jobs = writeJobs(workDir.resolve("scans-" + size), size);
+                for (BatchGenerator.ExecutionMode mode : BatchGenerator.ExecutionMode.values()) {
+                    File output = workDir.resolve("out-" + mode + "-" + size).toFile();
+                    BatchGenerator generator = new BatchGenerator(ocr, registry, output, mode);
+
+                    long start = System.nanoTime();
+                    List<BatchResult> results = generator.run(jobs);
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+
+                    // a job that was not generated skipped the work being measured, so the timing is meaningless
+                    BatchResult skipped = results.stream()
+                            .filter(r -> r.getStatus() != BatchResult.Status.GENERATED).findFirst().orElse(null);
+                    if (skipped != null) {
+                        throw new IllegalStateException(results.stream()
+                                .filter(r -> r.getStatus() != BatchResult.Status.GENERATED).count()
+                                + " of " + size + " jobs in " + mode + " were not generated, first: " + skipped);
+                    }
+                    System.out.printf("%-16s %6d %10d %10.1f%n", mode, size, millis, size * 1000.0 / Math.max(1, millis));
+                }
+            }
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    static void writeTemplates(Path companyDir) throws IOException {
+        Files.createDirectories(companyDir);
+        for (String name : new String[]{"contract.docx", "fisa.docx"}) {
+            try (XWPFDocument document = new XWPFDocument();
+                 OutputStream out = Files.newOutputStream(companyDir.resolve(name))) {
+                for (int i = 0; i < 40; i++) {
+                    XWPFParagraph paragraph = document.createParagraph();
+                    for (ContractField field : ContractField.values()) {
+                        paragraph.createRun().setText(field.getLabel() + ": " + field.getPlaceholder() + "; ");
+                    }
+                }
+                document.write(out);
+            }
+        }
+    }
+
+    /**
+     * Writes transcripts of clean electronic cards of {@code count} different people, with valid CNPs.
+     */
+    static List<BatchJob> writeJobs(Path dir, int count) throws IOException {
+        Files.createDirectories(dir);
+        SyntheticIds cards = new SyntheticIds(1, 0, 0);
+        Set<String> cnps = new HashSet<>();
+        List<BatchJob> jobs = new ArrayList<>(count);
+        for (int i = 0, index = 0; i < count; i++) {
+            SyntheticIds.Card card;
+            do {
+                card = cards.card(index++, IdType.NEWID);
+            } while (!cnps.add(card.getExpected().get(ContractField.CNP))); // the run would report it as a duplicate
+            Path image = dir.resolve("scan-" + i + ".jpg");
+            Files.write(OfflineOcr.transcriptOf(image.toString()), card.transcript(), StandardCharsets.UTF_8);
+            jobs.add(new BatchJob(image.toString(), IdType.NEWID, (1000 + 2 * i) + "/01.01.2025",
+                    "0740123456", "Depozit", "Cluj-Napoca", COMPANY));
+        }
+        return jobs;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.procesing.IdType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes batch jobs from a {@code ;} separated file with the header
+ * {@code image;digital;registration;phone;place;city;company}.
+ * Relative image paths are resolved against the folder of the batch file.
+ */
+public class BatchFile {
+
+    static final String HEADER = "image;digital;registration;phone;place;city;company";
+    static final String SEPARATOR = ";";
+    private static final int COLUMNS = 7;
+
+    public static List<BatchJob> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<BatchJob> jobs = new ArrayList<>();
+        Path baseDir = file.toAbsolutePath().getParent();
+
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split(SEPARATOR, -1);
+            if (columns.length < COLUMNS) {
+                throw new IOException("Line " + (i + 1) + " of " + file + " has " + columns.length
+                        + " columns, expected " + COLUMNS);
+            }
+            String image = baseDir.resolve(columns[0].trim()).toString();
+            IdType idType = Boolean.parseBoolean(columns[1].trim()) ? IdType.NEWID : IdType.OLDID;
+            jobs.add(new BatchJob(image, idType, columns[2].trim(), columns[3].trim(),
+                    columns[4].trim(), columns[5].trim(), columns[6].trim()));
+        }
+        return jobs;
+    }
+
+    public static void write(Path file, List<BatchJob> jobs) throws IOException {
+        List<String> lines = new ArrayList<>(jobs.size() + 1);
+        lines.add(HEADER);
+        for (BatchJob job : jobs) {
+            lines.add(String.join(SEPARATOR, job.getImagePath(), String.valueOf(job.getIdType() == IdType.NEWID),
+                    job.getRegNumber(), job.getPhone(), job.getPlace(), job.getCity(), job.getCompany()));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+}
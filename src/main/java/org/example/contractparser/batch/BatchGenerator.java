@@ -0,0 +1,599 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.CompanyTemplate;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.ContractService;
+import org.example.contractparser.DocumentType;
+import org.example.contractparser.FieldValidator;
+import org.example.contractparser.GenerationContext;
+import org.example.contractparser.HireIndex;
+import org.example.contractparser.OcrClient;
+import org.example.contractparser.RecordStore;
+import org.example.contractparser.RegistrationSequence;
+import org.example.contractparser.TemplateRegistry;
+import org.example.contractparser.procesing.IdFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs OCR, parsing and document generation for many employees at once.
+ *
+ * <p>Jobs flow through three stages. OCR and parsing mostly wait on Textract, so they run concurrently on the
+ * {@link ExecutionMode} executor. Document generation is CPU bound and runs on {@code serializationLimit} workers.
+ * With a ZIP, a single writer appends the finished documents.</p>
+ *
+ * <p>The stages are joined by {@link BoundedByteQueue}s, and a {@link MemoryBudget} bounds the images and OCR
+ * responses in flight. Both are sized in bytes from one memory budget. When generation or writing falls behind,
+ * OCR workers block on the full queue while still holding their images. That stops new jobs from being admitted,
+ * so a batch of any size runs under a fixed {@code -Xmx}. {@link #getMetrics()} reports queue depths and budget
+ * use.</p>
+ *
+ * <p>Records whose lowest OCR confidence is under the review threshold, or that lack or break the rules of a field
+ * in {@link FieldValidator#AUTO_APPROVAL}, are not generated; they are reported as
+ * {@link BatchResult.Status#NEEDS_REVIEW} so a clerk only checks those in the review page.</p>
+ *
+ * <p>When duplicate checks are on, a person whose CNP is already in the {@link HireIndex} of the output directory,
+ * or appears twice in the run, is reported as {@link BatchResult.Status#DUPLICATE} instead of being generated.
+ * When the archive holds their {@link RecordStore stored record}, the row is an update instead: the documents are
+ * generated again under the stored name.</p>
+ *
+ * <p>Before anything is sent to OCR, the typed columns of all jobs are validated in one pass; rows with a bad phone
+ * or registration number, or a missing place or city, are reported as {@link BatchResult.Status#INVALID}.</p>
+ *
+ * <p>Jobs without a registration number keep the one stored for the same CNP in the archive. Otherwise they get
+ * two numbers from the {@link RegistrationSequence}, for the contract and its fisa, once they pass review and the
+ * duplicate check, so rows that are not generated do not use up numbers.</p>
+ *
+ * <p>Every employee of a run gets a name of their own in the output directory. When two rows have the same name,
+ * or the archive already holds someone else (another CNP) under it, the later one is numbered like
+ * {@link DocumentType#numberedName}, the same way the ZIP and the shared workers do.</p>
+ */
+public class BatchGenerator {
+
+    public enum ExecutionMode {
+        /** A fixed pool of platform threads, twice the processor count. */
+        PLATFORM_POOL,
+        /** One virtual thread per job when running on Java 21+, one platform thread per job otherwise. */
+        VIRTUAL_THREADS
+    }
+
+    public static final float DEFAULT_REVIEW_THRESHOLD = ContractService.REVIEW_CONFIDENCE_THRESHOLD;
+    /** Batch rows may leave the registration number empty, it is allocated then. */
+    private static final Set<ContractField> REQUIRED_COLUMNS =
+            EnumSet.of(ContractField.PHONE, ContractField.LOCATION, ContractField.CITY);
+
+    /** Images are held by the OCR client about three times over: the file, the request and the response. */
+    private static final int OCR_OVERHEAD = 3;
+    static final String NO_NAME = "No name could be read from the ID";
+    /** Charged per parsed record on top of its text. */
+    private static final int RECORD_OVERHEAD = 2048;
+
+    /** A parsed job waiting for generation. */
+    private static final class Extracted {
+        final int index;
+        final BatchJob job;
+        final CompanyTemplate template;
+        final ContractRecord data;
+        final String employeeName;
+        final String cnp;
+        final long start;
+
+        Extracted(int index, BatchJob job, CompanyTemplate template, ContractRecord data, String employeeName,
+                  String cnp, long start) {
+            this.index = index;
+            this.job = job;
+            this.template = template;
+            this.data = data;
+            this.employeeName = employeeName;
+            this.cnp = cnp;
+            this.start = start;
+        }
+    }
+
+    /** Generated documents waiting for the ZIP writer. */
+    private static final class Rendered {
+        final Extracted extracted;
+        final BatchZipWriter.Documents documents;
+
+        Rendered(Extracted extracted, BatchZipWriter.Documents documents) {
+            this.extracted = extracted;
+            this.documents = documents;
+        }
+    }
+
+    private static final Extracted NO_MORE_EXTRACTED = new Extracted(-1, null, null, null, null, null, 0);
+    private static final Rendered NO_MORE_RENDERED = new Rendered(null, null);
+
+    private final OcrClient ocrClient;
+    private final TemplateRegistry registry;
+    private final File outputDir;
+    private final ExecutionMode mode;
+    private final int serializationLimit;
+    private final float reviewThreshold;
+    private final boolean checkDuplicates;
+    private final MemoryBudget ocrBudget;
+    private final BoundedByteQueue<Extracted> extractedQueue;
+    private final BoundedByteQueue<Rendered> renderedQueue;
+
+    public BatchGenerator(OcrClient ocrClient, TemplateRegistry registry, File outputDir, ExecutionMode mode) {
+        this(ocrClient, registry, outputDir, mode, Runtime.getRuntime().availableProcessors(), DEFAULT_REVIEW_THRESHOLD);
+    }
+
+    public BatchGenerator(OcrClient ocrClient, TemplateRegistry registry, File outputDir, ExecutionMode mode,
+                          int serializationLimit, float reviewThreshold) {
+        this(ocrClient, registry, outputDir, mode, serializationLimit, reviewThreshold, false);
+    }
+
+    public BatchGenerator(OcrClient ocrClient, TemplateRegistry registry, File outputDir, ExecutionMode mode,
+                          int serializationLimit, float reviewThreshold, boolean checkDuplicates) {
+        this(ocrClient, registry, outputDir, mode, serializationLimit, reviewThreshold, checkDuplicates,
+                defaultMemoryBudget());
+    }
+
+    /**
+     * @param reviewThreshold minimum OCR confidence (0-100) for a record to be generated without review, 0 disables
+     * @param checkDuplicates skip people who already have documents in the output directory
+     * @param memoryBudget    bytes the stages may hold at once: half for OCR in flight, a quarter for each queue
+     */
+    public BatchGenerator(OcrClient ocrClient, TemplateRegistry registry, File outputDir, ExecutionMode mode,
+                          int serializationLimit, float reviewThreshold, boolean checkDuplicates, long memoryBudget) {
+        this.ocrClient = ocrClient;
+        this.registry = registry;
+        this.outputDir = outputDir;
+        this.mode = mode;
+        this.serializationLimit = Math.max(1, serializationLimit);
+        this.reviewThreshold = reviewThreshold;
+        this.checkDuplicates = checkDuplicates;
+        this.ocrBudget = new MemoryBudget("ocr", memoryBudget / 2);
+        this.extractedQueue = new BoundedByteQueue<>("parsed", memoryBudget / 4);
+        this.renderedQueue = new BoundedByteQueue<>("rendered", memoryBudget / 4);
+    }
+
+    /**
+     * @return a quarter of the maximum heap
+     */
+    public static long defaultMemoryBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * @return one line with the jobs in OCR, the depth of both queues and the bytes each stage holds
+     */
+    public String getMetrics() {
+        return ocrBudget + "; " + extractedQueue + "; " + renderedQueue;
+    }
+
+    public MemoryBudget getOcrBudget() {
+        return ocrBudget;
+    }
+
+    public BoundedByteQueue<?> getExtractedQueue() {
+        return extractedQueue;
+    }
+
+    public BoundedByteQueue<?> getRenderedQueue() {
+        return renderedQueue;
+    }
+
+    /**
+     * Processes all jobs with one {@link GenerationContext}, so dates and salaries are the same for the whole run.
+     *
+     * @return one result per job, in the order of the jobs
+     */
+    public List<BatchResult> run(List<BatchJob> jobs) throws InterruptedException, IOException {
+        return run(jobs, null);
+    }
+
+    /**
+     * Like {@link #run(List)}, but when {@code zip} is given the documents are streamed into it
+     * instead of being written to the output directory. Duplicates are still checked against the
+     * {@link HireIndex} of the output directory, but the people of the ZIP are not recorded in it.
+     */
+    public List<BatchResult> run(List<BatchJob> jobs, BatchZipWriter zip) throws InterruptedException, IOException {
+        GenerationContext context = GenerationContext.create();
+        if (zip == null) {
+            outputDir.mkdirs();
+        }
+        HireIndex hires = checkDuplicates ? HireIndex.open(outputDir) : null;
+        List<List<FieldValidator.Violation>> violations = validate(jobs);
+
+        BatchResult[] results = new BatchResult[jobs.size()];
+        Set<String> cnps = ConcurrentHashMap.newKeySet();
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        ExecutorService ocrExecutor = newExecutor(mode);
+        ExecutorService generators = Executors.newFixedThreadPool(serializationLimit);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            List<Future<?>> generatorFutures = new ArrayList<>(serializationLimit);
+            for (int i = 0; i < serializationLimit; i++) {
+                generatorFutures.add(generators.submit(() -> {
+                    generateAll(results, zip, hires, names);
+                    return null;
+                }));
+            }
+            Future<?> writerFuture = zip != null ? writer.submit(() -> {
+                writeAll(results, zip);
+                return null;
+            }) : null;
+
+            List<Future<?>> ocrFutures = new ArrayList<>(jobs.size());
+            for (int i = 0; i < jobs.size(); i++) {
+                BatchJob job = jobs.get(i);
+                if (!violations.get(i).isEmpty()) {
+                    results[i] = BatchResult.invalid(job, violations.get(i));
+                    continue;
+                }
+                // blocks here while the images already in OCR use up the budget
+                long charge = ocrBudget.acquire(new File(job.getImagePath()).length() * OCR_OVERHEAD);
+                int index = i;
+                ocrFutures.add(ocrExecutor.submit(() -> {
+                    try {
+                        extract(index, job, context, hires, zip == null, cnps, results);
+                    } finally {
+                        ocrBudget.release(charge);
+                    }
+                    return null;
+                }));
+            }
+
+            await(ocrFutures);
+            for (int i = 0; i < serializationLimit; i++) {
+                extractedQueue.put(NO_MORE_EXTRACTED, 0);
+            }
+            await(generatorFutures);
+            if (writerFuture != null) {
+                renderedQueue.put(NO_MORE_RENDERED, 0);
+                await(List.of(writerFuture));
+            }
+
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = BatchResult.failed(jobs.get(i), "Not processed", 0);
+                }
+            }
+            return List.of(results);
+        } finally {
+            ocrExecutor.shutdownNow();
+            generators.shutdownNow();
+            writer.shutdownNow();
+        }
+    }
+
+    private static void await(List<? extends Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // every stage records its own failures in the results, this is a bug in a stage
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Checks the typed columns of all jobs, one column at a time.
+     *
+     * @return the violations of each job, an empty list for valid jobs
+     */
+    public static List<List<FieldValidator.Violation>> validate(List<BatchJob> jobs) {
+        int rows = jobs.size();
+        Map<ContractField, String[]> columns = new EnumMap<>(ContractField.class);
+        String[] registrations = new String[rows];
+        String[] phones = new String[rows];
+        String[] places = new String[rows];
+        String[] cities = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            BatchJob job = jobs.get(i);
+            registrations[i] = job.getRegNumber();
+            phones[i] = job.getPhone();
+            places[i] = job.getPlace();
+            cities[i] = job.getCity();
+        }
+        columns.put(ContractField.REGISTRATION_NUMBER, registrations);
+        columns.put(ContractField.PHONE, phones);
+        columns.put(ContractField.LOCATION, places);
+        columns.put(ContractField.CITY, cities);
+        return FieldValidator.getDefault().validateColumns(columns, rows, REQUIRED_COLUMNS);
+    }
+
+    static List<BatchJob> assignRegistrations(List<BatchJob> jobs, List<List<FieldValidator.Violation>> violations,
+                                                      GenerationContext context) throws IOException {
+        int missing = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            if (violations.get(i).isEmpty() && !ContractService.isFieldValid(jobs.get(i).getRegNumber())) missing++;
+        }
+        if (missing == 0) {
+            return jobs;
+        }
+
+        long next = RegistrationSequence.getDefault().allocate(missing * 2);
+        List<BatchJob> assigned = new ArrayList<>(jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            BatchJob job = jobs.get(i);
+            if (!violations.get(i).isEmpty() || ContractService.isFieldValid(job.getRegNumber())) {
+                assigned.add(job);
+            } else {
+                assigned.add(job.withRegNumber(RegistrationSequence.format(next, context)));
+                next += 2;
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * First stage: OCR and parsing. The result is set directly when the job ends here, otherwise the parsed job is
+     * queued for generation, waiting while the queue is full.
+     *
+     * @param claim whether the hire is claimed in {@code hires}, or only looked up there
+     * @param cnps the CNPs already seen in this run
+     */
+    void extract(int index, BatchJob job, GenerationContext context, HireIndex hires, boolean claim,
+                 Set<String> cnps, BatchResult[] results) {
+        long start = System.nanoTime();
+        try {
+            CompanyTemplate template = registry.get(job.getCompany());
+            ContractRecord data = parse(job, ocrClient, context);
+            String employeeName = data.getOrDefault(ContractField.NAME, "");
+            if (!ContractService.isFieldValid(employeeName)) {
+                results[index] = BatchResult.failed(job, NO_NAME, elapsedMillis(start));
+                return;
+            }
+            String reason = reviewReason(data, reviewThreshold);
+            if (reason != null) {
+                results[index] = BatchResult.needsReview(job, employeeName, reason, elapsedMillis(start));
+                return;
+            }
+
+            String cnp = data.get(ContractField.CNP);
+            RecordStore.StoredRecord stored = cnp != null ? storedRecord(cnp, employeeName) : null;
+            String claimed = null;
+            if (hires != null && cnp != null) {
+                boolean first = cnps.add(cnp);
+                HireIndex.Hire previous = claim ? hires.claim(cnp, employeeName, null) : hires.find(cnp);
+                if (previous != null && stored == null) {
+                    stored = storedRecord(cnp, previous.getEmployeeName());
+                }
+                if (previous != null && (!first || stored == null)) {
+                    results[index] = BatchResult.duplicate(job, employeeName, previous, elapsedMillis(start));
+                    return;
+                }
+                if (previous == null && !first && !claim) { // nothing recorded the first row of this person
+                    results[index] = BatchResult.duplicateInRun(job, employeeName, elapsedMillis(start));
+                    return;
+                }
+                // an update keeps the hire it already has
+                claimed = claim && previous == null ? cnp : null;
+            }
+            if (stored != null) {
+                employeeName = stored.getEmployeeName();
+            }
+            if (!ContractService.isFieldValid(job.getRegNumber())) {
+                data = withRegistration(data, stored, context);
+            }
+            Extracted item = new Extracted(index, job, template, data, employeeName, claimed, start);
+            try {
+                extractedQueue.put(item, sizeOf(data));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finish(item, employeeName, false, e, results, hires);
+            }
+        } catch (IOException | RuntimeException e) {
+            results[index] = BatchResult.failed(job, e.getMessage(), elapsedMillis(start));
+        }
+    }
+
+    /**
+     * @return the record stored under {@code name} in the output directory when it belongs to {@code cnp}
+     */
+    private RecordStore.StoredRecord storedRecord(String cnp, String name) {
+        Path file = RecordStore.of(outputDir).fileOf(name);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            RecordStore.StoredRecord stored = RecordStore.read(file);
+            return cnp.equals(stored.getRecord().get(ContractField.CNP)) ? stored : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the registration numbers of a job that was given none: the stored ones of the same person, or the
+     * next two of the sequence.
+     */
+    private static ContractRecord withRegistration(ContractRecord data, RecordStore.StoredRecord stored,
+                                                   GenerationContext context) throws IOException {
+        String number = stored != null ? stored.getRecord().get(ContractField.REGISTRATION_NUMBER) : null;
+        String fisa = stored != null ? stored.getRecord().get(ContractField.FISA_REGISTRATION_NUMBER) : null;
+        if (!ContractService.isFieldValid(number)) {
+            number = RegistrationSequence.format(RegistrationSequence.getDefault().allocate(2), context);
+            fisa = null;
+        }
+        if (!ContractService.isFieldValid(fisa)) {
+            fisa = ContractService.getFisaRegistration(number);
+        }
+        return data.toBuilder()
+                .set(ContractField.REGISTRATION_NUMBER, number)
+                .set(ContractField.FISA_REGISTRATION_NUMBER, fisa)
+                .build();
+    }
+
+    /**
+     * A record is only generated without a person looking at it when every field of
+     * {@link FieldValidator#AUTO_APPROVAL} was read with enough confidence and no field breaks its format rule.
+     * A missing required field counts as confidence 0, so even a threshold of 0 does not let it through.
+     *
+     * @return why the record has to be reviewed, or {@code null} when it may be generated
+     */
+    static String reviewReason(ContractRecord data, float reviewThreshold) {
+        List<FieldValidator.Violation> violations = FieldValidator.getDefault().validate(data, FieldValidator.AUTO_APPROVAL);
+        if (!violations.isEmpty()) {
+            StringBuilder reason = new StringBuilder();
+            for (FieldValidator.Violation violation : violations) {
+                if (reason.length() > 0) reason.append("; ");
+                reason.append(violation);
+            }
+            return reason.toString();
+        }
+        float confidence = data.getMinConfidence(FieldValidator.AUTO_APPROVAL);
+        if (confidence < reviewThreshold) {
+            return String.format(Locale.ROOT, "lowest OCR confidence %.1f%%", confidence);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the ID of one job and merges the typed columns into it. The fields read by OCR keep their confidence.
+     */
+    static ContractRecord parse(BatchJob job, OcrClient ocrClient, GenerationContext context) throws IOException {
+        ContractRecord extracted = IdFactory.createIdParser(job.getIdType(), ocrClient)
+                .extractRecord(job.getImagePath());
+        return ContractService.buildCompleteRecord(context,
+                extracted.toBuilder()
+                        .set(ContractField.FISA_REGISTRATION_NUMBER,
+                                ContractService.getFisaRegistration(job.getRegNumber()))
+                        .build(),
+                job.getRegNumber(), job.getPhone(), job.getPlace(), job.getCity(), job.getCompany());
+    }
+
+    /**
+     * Second stage, run by each generation worker until it takes the end marker. Without a ZIP the documents
+     * are written to the output directory here; with one they are queued for the writer.
+     */
+    private void generateAll(BatchResult[] results, BatchZipWriter zip, HireIndex hires, Set<String> names)
+            throws InterruptedException {
+        for (Extracted item; (item = extractedQueue.take()) != NO_MORE_EXTRACTED; ) {
+            try {
+                if (zip != null) {
+                    BatchZipWriter.Documents documents = BatchZipWriter.render(item.employeeName, item.template, item.data);
+                    renderedQueue.put(new Rendered(item, documents), documents.size());
+                } else {
+                    String name = reserveName(item, names);
+                    boolean written = ContractService.generateDocuments(outputDir, name, item.data, item.template);
+                    finish(item, name, written, null, results, hires);
+                }
+            } catch (InterruptedException e) {
+                finish(item, item.employeeName, false, e, results, hires);
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                finish(item, item.employeeName, false, e, results, hires);
+            }
+        }
+    }
+
+    /**
+     * Picks the first name that no other row of this run took and that is free in the output directory or
+     * already holds this person, so running a batch again still finds their documents up to date.
+     */
+    private String reserveName(Extracted item, Set<String> names) {
+        String cnp = item.data.get(ContractField.CNP);
+        for (int n = 1; ; n++) {
+            String name = DocumentType.numberedName(item.employeeName, n);
+            // file names, since Windows shares ignore case
+            if (!names.add(DocumentType.CONTRACT.fileName(name).toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            if (!heldByOther(name, cnp)) {
+                return name;
+            }
+        }
+    }
+
+    private boolean heldByOther(String name, String cnp) {
+        if (!new File(outputDir, DocumentType.CONTRACT.fileName(name)).exists()) {
+            return false;
+        }
+        Path record = RecordStore.of(outputDir).fileOf(name);
+        if (!Files.isRegularFile(record)) {
+            return cnp != null; // documents of an unknown person, keep them
+        }
+        try {
+            String stored = RecordStore.read(record).getRecord().get(ContractField.CNP);
+            return stored != null && cnp != null && !stored.equals(cnp);
+        } catch (IOException | RuntimeException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Third stage with a ZIP: appends documents in the order they were generated.
+     */
+    private void writeAll(BatchResult[] results, BatchZipWriter zip) throws InterruptedException {
+        for (Rendered rendered; (rendered = renderedQueue.take()) != NO_MORE_RENDERED; ) {
+            try {
+                String name = zip.append(rendered.documents);
+                finish(rendered.extracted, name, true, null, results, null);
+            } catch (IOException | RuntimeException e) {
+                finish(rendered.extracted, rendered.extracted.employeeName, false, e, results, null);
+            }
+        }
+    }
+
+    private static void finish(Extracted item, String name, boolean written, Exception error, BatchResult[] results,
+                               HireIndex hires) {
+        try {
+            if (item.cnp != null) {
+                if (error == null) {
+                    hires.record(item.cnp, name);
+                } else {
+                    hires.forget(item.cnp); // generation failed, a later run may retry this person
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        long millis = elapsedMillis(item.start);
+        if (error != null) {
+            results[item.index] = BatchResult.failed(item.job,
+                    error instanceof InterruptedException ? "Interrupted" : error.getMessage(), millis);
+        } else {
+            results[item.index] = written
+                    ? BatchResult.generated(item.job, name, millis)
+                    : BatchResult.unchanged(item.job, name, millis);
+        }
+    }
+
+    private static long sizeOf(ContractRecord data) {
+        long bytes = RECORD_OVERHEAD;
+        for (ContractField field : ContractField.values()) {
+            String value = data.get(field);
+            if (value != null) bytes += 2L * value.length();
+        }
+        return bytes;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+
+    static ExecutorService newExecutor(ExecutionMode mode) {
+        if (mode == ExecutionMode.PLATFORM_POOL) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        }
+        // Looked up reflectively so the build keeps targeting Java 17
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads need Java 21, using one platform thread per job instead.");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
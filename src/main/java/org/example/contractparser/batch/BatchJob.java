@@ -0,0 +1,68 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.procesing.IdType;
+
+/**
+ * One employee of a batch: the scanned ID plus the values the clerk would type in the first form.
+ */
+public class BatchJob {
+
+    private final String imagePath;
+    private final IdType idType;
+    private final String regNumber;
+    private final String phone;
+    private final String place;
+    private final String city;
+    private final String company;
+
+    public BatchJob(String imagePath, IdType idType, String regNumber, String phone,
+                    String place, String city, String company) {
+        this.imagePath = imagePath;
+        this.idType = idType;
+        this.regNumber = regNumber;
+        this.phone = phone;
+        this.place = place;
+        this.city = city;
+        this.company = company;
+    }
+
+    /**
+     * @return the same job registered under {@code regNumber}
+     */
+    public BatchJob withRegNumber(String regNumber) {
+        return new BatchJob(imagePath, idType, regNumber, phone, place, city, company);
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public IdType getIdType() {
+        return idType;
+    }
+
+    public String getRegNumber() {
+        return regNumber;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getPlace() {
+        return place;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    @Override
+    public String toString() {
+        return imagePath + " (" + company + ")";
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.FieldValidator;
+import org.example.contractparser.HireIndex;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BatchResult {
+
+    public enum Status {
+        GENERATED,
+        UNCHANGED,
+        NEEDS_REVIEW,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    private final BatchJob job;
+    private final Status status;
+    private final String employeeName;
+    private final String error;
+    private final long durationMillis;
+
+    private BatchResult(BatchJob job, Status status, String employeeName, String error, long durationMillis) {
+        this.job = job;
+        this.status = status;
+        this.employeeName = employeeName;
+        this.error = error;
+        this.durationMillis = durationMillis;
+    }
+
+    public static BatchResult generated(BatchJob job, String employeeName, long durationMillis) {
+        return new BatchResult(job, Status.GENERATED, employeeName, null, durationMillis);
+    }
+
+    public static BatchResult unchanged(BatchJob job, String employeeName, long durationMillis) {
+        return new BatchResult(job, Status.UNCHANGED, employeeName, null, durationMillis);
+    }
+
+    /**
+     * @param reason why the record cannot be generated as read, see {@link BatchGenerator#reviewReason}
+     */
+    public static BatchResult needsReview(BatchJob job, String employeeName, String reason, long durationMillis) {
+        return new BatchResult(job, Status.NEEDS_REVIEW, employeeName, reason, durationMillis);
+    }
+
+    public static BatchResult duplicate(BatchJob job, String employeeName, HireIndex.Hire previous, long durationMillis) {
+        return new BatchResult(job, Status.DUPLICATE, employeeName, "already hired as " + previous, durationMillis);
+    }
+
+    /**
+     * A person who appears twice in a run that does not record its hires, see {@link BatchGenerator#run(List, BatchZipWriter)}.
+     */
+    public static BatchResult duplicateInRun(BatchJob job, String employeeName, long durationMillis) {
+        return new BatchResult(job, Status.DUPLICATE, employeeName, "appears twice in this run", durationMillis);
+    }
+
+    public static BatchResult invalid(BatchJob job, List<FieldValidator.Violation> violations) {
+        return new BatchResult(job, Status.INVALID, null,
+                violations.stream().map(String::valueOf).collect(Collectors.joining("; ")), 0);
+    }
+
+    public static BatchResult failed(BatchJob job, String error, long durationMillis) {
+        return new BatchResult(job, Status.FAILED, null, error, durationMillis);
+    }
+
+    public BatchJob getJob() {
+        return job;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getEmployeeName() {
+        return employeeName;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + job + (error != null ? ": " + error : "") + " in " + durationMillis + " ms";
+    }
+}
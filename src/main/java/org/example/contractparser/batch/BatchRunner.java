@@ -0,0 +1,153 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.CachingOcrClient;
+import org.example.contractparser.DetectText;
+import org.example.contractparser.FieldValidator;
+import org.example.contractparser.OcrClient;
+import org.example.contractparser.OfflineOcr;
+import org.example.contractparser.TemplateRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point for batch generation.
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.batch.BatchRunner jobs.csv [--mode=virtual|platform]
+ *      [--offline] [--output=arhiva] [--zip=run.zip] [--review-threshold=90] [--allow-duplicates] [--validate]
+ *      [--no-ocr-cache] [--memory-budget=512m] [--metrics]
+ * </pre>
+ *
+ * {@code --validate} only checks the typed columns of every row and lists the invalid ones, without any OCR.
+ *
+ * People who already have documents in the output directory are skipped unless {@code --allow-duplicates} is given,
+ * for example to regenerate everyone after a template change.
+ *
+ * Scans already read before reuse the cached OCR result of {@link CachingOcrClient} unless {@code --no-ocr-cache}
+ * is given; scans that only look like one read before, re-saved or resized, reuse it but go to review.
+ *
+ * {@code --memory-budget} caps the bytes held between the OCR, generation and writing stages, a quarter of the heap
+ * by default; {@code --metrics} prints the queue depths and budget use every second.
+ */
+public class BatchRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: BatchRunner <jobs.csv> [--mode=virtual|platform] [--offline] [--output=dir] [--zip=file] [--review-threshold=N] [--allow-duplicates] [--validate] [--no-ocr-cache] [--memory-budget=512m] [--metrics]");
+            System.exit(1);
+        }
+
+        Path jobsFile = Path.of(args[0]);
+        BatchGenerator.ExecutionMode mode = BatchGenerator.ExecutionMode.VIRTUAL_THREADS;
+        boolean offline = false;
+        File outputDir = new File("arhiva");
+        File zipFile = null;
+        float reviewThreshold = BatchGenerator.DEFAULT_REVIEW_THRESHOLD;
+        boolean checkDuplicates = true;
+        boolean validateOnly = false;
+        boolean ocrCache = true;
+        long memoryBudget = BatchGenerator.defaultMemoryBudget();
+        boolean metrics = false;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--mode=platform")) mode = BatchGenerator.ExecutionMode.PLATFORM_POOL;
+            else if (arg.equals("--mode=virtual")) mode = BatchGenerator.ExecutionMode.VIRTUAL_THREADS;
+            else if (arg.equals("--offline")) offline = true;
+            else if (arg.startsWith("--output=")) outputDir = new File(arg.substring("--output=".length()));
+            else if (arg.startsWith("--zip=")) zipFile = new File(arg.substring("--zip=".length()));
+            else if (arg.startsWith("--review-threshold=")) reviewThreshold = Float.parseFloat(arg.substring("--review-threshold=".length()));
+            else if (arg.equals("--allow-duplicates")) checkDuplicates = false;
+            else if (arg.equals("--validate")) validateOnly = true;
+            else if (arg.equals("--no-ocr-cache")) ocrCache = false;
+            else if (arg.startsWith("--memory-budget=")) memoryBudget = MemoryBudget.parseSize(arg.substring("--memory-budget=".length()));
+            else if (arg.equals("--metrics")) metrics = true;
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        List<BatchJob> jobs = BatchFile.read(jobsFile);
+        if (validateOnly) {
+            long start = System.nanoTime();
+            List<List<FieldValidator.Violation>> violations = BatchGenerator.validate(jobs);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            int invalid = 0;
+            for (int i = 0; i < violations.size(); i++) {
+                if (!violations.get(i).isEmpty()) {
+                    invalid++;
+                    System.out.println("Row " + (i + 2) + ": " + violations.get(i));
+                }
+            }
+            System.out.println("Validated " + jobs.size() + " rows in " + elapsed + " ms, " + invalid + " invalid.");
+            return;
+        }
+        OcrClient ocrClient = offline ? new OfflineOcr() : new DetectText();
+        CachingOcrClient cache = ocrCache
+                ? new CachingOcrClient(ocrClient, CachingOcrClient.defaultDirectory(), CachingOcrClient.DEFAULT_MAX_DISTANCE)
+                : null;
+        ScheduledExecutorService reporter = null;
+        try {
+            BatchGenerator generator = new BatchGenerator(cache != null ? cache : ocrClient, TemplateRegistry.getDefault(), outputDir, mode,
+                    Runtime.getRuntime().availableProcessors(), reviewThreshold, checkDuplicates, memoryBudget);
+            if (metrics) {
+                reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "batch-metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                reporter.scheduleAtFixedRate(() -> System.out.println("Metrics: " + generator.getMetrics()),
+                        1, 1, TimeUnit.SECONDS);
+            }
+            long start = System.nanoTime();
+            List<BatchResult> results;
+            if (zipFile != null) {
+                try (BatchZipWriter zip = new BatchZipWriter(new BufferedOutputStream(new FileOutputStream(zipFile)))) {
+                    results = generator.run(jobs, zip);
+                }
+            } else {
+                results = generator.run(jobs);
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+            long failed = results.stream().filter(r -> r.getStatus() == BatchResult.Status.FAILED).count();
+            for (BatchResult result : results) {
+                System.out.println(result);
+            }
+            long unchanged = results.stream().filter(r -> r.getStatus() == BatchResult.Status.UNCHANGED).count();
+            long duplicates = results.stream().filter(r -> r.getStatus() == BatchResult.Status.DUPLICATE).count();
+            long invalid = results.stream().filter(r -> r.getStatus() == BatchResult.Status.INVALID).count();
+            List<BatchJob> review = results.stream()
+                    .filter(r -> r.getStatus() == BatchResult.Status.NEEDS_REVIEW)
+                    .map(BatchResult::getJob)
+                    .toList();
+            System.out.println("Processed " + results.size() + " jobs in " + elapsed + " ms, "
+                    + unchanged + " unchanged, " + duplicates + " already hired, " + review.size() + " to review, "
+                    + invalid + " invalid, " + failed + " failed.");
+            if (cache != null) {
+                System.out.println("OCR cache: " + cache.getHits() + " hits, " + cache.getNearHits()
+                        + " near hits sent to review, " + cache.getMisses() + " misses.");
+            }
+            if (metrics) {
+                System.out.println("Metrics: " + generator.getMetrics());
+            }
+            if (!review.isEmpty()) {
+                String name = jobsFile.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+                Path reviewFile = jobsFile.toAbsolutePath().resolveSibling(name + "-review.csv");
+                BatchFile.write(reviewFile, review);
+                System.out.println("Jobs to check in the review page written to " + reviewFile);
+            }
+        } finally {
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+            if (ocrClient instanceof DetectText detectText) {
+                detectText.close();
+            }
+        }
+    }
+}
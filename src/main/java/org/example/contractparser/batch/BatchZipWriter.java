@@ -0,0 +1,103 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.CompanyTemplate;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.ContractService;
+import org.example.contractparser.DocumentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the contract and fisa of every employee of a run into a single ZIP archive as soon as they are
+ * generated. Workers {@link #render} their documents in parallel; only appending the finished bytes is serialized.
+ */
+public class BatchZipWriter implements Closeable {
+
+    private final ZipOutputStream zip;
+    private final Set<String> entryNames = new HashSet<>();
+
+    public BatchZipWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(out);
+    }
+
+    /**
+     * The contract and fisa of one employee, rendered and waiting to be appended.
+     */
+    public static final class Documents {
+        private final String employeeName;
+        private final ByteArrayOutputStream contract;
+        private final ByteArrayOutputStream fisa;
+
+        private Documents(String employeeName, ByteArrayOutputStream contract, ByteArrayOutputStream fisa) {
+            this.employeeName = employeeName;
+            this.contract = contract;
+            this.fisa = fisa;
+        }
+
+        public String getEmployeeName() {
+            return employeeName;
+        }
+
+        /**
+         * @return bytes held by both documents
+         */
+        public long size() {
+            return contract.size() + fisa.size();
+        }
+    }
+
+    public void write(String employeeName, CompanyTemplate template, ContractRecord data) throws IOException {
+        append(render(employeeName, template, data));
+    }
+
+    /**
+     * Generates both documents in memory; safe to call from many threads.
+     */
+    public static Documents render(String employeeName, CompanyTemplate template, ContractRecord data) throws IOException {
+        ByteArrayOutputStream contract = new ByteArrayOutputStream(64 * 1024);
+        ByteArrayOutputStream fisa = new ByteArrayOutputStream(64 * 1024);
+        ContractService.writeDocument(template, DocumentType.CONTRACT, data, contract);
+        ContractService.writeDocument(template, DocumentType.FISA, data, fisa);
+        return new Documents(employeeName, contract, fisa);
+    }
+
+    /**
+     * Appends both documents under the first name not used in this archive yet, numbered like
+     * {@link DocumentType#numberedName} when two employees of the run have the same name.
+     *
+     * @return the name the documents were added under
+     */
+    public synchronized String append(Documents documents) throws IOException {
+        for (int n = 1; ; n++) {
+            String name = DocumentType.numberedName(documents.employeeName, n);
+            String contractEntry = DocumentType.CONTRACT.fileName(name);
+            String fisaEntry = DocumentType.FISA.fileName(name);
+            if (entryNames.contains(contractEntry) || entryNames.contains(fisaEntry)) {
+                continue;
+            }
+            entryNames.add(contractEntry);
+            entryNames.add(fisaEntry);
+            addEntry(contractEntry, documents.contract);
+            addEntry(fisaEntry, documents.fisa);
+            return name;
+        }
+    }
+
+    private void addEntry(String entryName, ByteArrayOutputStream content) throws IOException {
+        zip.putNextEntry(new ZipEntry(entryName));
+        content.writeTo(zip);
+        zip.closeEntry();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        zip.close();
+    }
+}
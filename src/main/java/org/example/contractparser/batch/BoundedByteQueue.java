@@ -0,0 +1,87 @@
+package org.example.contractparser.batch;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hand-off between two pipeline stages, bounded by the bytes of the queued items rather than by their count.
+ * {@link #put} blocks the producing stage while the queue holds more than its {@link MemoryBudget}; {@link #take}
+ * gives the bytes back as soon as the consumer has the item.
+ */
+public class BoundedByteQueue<T> {
+
+    private static final class Entry<T> {
+        final T value;
+        final long charge;
+
+        Entry(T value, long charge) {
+            this.value = value;
+            this.charge = charge;
+        }
+    }
+
+    private final MemoryBudget budget;
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int peakDepth;
+
+    public BoundedByteQueue(String name, long capacity) {
+        this.budget = new MemoryBudget(name, capacity);
+    }
+
+    public void put(T value, long bytes) throws InterruptedException {
+        long charge = budget.acquire(bytes);
+        lock.lock();
+        try {
+            entries.addLast(new Entry<>(value, charge));
+            peakDepth = Math.max(peakDepth, entries.size());
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public T take() throws InterruptedException {
+        Entry<T> entry;
+        lock.lock();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+            entry = entries.removeFirst();
+        } finally {
+            lock.unlock();
+        }
+        budget.release(entry.charge);
+        return entry.value;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPeakDepth() {
+        lock.lock();
+        try {
+            return peakDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public MemoryBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String toString() {
+        return budget + ", depth " + size() + " (peak " + getPeakDepth() + ")";
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.CompanyTemplate;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.ContractService;
+import org.example.contractparser.GenerationContext;
+import org.example.contractparser.RecordStore;
+import org.example.contractparser.TemplateRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the documents of every stored employee again from {@link RecordStore}, for example after a salary
+ * change in {@code config.yml} or a new template, without scanning any ID.
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.batch.MassRegeneration [--archive=arhiva]
+ *      [--output=dir] [--template=Company] [--only=Company] [--set=FIELD=value]... [--threads=N]
+ * </pre>
+ *
+ * Each record gets today's date and the salary of its company from {@code config.yml}; {@code --set} values
+ * are applied last, e.g. {@code --set=SALARY=4500}. {@code --template} uses one company's templates for everyone,
+ * {@code --only} keeps the employees of one company. Documents go to {@code <archive>/regenerated-<timestamp>}
+ * unless {@code --output} is given; {@code --output=arhiva} replaces the current documents.
+ */
+public class MassRegeneration {
+
+    private final TemplateRegistry registry;
+    private final File outputDir;
+    private final String template;
+    private final String only;
+    private final Map<ContractField, String> overrides;
+    private final int threads;
+
+    public MassRegeneration(TemplateRegistry registry, File outputDir, String template, String only,
+                            Map<ContractField, String> overrides, int threads) {
+        this.registry = registry;
+        this.outputDir = outputDir;
+        this.template = template;
+        this.only = only;
+        this.overrides = overrides;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File archive = new File("arhiva");
+        File outputDir = null;
+        String template = null;
+        String only = null;
+        Map<ContractField, String> overrides = new EnumMap<>(ContractField.class);
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            if (arg.startsWith("--archive=")) archive = new File(arg.substring("--archive=".length()));
+            else if (arg.startsWith("--output=")) outputDir = new File(arg.substring("--output=".length()));
+            else if (arg.startsWith("--template=")) template = arg.substring("--template=".length());
+            else if (arg.startsWith("--only=")) only = arg.substring("--only=".length());
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring("--threads=".length()));
+            else if (arg.startsWith("--set=") && arg.indexOf('=', "--set=".length()) != -1) {
+                String assignment = arg.substring("--set=".length());
+                int equals = assignment.indexOf('=');
+                overrides.put(ContractField.valueOf(assignment.substring(0, equals).trim()), assignment.substring(equals + 1));
+            } else {
+                System.err.println("Usage: MassRegeneration [--archive=arhiva] [--output=dir] [--template=Company] [--only=Company] [--set=FIELD=value]... [--threads=N]");
+                System.exit(1);
+            }
+        }
+        if (outputDir == null) {
+            outputDir = new File(archive, "regenerated-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        }
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create " + outputDir.getAbsolutePath());
+        }
+
+        List<BatchResult> results = new MassRegeneration(TemplateRegistry.getDefault(), outputDir, template, only,
+                overrides, threads).run(RecordStore.of(archive).list());
+        for (BatchResult result : results) {
+            if (result.getStatus() == BatchResult.Status.FAILED) {
+                System.out.println(result);
+            }
+        }
+        System.out.println("Documents written to " + outputDir.getAbsolutePath());
+    }
+
+    /**
+     * Regenerates the given record files on {@code threads} threads, printing progress about every 5%.
+     *
+     * @return one result per record file that was not filtered out by {@code --only}
+     */
+    public List<BatchResult> run(List<Path> recordFiles) throws InterruptedException {
+        GenerationContext context = GenerationContext.create();
+        int total = recordFiles.size();
+        int step = Math.max(1, total / 20);
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<BatchResult> results = new ArrayList<>(total);
+        try {
+            List<Future<BatchResult>> futures = new ArrayList<>(total);
+            for (Path file : recordFiles) {
+                futures.add(executor.submit(() -> {
+                    BatchResult result = regenerate(file, context);
+                    if (result != null && result.getStatus() == BatchResult.Status.GENERATED) {
+                        written.incrementAndGet();
+                    }
+                    int count = done.incrementAndGet();
+                    if (count % step == 0 || count == total) {
+                        double seconds = (System.nanoTime() - start) / 1e9;
+                        System.out.printf("%d/%d records, %.1f records/s%n", count, total, count / Math.max(seconds, 1e-3));
+                    }
+                    return result;
+                }));
+            }
+            for (Future<BatchResult> future : futures) {
+                try {
+                    BatchResult result = future.get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        long failed = results.stream().filter(r -> r.getStatus() == BatchResult.Status.FAILED).count();
+        System.out.printf("Regenerated %d records in %d ms (%.1f records/s): %d written, %d unchanged, %d failed.%n",
+                results.size(), elapsed, results.size() * 1000.0 / Math.max(1, elapsed), written.get(),
+                results.size() - written.get() - failed, failed);
+        return results;
+    }
+
+    /**
+     * @return the result for one record file, or {@code null} when its company is filtered out
+     */
+    BatchResult regenerate(Path file, GenerationContext context) {
+        long start = System.nanoTime();
+        BatchJob job = new BatchJob(file.toString(), null, "", "", "", "", template);
+        try {
+            RecordStore.StoredRecord stored = RecordStore.read(file);
+            if (only != null && !only.equalsIgnoreCase(stored.getCompany())) {
+                return null;
+            }
+            String company = template != null ? template : stored.getCompany();
+            job = new BatchJob(file.toString(), null, stored.getRecord().get(ContractField.REGISTRATION_NUMBER),
+                    "", "", "", company);
+            CompanyTemplate companyTemplate = registry.get(company);
+
+            ContractRecord.Builder data = stored.getRecord().toBuilder()
+                    .set(ContractField.TODAY_DATE, context.getToday())
+                    .set(ContractField.SALARY, context.getSalary(company));
+            for (Map.Entry<ContractField, String> override : overrides.entrySet()) {
+                data.set(override.getKey(), override.getValue());
+            }
+
+            boolean written = ContractService.generateDocuments(outputDir, stored.getEmployeeName(), data.build(), companyTemplate);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return written
+                    ? BatchResult.generated(job, stored.getEmployeeName(), millis)
+                    : BatchResult.unchanged(job, stored.getEmployeeName(), millis);
+        } catch (IOException | RuntimeException e) {
+            return BatchResult.failed(job, e.getMessage(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
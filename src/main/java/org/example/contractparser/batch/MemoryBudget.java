@@ -0,0 +1,168 @@
+package org.example.contractparser.batch;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A semaphore counted in bytes: callers acquire the estimated size of what they are about to hold in memory and
+ * block while the budget is used up. A single request larger than the whole budget is let through once nothing
+ * else is held, so an oversized image slows the batch down instead of stopping it. It is charged the whole budget
+ * while it is held, so memory use goes over the budget by its excess only, and {@link #getOversizedCount()} tells
+ * how often that happened.
+ *
+ * <p>Waiting uses a {@link ReentrantLock} rather than {@code synchronized}, so blocked virtual threads release
+ * their carrier thread.</p>
+ */
+public class MemoryBudget {
+
+    private final String name;
+    private final long capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long used;
+    private long peak;
+    private long blocked;
+    private long blockedNanos;
+    private long oversized;
+
+    public MemoryBudget(String name, long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Blocks until {@code bytes} fit in the budget.
+     *
+     * @return the amount actually charged, to be given back to {@link #release(long)}
+     */
+    public long acquire(long bytes) throws InterruptedException {
+        long charge = Math.max(0, Math.min(bytes, capacity));
+        lock.lock();
+        try {
+            if (bytes > capacity) {
+                oversized++;
+            }
+            if (used + charge > capacity) {
+                blocked++;
+                long start = System.nanoTime();
+                try {
+                    while (used + charge > capacity) {
+                        released.await();
+                    }
+                } finally {
+                    blockedNanos += System.nanoTime() - start;
+                }
+            }
+            used += charge;
+            peak = Math.max(peak, used);
+            return charge;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long charge) {
+        lock.lock();
+        try {
+            used -= charge;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getUsed() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPeak() {
+        lock.lock();
+        try {
+            return peak;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many acquisitions had to wait for memory to be released
+     */
+    public long getBlockedCount() {
+        lock.lock();
+        try {
+            return blocked;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many acquisitions asked for more than the whole budget and were charged the budget instead
+     */
+    public long getOversizedCount() {
+        lock.lock();
+        try {
+            return oversized;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBlockedMillis() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMillis(blockedNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format(Locale.ROOT, "%s %s/%s (peak %s, %d waits, %d ms, %d oversized)", name, format(used),
+                    format(capacity), format(peak), blocked, TimeUnit.NANOSECONDS.toMillis(blockedNanos), oversized);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parses sizes like {@code 512m}, {@code 2g}, {@code 800k} or a plain number of bytes.
+     */
+    public static long parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        char last = value.isEmpty() ? ' ' : value.charAt(value.length() - 1);
+        if (last == 'k') unit = 1L << 10;
+        else if (last == 'm') unit = 1L << 20;
+        else if (last == 'g') unit = 1L << 30;
+        if (unit != 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return Long.parseLong(value.trim()) * unit;
+    }
+
+    static String format(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (double) (1L << 20));
+    }
+}
@@ -0,0 +1,316 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.HireIndex;
+import org.example.contractparser.OfflineOcr;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Batch jobs kept as files in a folder shared by several machines, so each one runs a {@link SharedWorker}.
+ *
+ * <pre>
+ * images/                         scans (and offline transcripts) copied in by {@link #enqueue}
+ * inbox/&lt;id&gt;~&lt;attempt&gt;.job          one row of a {@link BatchFile}, waiting for a worker
+ * leases/&lt;id&gt;~&lt;attempt&gt;~&lt;worker&gt;.lease  claimed by a worker, its modification time is the last heartbeat
+ * done/ review/ duplicate/ failed/  finished jobs, named like their lease; an {@code .error} file explains the others
+ * </pre>
+ *
+ * <p>Every change of state is a single atomic rename, so of several workers moving the same file exactly one
+ * succeeds and the others get {@link NoSuchFileException}. That holds on a local disk and on NFS. A worker
+ * touches its leases while it works on them. A lease that was not touched within the timeout belongs to a
+ * worker that died, and any worker puts it back in the inbox with the next attempt number. After
+ * {@value #MAX_ATTEMPTS} attempts the job is failed instead, so one scan that crashes workers cannot take them
+ * all down, and the person its workers claimed in the {@link HireIndex} is released. Since a lease is renamed away when it is reclaimed, a worker that was only slow finds its lease
+ * gone when it finishes and drops its result.</p>
+ *
+ * <p>Heartbeats use the clock of each machine, which should agree with the others to well within the timeout.</p>
+ */
+public class SharedQueue {
+
+    public static final long DEFAULT_LEASE_TIMEOUT_MILLIS = 60_000;
+    static final int MAX_ATTEMPTS = 3;
+    private static final String JOB = ".job";
+    private static final String LEASE = ".lease";
+    private static final String SEPARATOR = "~";
+
+    /** Where a finished job is moved. */
+    public enum Outcome {
+        DONE("done"), REVIEW("review"), DUPLICATE("duplicate"), FAILED("failed");
+
+        private final String dirName;
+
+        Outcome(String dirName) {
+            this.dirName = dirName;
+        }
+    }
+
+    /** A job claimed by one worker. */
+    public static final class Lease {
+        private final String id;
+        private final int attempt;
+        private final Path file;
+        private final BatchJob job;
+
+        Lease(Path file, BatchJob job) {
+            String[] parts = baseName(file, LEASE).split(SEPARATOR);
+            this.id = parts[0];
+            this.attempt = Integer.parseInt(parts[1]);
+            this.file = file;
+            this.job = job;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return {@code id~attempt~worker}, unique for every claim of a job
+         */
+        public String getName() {
+            return baseName(file, LEASE);
+        }
+
+        public int getAttempt() {
+            return attempt;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public BatchJob getJob() {
+            return job;
+        }
+
+        @Override
+        public String toString() {
+            return id + " attempt " + attempt + " (" + job + ")";
+        }
+    }
+
+    private final Path root;
+    private final Path images;
+    private final Path inbox;
+    private final Path leases;
+
+    public SharedQueue(Path root) throws IOException {
+        this.root = root;
+        this.images = root.resolve("images");
+        this.inbox = root.resolve("inbox");
+        this.leases = root.resolve("leases");
+        Files.createDirectories(images);
+        Files.createDirectories(inbox);
+        Files.createDirectories(leases);
+        for (Outcome outcome : Outcome.values()) {
+            Files.createDirectories(root.resolve(outcome.dirName));
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Copies the scan of every job into the shared folder and adds the job to the inbox. A job only appears
+     * in the inbox once it is complete.
+     *
+     * @return the ids of the jobs, in order
+     */
+    public List<String> enqueue(List<BatchJob> jobs) throws IOException {
+        List<String> ids = new ArrayList<>(jobs.size());
+        for (BatchJob job : jobs) {
+            String id = UUID.randomUUID().toString();
+            Path source = Path.of(job.getImagePath());
+            String name = source.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            Path image = images.resolve(id + (dot > 0 ? name.substring(dot).toLowerCase(Locale.ROOT) : ""));
+            Files.copy(source, image);
+            Path transcript = OfflineOcr.transcriptOf(source.toString());
+            if (Files.isRegularFile(transcript)) {
+                Files.copy(transcript, OfflineOcr.transcriptOf(image.toString()));
+            }
+
+            // relative to the job file, so the job resolves the same from leases/ and on every machine
+            BatchJob shared = new BatchJob("../images/" + image.getFileName(), job.getIdType(), job.getRegNumber(),
+                    job.getPhone(), job.getPlace(), job.getCity(), job.getCompany());
+            Path temp = inbox.resolve("." + id + ".tmp");
+            BatchFile.write(temp, List.of(shared));
+            move(temp, inbox.resolve(id + SEPARATOR + 1 + JOB));
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * @return the jobs waiting in the inbox, in random order so workers listing at the same time rarely race
+     */
+    public List<Path> waiting() throws IOException {
+        List<Path> files = list(inbox, "*" + JOB);
+        Collections.shuffle(files);
+        return files;
+    }
+
+    /**
+     * Takes the job at {@code inboxFile} for {@code worker}.
+     *
+     * @return the lease, or {@code null} if another worker took the job first
+     */
+    public Lease claim(Path inboxFile, String worker) throws IOException {
+        Path file = leases.resolve(baseName(inboxFile, JOB) + SEPARATOR + worker + LEASE);
+        try {
+            // touched first, the rename keeps the time and a lease must never look stale
+            Files.setLastModifiedTime(inboxFile, FileTime.fromMillis(System.currentTimeMillis()));
+            move(inboxFile, file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            List<BatchJob> jobs = BatchFile.read(file);
+            if (jobs.size() != 1) {
+                throw new IOException("Expected one job, found " + jobs.size());
+            }
+            return new Lease(file, jobs.get(0));
+        } catch (IOException | RuntimeException e) {
+            finish(new Lease(file, null), Outcome.FAILED, "Unreadable job: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Tells the other workers the lease is still being worked on.
+     *
+     * @return false if the lease was reclaimed or finished
+     */
+    public boolean heartbeat(Lease lease) throws IOException {
+        try {
+            Files.setLastModifiedTime(lease.file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Moves the job out of the leases. This is the commit point: only a worker that still holds the lease
+     * may publish its result.
+     *
+     * @param error written next to failed jobs, may be {@code null}
+     * @return false if the lease had been reclaimed in the meantime
+     */
+    public boolean finish(Lease lease, Outcome outcome, String error) throws IOException {
+        Path dir = root.resolve(outcome.dirName);
+        try {
+            move(lease.file, dir.resolve(lease.getName() + JOB));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (error != null) {
+            Files.writeString(dir.resolve(lease.getName() + ".error"), error + "\n", StandardCharsets.UTF_8);
+        }
+        return true;
+    }
+
+    /**
+     * Puts leases without a heartbeat for {@code timeoutMillis} back in the inbox, or fails them after
+     * {@value #MAX_ATTEMPTS} attempts.
+     *
+     * @param hires where the workers claim their people; the claim of a failed job is dropped there so the person
+     *              can be sent again, may be {@code null}
+     * @return how many leases were reclaimed
+     */
+    public int reclaim(long timeoutMillis, HireIndex hires) throws IOException {
+        long stale = System.currentTimeMillis() - timeoutMillis;
+        int reclaimed = 0;
+        for (Path file : list(leases, "*" + LEASE)) {
+            try {
+                if (Files.getLastModifiedTime(file).toMillis() >= stale) {
+                    continue;
+                }
+                String[] parts = baseName(file, LEASE).split(SEPARATOR);
+                int attempt = Integer.parseInt(parts[1]);
+                if (attempt >= MAX_ATTEMPTS) {
+                    if (finish(new Lease(file, null), Outcome.FAILED, "Abandoned by " + attempt + " workers, last " + parts[2])) {
+                        if (hires != null) {
+                            hires.forgetOwner(parts[0]);
+                        }
+                        reclaimed++;
+                    }
+                } else {
+                    move(file, inbox.resolve(parts[0] + SEPARATOR + (attempt + 1) + JOB));
+                    System.out.println("Reclaimed " + parts[0] + " from " + parts[2]);
+                    reclaimed++;
+                }
+            } catch (NoSuchFileException e) {
+                // finished or reclaimed by someone else while we looked
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * @return true when no job is waiting or leased
+     */
+    public boolean isDrained() throws IOException {
+        return list(inbox, "*" + JOB).isEmpty() && list(leases, "*" + LEASE).isEmpty();
+    }
+
+    /**
+     * @return the number of jobs waiting, leased, done, to review, duplicate and failed
+     */
+    public String status() throws IOException {
+        return String.format(Locale.ROOT, "%d waiting, %d leased, %d done, %d to review, %d duplicate, %d failed",
+                list(inbox, "*" + JOB).size(), list(leases, "*" + LEASE).size(),
+                list(root.resolve(Outcome.DONE.dirName), "*" + JOB).size(),
+                list(root.resolve(Outcome.REVIEW.dirName), "*" + JOB).size(),
+                list(root.resolve(Outcome.DUPLICATE.dirName), "*" + JOB).size(),
+                list(root.resolve(Outcome.FAILED.dirName), "*" + JOB).size());
+    }
+
+    /**
+     * @param leaseName see {@link Lease#getName()}
+     * @return true if that claim of the job committed its result
+     */
+    boolean isCommitted(String leaseName) {
+        return Files.exists(root.resolve(Outcome.DONE.dirName).resolve(leaseName + JOB));
+    }
+
+    boolean isLeased(String leaseName) {
+        return Files.exists(leases.resolve(leaseName + LEASE));
+    }
+
+    private static String baseName(Path file, String extension) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - extension.length());
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            throw new IOException("The shared folder must support atomic renames: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Path> list(Path dir, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, glob)) {
+            for (Path entry : entries) {
+                files.add(entry);
+            }
+        }
+        return files;
+    }
+}
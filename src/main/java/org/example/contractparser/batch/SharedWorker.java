@@ -0,0 +1,493 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.CachingOcrClient;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.ContractService;
+import org.example.contractparser.DetectText;
+import org.example.contractparser.DocumentFingerprint;
+import org.example.contractparser.DocumentType;
+import org.example.contractparser.FieldValidator;
+import org.example.contractparser.GenerationContext;
+import org.example.contractparser.HireIndex;
+import org.example.contractparser.OcrClient;
+import org.example.contractparser.OfflineOcr;
+import org.example.contractparser.RecordStore;
+import org.example.contractparser.TemplateRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs batch jobs from a {@link SharedQueue}, so the batch of one peak day is spread over several machines
+ * (or JVMs) that see the same folder. Every worker claims jobs, runs OCR and generation for them on
+ * {@code --slots} threads, and writes the documents into the shared archive.
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.batch.SharedWorker &lt;shared-dir&gt; --enqueue=jobs.csv
+ * java -cp ContractParser.jar org.example.contractparser.batch.SharedWorker &lt;shared-dir&gt; [--output=arhiva]
+ *      [--slots=N] [--offline[=latencyMillis]] [--lease-timeout=60] [--until-empty] [--worker=name] [--no-ocr-cache]
+ *      [--allow-duplicates]
+ * java -cp ContractParser.jar org.example.contractparser.batch.SharedWorker &lt;shared-dir&gt; --status
+ * </pre>
+ *
+ * <p>Enqueueing validates the rows and allocates the missing registration numbers on the machine that enqueues,
+ * so workers never share the {@link org.example.contractparser.RegistrationSequence}.</p>
+ *
+ * <p>Documents are generated into {@value #STAGING_DIR} inside the archive and only published after the lease
+ * was committed, so a job reclaimed from a worker that was only slow is never written twice. Publishing
+ * hard-links the contract under a name nobody has: {@code Ion_Pop.docx}, else {@code Ion_Pop_2.docx}, and so on.
+ * The fisa, fingerprint and record follow that name. Creating a link fails atomically when the name is taken,
+ * so two workers publishing the same employee name never overwrite each other. Staging folders of commits
+ * whose worker died before publishing are published by the next worker that notices them.</p>
+ *
+ * <p>Before generating, a worker claims the CNP in the {@link HireIndex} of the archive, which every worker and
+ * the UI share. A person hired before, or claimed by another job of the run, ends in the {@code duplicate} folder
+ * of the queue. The claim carries the job id, so a retried job is not stopped by its own claim, and a job that
+ * fails gives its claim back.</p>
+ */
+public class SharedWorker {
+
+    static final String STAGING_DIR = ".staging";
+    private static final String RECOVERING = ".recovering";
+    private static final long POLL_MILLIS = 500;
+
+    private final SharedQueue queue;
+    private final String workerId;
+    private final OcrClient ocrClient;
+    private final TemplateRegistry registry;
+    private final File outputDir;
+    private final HireIndex hires;
+    private final Path stagingDir;
+    private final float reviewThreshold;
+    private final long leaseTimeoutMillis;
+    private final Set<SharedQueue.Lease> held = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Path> candidates = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger review = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger lost = new AtomicInteger();
+    private volatile GenerationContext context = GenerationContext.create();
+
+    /**
+     * @param hires the index of {@code outputDir} checked before every job, or {@code null} to allow duplicates
+     */
+    public SharedWorker(SharedQueue queue, String workerId, OcrClient ocrClient, TemplateRegistry registry,
+                        File outputDir, HireIndex hires, float reviewThreshold, long leaseTimeoutMillis) {
+        this.queue = queue;
+        this.workerId = workerId.replaceAll("[^A-Za-z0-9._-]", "_");
+        this.ocrClient = ocrClient;
+        this.registry = registry;
+        this.outputDir = outputDir;
+        this.hires = hires;
+        this.stagingDir = outputDir.toPath().resolve(STAGING_DIR);
+        this.reviewThreshold = reviewThreshold;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+    }
+
+    /**
+     * @return {@code host-pid}, unique among the workers of one shared folder
+     */
+    public static String defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "worker";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * Works on jobs on {@code slots} threads. With {@code untilEmpty} it returns once no job is waiting or leased
+     * by anyone, otherwise it keeps polling the inbox until interrupted.
+     */
+    public void run(int slots, boolean untilEmpty) throws InterruptedException, IOException {
+        Files.createDirectories(stagingDir);
+        ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shared-worker-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(200, leaseTimeoutMillis / 6);
+        maintenance.scheduleWithFixedDelay(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+        ExecutorService workers = Executors.newFixedThreadPool(slots);
+        try {
+            List<Future<?>> futures = new ArrayList<>(slots);
+            for (int i = 0; i < slots; i++) {
+                futures.add(workers.submit(() -> {
+                    work(untilEmpty);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            maintenance.shutdownNow();
+        }
+    }
+
+    private void work(boolean untilEmpty) throws InterruptedException, IOException {
+        while (!Thread.currentThread().isInterrupted()) {
+            SharedQueue.Lease lease = next();
+            if (lease != null) {
+                process(lease);
+            } else if (untilEmpty && queue.isDrained()) {
+                return;
+            } else {
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return a claimed job, or {@code null} when the inbox is empty
+     */
+    private SharedQueue.Lease next() throws IOException {
+        for (int listings = 0; listings < 2; listings++) {
+            for (Path candidate; (candidate = candidates.poll()) != null; ) {
+                SharedQueue.Lease lease = queue.claim(candidate, workerId);
+                if (lease != null) {
+                    held.add(lease);
+                    return lease;
+                }
+            }
+            synchronized (candidates) {
+                if (candidates.isEmpty()) {
+                    candidates.addAll(queue.waiting());
+                }
+            }
+        }
+        return null;
+    }
+
+    private void process(SharedQueue.Lease lease) throws IOException {
+        Path staging = stagingDir.resolve(lease.getName());
+        boolean committed = false;
+        String claimed = null;
+        try {
+            BatchJob job = lease.getJob();
+            List<FieldValidator.Violation> violations = BatchGenerator.validate(List.of(job)).get(0);
+            if (!violations.isEmpty()) {
+                finish(lease, SharedQueue.Outcome.FAILED, violations.toString());
+                return;
+            }
+            ContractRecord data = BatchGenerator.parse(job, ocrClient, context());
+            String employeeName = data.getOrDefault(ContractField.NAME, "");
+            if (!ContractService.isFieldValid(employeeName)) {
+                finish(lease, SharedQueue.Outcome.FAILED, BatchGenerator.NO_NAME);
+                return;
+            }
+            String reason = BatchGenerator.reviewReason(data, reviewThreshold);
+            if (reason != null) {
+                finish(lease, SharedQueue.Outcome.REVIEW, employeeName + ": " + reason);
+                return;
+            }
+            String cnp = hires != null ? data.get(ContractField.CNP) : null;
+            if (cnp != null) {
+                HireIndex.Hire previous = hires.claim(cnp, employeeName, lease.getId());
+                if (previous != null) {
+                    finish(lease, SharedQueue.Outcome.DUPLICATE, employeeName + ": already hired as " + previous);
+                    return;
+                }
+                claimed = cnp;
+            }
+
+            Files.createDirectories(staging);
+            ContractService.generateDocuments(staging.toFile(), employeeName, data, registry.get(job.getCompany()));
+            committed = finish(lease, SharedQueue.Outcome.DONE, null);
+            if (committed) {
+                String name = publish(staging, employeeName);
+                System.out.println(job + " -> " + name);
+                if (claimed != null) {
+                    hires.record(claimed, name);
+                }
+            }
+            deleteRecursively(staging);
+        } catch (IOException | RuntimeException e) {
+            if (committed) {
+                // the staged documents are kept and published again by recoverStaging
+                System.err.println("Publishing " + lease + " failed, retried later: " + e.getMessage());
+            } else {
+                // a lease reclaimed meanwhile belongs to another attempt of the job, which keeps the claim
+                if (finish(lease, SharedQueue.Outcome.FAILED, e.getMessage()) && claimed != null) {
+                    hires.forget(claimed);
+                }
+                deleteRecursively(staging);
+            }
+        } finally {
+            held.remove(lease);
+        }
+    }
+
+    private boolean finish(SharedQueue.Lease lease, SharedQueue.Outcome outcome, String message) throws IOException {
+        if (!queue.finish(lease, outcome, outcome == SharedQueue.Outcome.DONE ? null : message)) {
+            lost.incrementAndGet();
+            System.err.println("Lease of " + lease + " was reclaimed, result dropped");
+            return false;
+        }
+        switch (outcome) {
+            case DONE -> generated.incrementAndGet();
+            case REVIEW -> review.incrementAndGet();
+            case DUPLICATE -> duplicates.incrementAndGet();
+            case FAILED -> {
+                failed.incrementAndGet();
+                System.err.println(lease.getJob() + ": " + message);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the staged documents of {@code employeeName} into the archive under the first free name.
+     *
+     * @return the name the documents were published under
+     */
+    String publish(Path staging, String employeeName) throws IOException {
+        Path contract = staging.resolve(DocumentType.CONTRACT.fileName(employeeName));
+        Path fisa = staging.resolve(DocumentType.FISA.fileName(employeeName));
+        Path fingerprint = DocumentFingerprint.sidecarOf(contract.toFile()).toPath();
+        Path record = RecordStore.of(staging.toFile()).fileOf(employeeName);
+        RecordStore records = RecordStore.of(outputDir);
+        Files.createDirectories(records.getDirectory());
+
+        for (int n = 1; ; n++) {
+            String name = DocumentType.numberedName(employeeName, n);
+            Path contractTarget = outputDir.toPath().resolve(DocumentType.CONTRACT.fileName(name));
+            if (!link(contract, contractTarget)) {
+                continue;
+            }
+            if (!link(fisa, outputDir.toPath().resolve(DocumentType.FISA.fileName(name)))) {
+                Files.delete(contractTarget); // a fisa left over under this name, try the next one
+                continue;
+            }
+            // the contract name is ours now, so these may replace leftovers
+            if (Files.exists(fingerprint)) {
+                Files.move(fingerprint, DocumentFingerprint.sidecarOf(contractTarget.toFile()).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(record, records.fileOf(name), StandardCopyOption.REPLACE_EXISTING);
+            return name;
+        }
+    }
+
+    /**
+     * Creates {@code target} with the content of {@code source}, failing when {@code target} exists.
+     */
+    private static boolean link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // shares without hard links: reserve the name, then replace the empty file in one rename
+            try {
+                Files.createFile(target);
+            } catch (FileAlreadyExistsException taken) {
+                return false;
+            }
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    /**
+     * Runs on a timer: keeps the held leases alive, reclaims those of dead workers and cleans up the staging
+     * folders they left.
+     */
+    private void maintain() {
+        try {
+            for (SharedQueue.Lease lease : held) {
+                queue.heartbeat(lease);
+            }
+            queue.reclaim(leaseTimeoutMillis, hires);
+            recoverStaging();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Shared folder maintenance failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes staging folders whose lease was committed by a worker that died before publishing, and removes
+     * those of leases that were lost. Only folders older than the lease timeout are touched, since their worker
+     * would otherwise still be working on them.
+     */
+    private void recoverStaging() throws IOException {
+        long stale = System.currentTimeMillis() - leaseTimeoutMillis;
+        List<Path> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(stagingDir)) {
+            for (Path entry : entries) {
+                dirs.add(entry);
+            }
+        }
+        for (Path dir : dirs) {
+            String name = dir.getFileName().toString();
+            try {
+                if (name.contains(RECOVERING) || Files.getLastModifiedTime(dir).toMillis() >= stale
+                        || queue.isLeased(name)) {
+                    continue;
+                }
+                if (!queue.isCommitted(name)) {
+                    deleteRecursively(dir);
+                    continue;
+                }
+                Path claimed = stagingDir.resolve(name + RECOVERING + "~" + workerId);
+                Files.move(dir, claimed, StandardCopyOption.ATOMIC_MOVE); // only one worker recovers a folder
+                String employeeName = RecordStore.read(recordIn(claimed)).getEmployeeName();
+                System.out.println("Recovered " + name + " -> " + publish(claimed, employeeName));
+                deleteRecursively(claimed);
+            } catch (NoSuchFileException e) {
+                // recovered or cleaned up by another worker meanwhile
+            }
+        }
+    }
+
+    private static Path recordIn(Path staging) throws IOException {
+        List<Path> records = RecordStore.of(staging.toFile()).list();
+        if (records.size() != 1) {
+            throw new IOException("Expected one record in " + staging + ", found " + records.size());
+        }
+        return records.get(0);
+    }
+
+    private GenerationContext context() {
+        GenerationContext current = context;
+        if (!current.getTodayDate().equals(LocalDate.now())) {
+            current = GenerationContext.create(); // a worker running past midnight dates new documents on the new day
+            context = current;
+        }
+        return current;
+    }
+
+    public String getSummary() {
+        return generated + " generated, " + review + " to review, " + duplicates + " duplicate, " + failed + " failed, "
+                + lost + " reclaimed from us";
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        } catch (NoSuchFileException e) {
+            // removed by another worker
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: SharedWorker <shared-dir> [--enqueue=jobs.csv | --status] [--output=dir] [--slots=N] [--offline[=latencyMillis]] [--lease-timeout=seconds] [--until-empty] [--worker=name] [--review-threshold=N] [--no-ocr-cache] [--allow-duplicates]");
+            System.exit(1);
+        }
+        SharedQueue queue = new SharedQueue(Path.of(args[0]));
+        Path enqueue = null;
+        boolean status = false;
+        File outputDir = new File("arhiva");
+        int slots = Runtime.getRuntime().availableProcessors() * 2;
+        OcrClient ocrClient = null;
+        long leaseTimeout = SharedQueue.DEFAULT_LEASE_TIMEOUT_MILLIS;
+        boolean untilEmpty = false;
+        String workerId = defaultWorkerId();
+        float reviewThreshold = BatchGenerator.DEFAULT_REVIEW_THRESHOLD;
+        boolean ocrCache = true;
+        boolean checkDuplicates = true;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--enqueue=")) enqueue = Path.of(arg.substring("--enqueue=".length()));
+            else if (arg.equals("--status")) status = true;
+            else if (arg.startsWith("--output=")) outputDir = new File(arg.substring("--output=".length()));
+            else if (arg.startsWith("--slots=")) slots = Integer.parseInt(arg.substring("--slots=".length()));
+            else if (arg.equals("--offline")) ocrClient = new OfflineOcr();
+            else if (arg.startsWith("--offline=")) ocrClient = new OfflineOcr(Long.parseLong(arg.substring("--offline=".length())));
+            else if (arg.startsWith("--lease-timeout=")) leaseTimeout = Long.parseLong(arg.substring("--lease-timeout=".length())) * 1000;
+            else if (arg.equals("--until-empty")) untilEmpty = true;
+            else if (arg.startsWith("--worker=")) workerId = arg.substring("--worker=".length());
+            else if (arg.startsWith("--review-threshold=")) reviewThreshold = Float.parseFloat(arg.substring("--review-threshold=".length()));
+            else if (arg.equals("--no-ocr-cache")) ocrCache = false;
+            else if (arg.equals("--allow-duplicates")) checkDuplicates = false;
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        if (status) {
+            System.out.println(queue.status());
+            return;
+        }
+        if (enqueue != null) {
+            enqueue(queue, enqueue);
+            return;
+        }
+
+        if (ocrClient == null) {
+            ocrClient = new DetectText();
+        }
+        OcrClient client = ocrCache
+                ? new CachingOcrClient(ocrClient, CachingOcrClient.defaultDirectory(), CachingOcrClient.DEFAULT_MAX_DISTANCE)
+                : ocrClient;
+        SharedWorker worker = new SharedWorker(queue, workerId, client, TemplateRegistry.getDefault(), outputDir,
+                checkDuplicates ? HireIndex.open(outputDir) : null, reviewThreshold, leaseTimeout);
+        long start = System.nanoTime();
+        try {
+            worker.run(slots, untilEmpty);
+        } finally {
+            if (ocrClient instanceof DetectText detectText) {
+                detectText.close();
+            }
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        int total = worker.generated.get() + worker.review.get() + worker.duplicates.get() + worker.failed.get();
+        System.out.printf(Locale.ROOT, "Worker %s: %s in %d ms, %.1f jobs/s%n", worker.workerId, worker.getSummary(),
+                millis, total * 1000.0 / millis);
+    }
+
+    private static void enqueue(SharedQueue queue, Path jobsFile) throws IOException {
+        List<BatchJob> jobs = BatchFile.read(jobsFile);
+        List<List<FieldValidator.Violation>> violations = BatchGenerator.validate(jobs);
+        jobs = BatchGenerator.assignRegistrations(jobs, violations, GenerationContext.create());
+        List<BatchJob> valid = new ArrayList<>(jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            if (!violations.get(i).isEmpty()) {
+                System.out.println("Row " + (i + 2) + " not queued: " + violations.get(i));
+            } else {
+                valid.add(jobs.get(i));
+            }
+        }
+        queue.enqueue(valid);
+        System.out.println("Queued " + valid.size() + " of " + jobs.size() + " jobs in " + queue.getRoot()
+                + ": " + queue.status());
+    }
+}
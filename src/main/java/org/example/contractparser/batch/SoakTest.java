@@ -0,0 +1,326 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.ArchiveCrypto;
+import org.example.contractparser.CompanyTemplate;
+import org.example.contractparser.Contract;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DocumentType;
+import org.example.contractparser.GenerationContext;
+import org.example.contractparser.TemplateRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes synthetic employees from {@link SyntheticIds} through ID parsing and {@link Contract#generateContract}
+ * for a long time, to find slowdowns and leaks before a hiring peak does.
+ *
+ * <pre>
+ * java -Xmx512m -cp ContractParser.jar org.example.contractparser.batch.SoakTest [--employees=10000] [--minutes=60]
+ *      [--threads=N] [--noise=0.01] [--old-share=0.5] [--seed=1] [--company=Robest] [--output=dir]
+ *      [--report=10] [--review-threshold=90]
+ * </pre>
+ *
+ * Every {@code --report} seconds it prints the throughput and latency percentiles of the last interval, the heap in
+ * use and the heap left after the last GC; the last one keeps growing when something leaks. {@code --minutes} runs
+ * for that long instead of a number of employees. Without {@code --company} generated templates are used, and
+ * documents are discarded unless {@code --output} is given.
+ */
+public class SoakTest {
+
+    /** Log-linear histogram of microseconds, within about 3%, safe to record into from many threads. */
+    static final class Latencies {
+        private static final int SUB_BUCKETS = 32;
+        private static final long MAX_MICROS = TimeUnit.HOURS.toMicros(1);
+        private final AtomicLongArray counts = new AtomicLongArray(bucket(MAX_MICROS) + 1);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.min(Math.max(0, nanos / 1000), MAX_MICROS);
+            counts.incrementAndGet(bucket(micros));
+            max.accumulateAndGet(micros, Math::max);
+        }
+
+        /**
+         * @return a copy of the counts so far, leaving this one empty
+         */
+        Latencies drain() {
+            Latencies copy = new Latencies();
+            for (int i = 0; i < counts.length(); i++) {
+                copy.counts.set(i, counts.getAndSet(i, 0));
+            }
+            copy.max.set(max.getAndSet(0));
+            return copy;
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) count += counts.get(i);
+            return count;
+        }
+
+        /**
+         * @return the latency under which {@code fraction} of the recorded ones fall, in milliseconds
+         */
+        double percentile(double fraction) {
+            long target = (long) Math.ceil(fraction * count());
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= target && seen > 0) {
+                    return Math.min(upperBound(i), max.get()) / 1000.0;
+                }
+            }
+            return 0;
+        }
+
+        double max() {
+            return max.get() / 1000.0;
+        }
+
+        /** Exact below 64 µs, then 32 buckets per power of two. */
+        private static int bucket(long micros) {
+            int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(micros) - 5);
+            return shift * SUB_BUCKETS + (int) (micros >> shift);
+        }
+
+        private static long upperBound(int bucket) {
+            int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+            return ((long) (bucket - shift * SUB_BUCKETS + 1) << shift) - 1;
+        }
+    }
+
+    private static final OutputStream DISCARD = OutputStream.nullOutputStream();
+
+    private final SyntheticIds ids;
+    private final CompanyTemplate template;
+    private final Path outputDir;
+    private final float reviewThreshold;
+    private final GenerationContext context = GenerationContext.create();
+
+    private final Latencies parseTotal = new Latencies();
+    private final Latencies generateTotal = new Latencies();
+    private final Latencies employeeTotal = new Latencies();
+    private final Latencies interval = new Latencies();
+    private final AtomicLong fields = new AtomicLong();
+    private final AtomicLong fieldsRight = new AtomicLong();
+    private final AtomicLong toReview = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+
+    SoakTest(SyntheticIds ids, CompanyTemplate template, Path outputDir, float reviewThreshold) {
+        this.ids = ids;
+        this.template = template;
+        this.outputDir = outputDir;
+        this.reviewThreshold = reviewThreshold;
+    }
+
+    /**
+     * Parses the card of one employee, as if Textract had returned its blocks, and writes both documents.
+     */
+    void employee(long index) {
+        SyntheticIds.Card card = ids.card(index);
+        long start = System.nanoTime();
+        try {
+            BatchJob job = new BatchJob("synthetic-" + index, card.getType(), (1000 + 2 * index) + "/01.01.2025",
+                    String.format("07%08d", index % 100_000_000), "Depozit", "Cluj-Napoca", template.getCompany());
+            ContractRecord data = BatchGenerator.parse(job, imagePath -> card.getBlocks(), context);
+            long parsed = System.nanoTime();
+
+            String employeeName = data.getOrDefault(ContractField.NAME, BatchGenerator.NO_NAME) + " " + index;
+            for (DocumentType type : DocumentType.values()) {
+                if (outputDir == null) {
+                    Contract.generateContract(template.getCompiled(type), DISCARD, data);
+                } else {
+                    try (OutputStream out = ArchiveCrypto.getDefault().newOutputStream(outputDir.resolve(type.fileName(employeeName)))) {
+                        Contract.generateContract(template.getCompiled(type), out, data);
+                    }
+                }
+            }
+            long done = System.nanoTime();
+
+            parseTotal.record(parsed - start);
+            generateTotal.record(done - parsed);
+            employeeTotal.record(done - start);
+            interval.record(done - start);
+            for (Map.Entry<ContractField, String> field : card.getExpected().toMap().entrySet()) {
+                fields.incrementAndGet();
+                if (field.getValue().equals(data.get(field.getKey()))) {
+                    fieldsRight.incrementAndGet();
+                }
+            }
+            if (BatchGenerator.reviewReason(data, reviewThreshold) != null) {
+                toReview.incrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            firstError.compareAndSet(null, "employee " + index + ": " + e);
+        }
+    }
+
+    /**
+     * @return megabytes of heap in use after the most recent collection, or -1 before the first one
+     */
+    static long heapAfterLastGc() {
+        Set<String> heapPools = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) heapPools.add(pool.getName());
+        }
+        com.sun.management.GcInfo last = null;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof com.sun.management.GarbageCollectorMXBean) {
+                com.sun.management.GcInfo info = ((com.sun.management.GarbageCollectorMXBean) gc).getLastGcInfo();
+                if (info != null && (last == null || info.getEndTime() > last.getEndTime())) last = info;
+            }
+        }
+        if (last == null) {
+            return -1;
+        }
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : last.getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.contains(pool.getKey())) used += pool.getValue().getUsed();
+        }
+        return used >> 20;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long employees = 10_000;
+        long minutes = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double noise = 0.01;
+        double oldShare = 0.5;
+        long seed = 1;
+        String company = null;
+        Path outputDir = null;
+        int reportSeconds = 10;
+        float reviewThreshold = BatchGenerator.DEFAULT_REVIEW_THRESHOLD;
+        for (String arg : args) {
+            if (arg.startsWith("--employees=")) employees = Long.parseLong(arg.substring("--employees=".length()));
+            else if (arg.startsWith("--minutes=")) minutes = Long.parseLong(arg.substring("--minutes=".length()));
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring("--threads=".length()));
+            else if (arg.startsWith("--noise=")) noise = Double.parseDouble(arg.substring("--noise=".length()));
+            else if (arg.startsWith("--old-share=")) oldShare = Double.parseDouble(arg.substring("--old-share=".length()));
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            else if (arg.startsWith("--company=")) company = arg.substring("--company=".length());
+            else if (arg.startsWith("--output=")) outputDir = Path.of(arg.substring("--output=".length()));
+            else if (arg.startsWith("--report=")) reportSeconds = Integer.parseInt(arg.substring("--report=".length()));
+            else if (arg.startsWith("--review-threshold=")) reviewThreshold = Float.parseFloat(arg.substring("--review-threshold=".length()));
+            else {
+                System.err.println("Usage: SoakTest [--employees=N] [--minutes=M] [--threads=N] [--noise=0.01] [--old-share=0.5] [--seed=N] [--company=name] [--output=dir] [--report=seconds] [--review-threshold=N]");
+                System.exit(2);
+            }
+        }
+
+        Path templatesDir = null;
+        CompanyTemplate template;
+        if (company != null) {
+            template = TemplateRegistry.getDefault().get(company);
+        } else {
+            templatesDir = Files.createTempDirectory("contract-soak");
+            BatchBenchmark.writeTemplates(templatesDir.resolve(BatchBenchmark.COMPANY));
+            template = new TemplateRegistry(templatesDir).get(BatchBenchmark.COMPANY);
+        }
+        if (outputDir != null) {
+            Files.createDirectories(outputDir);
+        }
+
+        SoakTest soak = new SoakTest(new SyntheticIds(seed, noise, oldShare), template, outputDir, reviewThreshold);
+        long limit = minutes > 0 ? Long.MAX_VALUE : employees;
+        long deadline = minutes > 0 ? System.nanoTime() + TimeUnit.MINUTES.toNanos(minutes) : Long.MAX_VALUE;
+        System.out.printf("Soak test of %s, %d threads, OCR noise %.3f, heap max %d MB%n",
+                minutes > 0 ? minutes + " minutes" : employees + " employees", threads, noise,
+                Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%8s %9s %8s %8s %8s %8s %8s %9s %9s %8s%n", "seconds", "employees", "per s",
+                "p50 ms", "p95 ms", "p99 ms", "max ms", "heap MB", "after GC", "GC ms");
+
+        int interval = reportSeconds;
+        long start = System.nanoTime();
+        long[] firstAfterGc = {-1};
+        long[] lastAfterGc = {-1};
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "soak-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            Latencies last = soak.interval.drain();
+            long afterGc = heapAfterLastGc();
+            if (afterGc >= 0) {
+                if (firstAfterGc[0] < 0) firstAfterGc[0] = afterGc;
+                lastAfterGc[0] = afterGc;
+            }
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("%8d %9d %8.1f %8.1f %8.1f %8.1f %8.1f %9d %9d %8d%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), soak.employeeTotal.count(),
+                    last.count() / (double) interval, last.percentile(0.50), last.percentile(0.95),
+                    last.percentile(0.99), last.max(), (runtime.totalMemory() - runtime.freeMemory()) >> 20,
+                    afterGc, gcMillis());
+        }, interval, interval, TimeUnit.SECONDS);
+
+        AtomicLong next = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.execute(() -> {
+                for (long index; (index = next.getAndIncrement()) < limit && System.nanoTime() < deadline; ) {
+                    soak.employee(index);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        reporter.shutdownNow();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long done = soak.employeeTotal.count();
+        System.out.printf("%nDone %d employees in %.1f s, %.1f per second, %d to review, %d failed%n",
+                done, seconds, done / seconds, soak.toReview.get(), soak.failed.get());
+        System.out.printf("%-12s %8s %8s %8s %8s%n", "latency ms", "p50", "p95", "p99", "max");
+        System.out.printf("%-12s %8.2f %8.2f %8.2f %8.2f%n", "parse", soak.parseTotal.percentile(0.50),
+                soak.parseTotal.percentile(0.95), soak.parseTotal.percentile(0.99), soak.parseTotal.max());
+        System.out.printf("%-12s %8.2f %8.2f %8.2f %8.2f%n", "generate", soak.generateTotal.percentile(0.50),
+                soak.generateTotal.percentile(0.95), soak.generateTotal.percentile(0.99), soak.generateTotal.max());
+        System.out.printf("%-12s %8.2f %8.2f %8.2f %8.2f%n", "employee", soak.employeeTotal.percentile(0.50),
+                soak.employeeTotal.percentile(0.95), soak.employeeTotal.percentile(0.99), soak.employeeTotal.max());
+        if (soak.fields.get() > 0) {
+            System.out.printf("Fields read as printed: %.2f%%%n", 100.0 * soak.fieldsRight.get() / soak.fields.get());
+        }
+        if (firstAfterGc[0] >= 0) {
+            System.out.printf("Heap after GC: %d MB at the first report, %d MB at the last%n", firstAfterGc[0], lastAfterGc[0]);
+        }
+        if (soak.firstError.get() != null) {
+            System.out.println("First failure: " + soak.firstError.get());
+        }
+        if (templatesDir != null) {
+            try (var paths = Files.walk(templatesDir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
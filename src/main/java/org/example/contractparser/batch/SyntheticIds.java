@@ -0,0 +1,451 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DetectText;
+import org.example.contractparser.OfflineOcr;
+import org.example.contractparser.procesing.Cnp;
+import org.example.contractparser.procesing.IdType;
+import org.example.contractparser.procesing.Mrz;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+import software.amazon.awssdk.services.textract.model.Geometry;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Made-up ID cards for load tests, since real cards may not leave HR and Textract is paid per page.
+ *
+ * <p>A card is the list of LINE blocks Textract would return for an old ({@link IdType#OLDID}, TD2 zone) or an
+ * electronic ({@link IdType#NEWID}, TD1 zone) Romanian ID, laid out the way the parsers read them, with a CNP
+ * and an MRZ whose check digits are valid. The fields a clean card must parse to are kept next to the blocks.
+ * Every card is derived from the seed and its index alone, so runs can be repeated and split over threads.</p>
+ *
+ * <p>{@code noise} is the chance that the OCR misreads one character: a look-alike ({@code 0} for {@code O},
+ * {@code K} for {@code <}), a dropped character or a stray space. Misread lines usually come back with a lower
+ * confidence, as from Textract. With any noise the MRZ also loses its trailing fillers and boxes move slightly,
+ * which the parsers are expected to cope with.</p>
+ *
+ * <pre>
+ * java -cp ContractParser.jar org.example.contractparser.batch.SyntheticIds --output=scans [--count=1000]
+ *      [--noise=0.01] [--old-share=0.5] [--seed=1] [--company=Robest] [--no-images]
+ * </pre>
+ *
+ * Writes {@code jobs.csv}, a rendered {@code .jpg} and an {@link OfflineOcr} transcript per card, so the batch can
+ * be run with {@code BatchRunner scans/jobs.csv --offline}.
+ */
+public class SyntheticIds {
+
+    private static final String[] SURNAMES = {"POPESCU", "POPA", "POP", "RADU", "IONESCU", "DUMITRU", "STAN",
+            "STOICA", "GHEORGHE", "MATEI", "CIOBANU", "RUSU", "MUNTEANU", "CONSTANTIN", "MOLDOVAN", "LUPU", "DINU",
+            "SERBAN", "BARBU", "FLOREA", "NISTOR", "TUDOR", "MARIN", "OPREA", "ENACHE", "ANDREI", "ILIE", "MIHAI",
+            "DOBRE", "SUCIU"};
+    private static final String[] MEN = {"ION", "ANDREI", "ALEXANDRU", "MIHAI", "GHEORGHE", "VASILE", "STEFAN",
+            "DANIEL", "ADRIAN", "GABRIEL", "CRISTIAN", "FLORIN", "MARIUS", "BOGDAN", "LUCIAN"};
+    private static final String[] WOMEN = {"MARIA", "ELENA", "IOANA", "ANA", "ANDREEA", "MIHAELA", "CRISTINA",
+            "GABRIELA", "DANIELA", "ALEXANDRA", "ROXANA", "IULIANA", "RALUCA", "OANA", "CORINA"};
+    /** County code, county and a one-word town of it, as the gazetteer spells them. */
+    private static final String[][] PLACES = {{"AR", "Arad", "Arad"}, {"BC", "Bacau", "Bacau"},
+            {"BH", "Bihor", "Oradea"}, {"BV", "Brasov", "Brasov"}, {"CJ", "Cluj", "Cluj-Napoca"},
+            {"CT", "Constanta", "Constanta"}, {"DJ", "Dolj", "Craiova"}, {"GL", "Galati", "Galati"},
+            {"IS", "Iasi", "Iasi"}, {"PH", "Prahova", "Ploiesti"}, {"SB", "Sibiu", "Sibiu"},
+            {"TM", "Timis", "Timisoara"}, {"SV", "Suceava", "Suceava"}, {"AG", "Arges", "Pitesti"},
+            {"HD", "Hunedoara", "Deva"}};
+    private static final String[] STREETS = {"Lunga", "Mihai Viteazu", "Eroilor", "Republicii", "Libertatii",
+            "Unirii", "Victoriei", "Primaverii", "Avram Iancu", "Mihai Eminescu", "Independentei", "Florilor",
+            "Morii", "Garii", "Pacii"};
+    private static final String[] STREET_PREFIXES = {"Str.", "Str.", "Str.", "Bd.", "Cal."};
+    /** A character of the first string is misread as the one under it. */
+    private static final String MISREAD = "O0I1S5B8Z2G6AE<";
+    private static final String MISREAD_AS = "0O1I5S8B2Z6G4FK";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("dd.MM.yy");
+    private static final DateTimeFormatter MRZ_DATE = DateTimeFormatter.ofPattern("yyMMdd");
+
+    /** Size of a card scanned at 300 dpi; boxes are fractions of it. */
+    private static final int IMAGE_WIDTH = 1012;
+    private static final int IMAGE_HEIGHT = 638;
+    private static final float CHAR_WIDTH = 0.6f * IMAGE_HEIGHT / IMAGE_WIDTH;
+
+    /** One generated card. */
+    public static final class Card {
+        private final IdType type;
+        private final List<DetectText.TextBlock> blocks;
+        private final ContractRecord expected;
+
+        Card(IdType type, List<DetectText.TextBlock> blocks, ContractRecord expected) {
+            this.type = type;
+            this.blocks = Collections.unmodifiableList(blocks);
+            this.expected = expected;
+        }
+
+        public IdType getType() {
+            return type;
+        }
+
+        /**
+         * @return the LINE blocks as Textract would return them, noise included
+         */
+        public List<DetectText.TextBlock> getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * @return the fields printed on the card, as the parser should read them without noise
+         */
+        public ContractRecord getExpected() {
+            return expected;
+        }
+
+        /**
+         * @return the blocks in the {@link OfflineOcr} transcript format
+         */
+        public List<String> transcript() {
+            List<String> lines = new ArrayList<>(blocks.size());
+            for (DetectText.TextBlock block : blocks) {
+                BoundingBox box = block.getGeometry().boundingBox();
+                lines.add(String.format(Locale.ROOT, "%s\t%.2f\t%.4f,%.4f,%.4f,%.4f", block.getText(),
+                        block.getConfidence(), box.left(), box.top(), box.width(), box.height()));
+            }
+            return lines;
+        }
+    }
+
+    private final long seed;
+    private final double noise;
+    private final double oldShare;
+
+    /**
+     * @param noise    chance of misreading each character, 0 for a perfect OCR
+     * @param oldShare share of old cards among those made by {@link #card(long)}
+     */
+    public SyntheticIds(long seed, double noise, double oldShare) {
+        this.seed = seed;
+        this.noise = noise;
+        this.oldShare = oldShare;
+    }
+
+    public Card card(long index) {
+        return card(index, random(index).nextDouble() < oldShare ? IdType.OLDID : IdType.NEWID);
+    }
+
+    public Card card(long index, IdType type) {
+        SplittableRandom random = random(index);
+        random.nextDouble(); // the type draw of card(long)
+        Person person = new Person(random);
+        return type == IdType.OLDID ? oldCard(person, random) : newCard(person, random);
+    }
+
+    private SplittableRandom random(long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+    }
+
+    /** Everything printed on a card, drawn once. */
+    private static final class Person {
+        final String surname;
+        final String givenNames;
+        final char sex;
+        final LocalDate birthDate;
+        final String[] birthPlace;
+        final String[] home;
+        final String cnp;
+        final String series;
+        final String number;
+        final LocalDate issued;
+        final LocalDate expires;
+        final String street;
+        final String streetNumber;
+        final String flat;
+
+        Person(SplittableRandom random) {
+            surname = pick(random, SURNAMES);
+            sex = random.nextBoolean() ? 'M' : 'F';
+            String[] names = sex == 'M' ? MEN : WOMEN;
+            String given = pick(random, names);
+            givenNames = random.nextInt(4) == 0 ? given + " " + pick(random, names) : given;
+            birthDate = LocalDate.of(1960, 1, 1).plusDays(random.nextInt(365 * 46));
+            birthPlace = pick(random, PLACES);
+            home = random.nextInt(3) == 0 ? pick(random, PLACES) : birthPlace;
+            cnp = cnp(random, sex, birthDate, birthPlace[1]);
+            series = home[0];
+            number = String.format("%06d", random.nextInt(1, 1_000_000));
+            issued = LocalDate.of(2016, 1, 1).plusDays(random.nextInt(365 * 9));
+            expires = issued.plusYears(10);
+            street = pick(random, STREET_PREFIXES) + pick(random, STREETS);
+            streetNumber = String.valueOf(random.nextInt(1, 120));
+            flat = random.nextInt(2) == 0 ? "" : " bl." + (char) ('A' + random.nextInt(8)) + random.nextInt(1, 20)
+                    + " sc." + random.nextInt(1, 4) + " et." + random.nextInt(0, 10) + " ap." + random.nextInt(1, 80);
+        }
+
+        String name() {
+            return surname + " " + givenNames;
+        }
+
+        String issuer() {
+            return "SPCLEP " + home[2];
+        }
+    }
+
+    /**
+     * @return a CNP that passes {@link Cnp#isValid(CharSequence)}
+     */
+    static String cnp(SplittableRandom random, char sex, LocalDate birthDate, String county) {
+        int countyCode = 1;
+        while (!county.equals(Cnp.countyName(countyCode))) {
+            countyCode++;
+        }
+        int first = (birthDate.getYear() >= 2000 ? 5 : 1) + (sex == 'M' ? 0 : 1);
+        String cnp = String.format("%d%s%02d%03d", first, birthDate.format(MRZ_DATE), countyCode, random.nextInt(1, 1000));
+        return cnp + Cnp.controlDigit(cnp);
+    }
+
+    /** Old card: bilingual labels above their values, the address on two lines and a TD2 zone. */
+    private Card oldCard(Person person, SplittableRandom random) {
+        List<DetectText.TextBlock> blocks = new ArrayList<>();
+        line(blocks, random, "ROMANIA", 0.30f, 0.03f, 0.05f);
+        line(blocks, random, "CARTE DE IDENTITATE", 0.30f, 0.09f, 0.04f);
+        line(blocks, random, "IDENTITY CARD", 0.30f, 0.135f, 0.03f);
+        line(blocks, random, "CNP " + person.cnp, 0.30f, 0.175f, 0.035f);
+        line(blocks, random, "SERIA " + person.series + " NR " + person.number, 0.65f, 0.175f, 0.035f);
+        line(blocks, random, "Nume/Nom/Last name", 0.30f, 0.225f, 0.022f);
+        line(blocks, random, person.surname, 0.30f, 0.25f, 0.035f);
+        line(blocks, random, "Prenume/Prenom/First name", 0.30f, 0.295f, 0.022f);
+        line(blocks, random, person.givenNames, 0.30f, 0.32f, 0.035f);
+        line(blocks, random, "Cetatenie/Nationalite/Nationality", 0.30f, 0.365f, 0.022f);
+        line(blocks, random, "Romana / ROU", 0.30f, 0.39f, 0.035f);
+        line(blocks, random, "Loc Nastere/Lieu de naissance/Place of birth", 0.30f, 0.435f, 0.022f);
+        line(blocks, random, "Jud." + person.birthPlace[0] + " Mun." + person.birthPlace[2], 0.30f, 0.46f, 0.035f);
+        line(blocks, random, "Domiciliu/Adresse/Address", 0.30f, 0.505f, 0.022f);
+        line(blocks, random, "Jud." + person.home[0] + " Mun." + person.home[2], 0.30f, 0.53f, 0.035f);
+        line(blocks, random, person.street + " nr." + person.streetNumber + person.flat, 0.30f, 0.57f, 0.035f);
+        line(blocks, random, "Emisa de/Delivree par/Issued by", 0.30f, 0.625f, 0.022f);
+        line(blocks, random, person.issuer(), 0.30f, 0.65f, 0.035f);
+        // next to the issuer as on the card, so the MRZ is the line under the dates
+        line(blocks, random, "Valabilitate/Validite/Validity", 0.62f, 0.625f, 0.022f);
+        line(blocks, random, person.issued.format(SHORT_DATE) + "-" + person.expires.format(DATE), 0.62f, 0.65f, 0.035f);
+
+        String document = person.series + person.number + "<";
+        String birth = person.birthDate.format(MRZ_DATE);
+        String expiry = person.expires.format(MRZ_DATE);
+        String optional = person.cnp.charAt(0) + person.cnp.substring(7);
+        String data = document + Mrz.checkDigit(document, 0, 9) + "ROU" + birth + Mrz.checkDigit(birth, 0, 6)
+                + person.sex + expiry + Mrz.checkDigit(expiry, 0, 6) + optional;
+        String composite = data.substring(0, 10) + data.substring(13, 20) + data.substring(21);
+        mrz(blocks, random, new String[]{
+                pad("IDROU" + mrzName(person), 36),
+                data + Mrz.checkDigit(composite, 0, composite.length())}, 0.80f);
+
+        String county = person.home[1];
+        ContractRecord expected = ContractRecord.builder()
+                .set(ContractField.NAME, person.name())
+                .set(ContractField.CNP, person.cnp)
+                .set(ContractField.BIRTH_DATE, person.birthDate.format(DATE))
+                .set(ContractField.BIRTH_PLACE, person.birthPlace[1])
+                .set(ContractField.SERIES, person.series)
+                .set(ContractField.NUMBER, person.number)
+                .set(ContractField.ISSUED_BY, person.issuer())
+                .set(ContractField.VALIDITY, person.issued.format(SHORT_DATE))
+                .set(ContractField.ADDRESS_COUNTY, county)
+                .set(ContractField.ADDRESS_CITY, person.home[2])
+                .set(ContractField.ADDRESS_STREET, person.street.substring(person.street.indexOf('.') + 1))
+                .set(ContractField.ADDRESS_NUMBER, person.streetNumber)
+                .build();
+        return new Card(IdType.OLDID, blocks, expected);
+    }
+
+    /** Electronic card: labels with a colon above their values and a TD1 zone holding the whole CNP. */
+    private Card newCard(Person person, SplittableRandom random) {
+        String birthPlace = "Jud. " + person.birthPlace[0] + " Mun. " + person.birthPlace[2];
+        String address = "Mun. " + person.home[2] + " " + person.street + " nr. " + person.streetNumber;
+        String[][] fields = {
+                {"Nume de familie:", person.surname},
+                {"Prenume:", person.givenNames},
+                {"CNP:", person.cnp},
+                {"Data nasterii:", person.birthDate.format(DATE)},
+                {"Locul nasterii:", birthPlace},
+                {"Numar document:", person.series + person.number},
+                {"Autoritatea emitenta:", person.issuer()},
+                {"Domiciliu:", address}};
+
+        List<DetectText.TextBlock> blocks = new ArrayList<>();
+        line(blocks, random, "ROMANIA", 0.35f, 0.03f, 0.05f);
+        line(blocks, random, "CARTE DE IDENTITATE / IDENTITY CARD", 0.35f, 0.09f, 0.035f);
+        float top = 0.15f;
+        for (String[] field : fields) {
+            line(blocks, random, field[0], 0.35f, top, 0.022f);
+            line(blocks, random, field[1], 0.35f, top + 0.027f, 0.032f);
+            top += 0.07f;
+        }
+
+        String document = pad(person.series + person.number, 9);
+        String first = "IDROU" + document + Mrz.checkDigit(document, 0, 9) + pad(person.cnp, 15);
+        String birth = person.birthDate.format(MRZ_DATE);
+        String expiry = person.expires.format(MRZ_DATE);
+        String second = birth + Mrz.checkDigit(birth, 0, 6) + person.sex + expiry + Mrz.checkDigit(expiry, 0, 6)
+                + "ROU" + pad("", 11);
+        String composite = first.substring(5) + second.substring(0, 7) + second.substring(8, 15) + second.substring(18);
+        mrz(blocks, random, new String[]{first, second + Mrz.checkDigit(composite, 0, composite.length()),
+                pad(mrzName(person), 30)}, 0.73f);
+
+        ContractRecord expected = ContractRecord.builder()
+                .set(ContractField.NAME, person.name())
+                .set(ContractField.CNP, person.cnp)
+                .set(ContractField.BIRTH_DATE, person.birthDate.format(DATE))
+                .set(ContractField.BIRTH_PLACE, birthPlace)
+                .set(ContractField.NUMBER, person.series + person.number)
+                .set(ContractField.ISSUED_BY, person.issuer())
+                .set(ContractField.ADDRESS, address)
+                .build();
+        return new Card(IdType.NEWID, blocks, expected);
+    }
+
+    private static String mrzName(Person person) {
+        return person.surname + "<<" + person.givenNames.replace(' ', '<');
+    }
+
+    private static String pad(String line, int length) {
+        StringBuilder sb = new StringBuilder(length).append(line, 0, Math.min(line.length(), length));
+        while (sb.length() < length) sb.append('<');
+        return sb.toString();
+    }
+
+    private void mrz(List<DetectText.TextBlock> blocks, SplittableRandom random, String[] lines, float top) {
+        for (String line : lines) {
+            if (noise > 0 && random.nextBoolean()) {
+                // Textract rarely returns all of the trailing fillers
+                int end = line.length();
+                while (end > 0 && line.charAt(end - 1) == '<') end--;
+                line = line.substring(0, Math.max(end, line.length() - random.nextInt(1, 8)));
+            }
+            line(blocks, random, line, 0.04f, top, 0.05f);
+            top += 0.08f;
+        }
+    }
+
+    private void line(List<DetectText.TextBlock> blocks, SplittableRandom random, String text,
+                      float left, float top, float height) {
+        float width = Math.min(0.99f - left, text.length() * CHAR_WIDTH * height);
+        float confidence = 95f + 4.9f * (float) random.nextDouble();
+        if (noise > 0) {
+            StringBuilder read = new StringBuilder(text.length() + 2);
+            int misread = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (random.nextDouble() >= noise) {
+                    read.append(c);
+                    continue;
+                }
+                misread++;
+                int kind = random.nextInt(10);
+                int look = MISREAD.indexOf(c);
+                if (kind < 7 && look != -1) {
+                    read.append(MISREAD_AS.charAt(look));
+                } else if (kind < 7 && Character.isLetter(c)) {
+                    read.append((char) ('A' + random.nextInt(26)));
+                } else if (kind < 9) {
+                    read.append(c).append(' ');
+                }
+                // otherwise the character is dropped
+            }
+            for (int k = 0; k < misread; k++) {
+                // Textract is usually, not always, less sure of a line it misread
+                if (random.nextInt(10) < 7) confidence -= 5f + 15f * (float) random.nextDouble();
+            }
+            text = read.toString().trim();
+            left += (float) (random.nextDouble() - 0.5) * 0.008f;
+            top += (float) (random.nextDouble() - 0.5) * 0.008f;
+        }
+        blocks.add(new DetectText.TextBlock(text, Math.max(confidence, 20f), Geometry.builder()
+                .boundingBox(BoundingBox.builder().left(left).top(top).width(width).height(height).build())
+                .build()));
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Draws the blocks of the card where their boxes are, dark text on a pale background.
+     */
+    public static BufferedImage render(Card card) {
+        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(card.getType() == IdType.OLDID ? new Color(0xE8EEF0) : new Color(0xEEF0E4));
+            g.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+            g.setColor(new Color(0xC8CCD0));
+            g.fillRect(30, 100, 250, 320); // the photo
+            g.setColor(new Color(0x202428));
+            for (DetectText.TextBlock block : card.getBlocks()) {
+                BoundingBox box = block.getGeometry().boundingBox();
+                boolean mrz = block.getText().indexOf('<') != -1;
+                int size = Math.round(box.height() * IMAGE_HEIGHT * 0.85f);
+                g.setFont(new Font(mrz ? Font.MONOSPACED : Font.SANS_SERIF, mrz ? Font.PLAIN : Font.BOLD, size));
+                g.drawString(block.getText(), box.left() * IMAGE_WIDTH, (box.top() + box.height()) * IMAGE_HEIGHT);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = null;
+        int count = 1000;
+        double noise = 0.01;
+        double oldShare = 0.5;
+        long seed = 1;
+        String company = BatchBenchmark.COMPANY;
+        boolean images = true;
+        for (String arg : args) {
+            if (arg.startsWith("--output=")) output = Path.of(arg.substring("--output=".length()));
+            else if (arg.startsWith("--count=")) count = Integer.parseInt(arg.substring("--count=".length()));
+            else if (arg.startsWith("--noise=")) noise = Double.parseDouble(arg.substring("--noise=".length()));
+            else if (arg.startsWith("--old-share=")) oldShare = Double.parseDouble(arg.substring("--old-share=".length()));
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            else if (arg.startsWith("--company=")) company = arg.substring("--company=".length());
+            else if (arg.equals("--no-images")) images = false;
+            else {
+                System.err.println("Unknown option " + arg);
+                System.exit(2);
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: SyntheticIds --output=dir [--count=N] [--noise=0.01] [--old-share=0.5] [--seed=N] [--company=name] [--no-images]");
+            System.exit(2);
+        }
+
+        Files.createDirectories(output);
+        SyntheticIds ids = new SyntheticIds(seed, noise, oldShare);
+        List<BatchJob> jobs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Card card = ids.card(i);
+            String image = String.format("id-%06d.jpg", i);
+            Path imagePath = output.resolve(image);
+            if (images) {
+                ImageIO.write(render(card), "jpg", imagePath.toFile());
+            }
+            Files.write(OfflineOcr.transcriptOf(imagePath.toString()), card.transcript(), StandardCharsets.UTF_8);
+            jobs.add(new BatchJob(image, card.getType(), (1000 + 2 * i) + "/01.01.2025",
+                    String.format("07%08d", i), "Depozit", "Cluj-Napoca", company));
+        }
+        BatchFile.write(output.resolve("jobs.csv"), jobs);
+        System.out.printf("Wrote %d cards to %s, OCR noise %.3f%n", count, output.toAbsolutePath(), noise);
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.contractparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Writing one generated document: compressing its ZIP entries into the output stream.
+ */
+@Name("org.example.contractparser.DocumentWrite")
+@Label("Document Write")
+@Category({"Contract Parser", "Documents"})
+@Description("Compressing and writing one generated .docx")
+@StackTrace(false)
+public final class DocumentWriteEvent extends jdk.jfr.Event {
+
+    @Label("Template")
+    public String template;
+
+    @Label("Parts")
+    public int parts;
+
+    @Label("Uncompressed Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,36 @@
+package org.example.contractparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reading a scan from disk, either as raw bytes for Textract or decoded into pixels for the perceptual hash.
+ */
+@Name("org.example.contractparser.ImageLoad")
+@Label("Image Load")
+@Category({"Contract Parser", "OCR"})
+@Description("Reading an ID scan from disk")
+@StackTrace(false)
+public final class ImageLoadEvent extends jdk.jfr.Event {
+
+    @Label("Image")
+    public String image;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Decoded")
+    @Description("The pixels were decoded, not only the file bytes read")
+    public boolean decoded;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+}
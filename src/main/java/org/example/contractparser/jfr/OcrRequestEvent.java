@@ -0,0 +1,42 @@
+package org.example.contractparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One OCR call of an {@link org.example.contractparser.OcrClient}: a Textract request, an offline transcript or
+ * a lookup in the OCR cache.
+ */
+@Name("org.example.contractparser.OcrRequest")
+@Label("OCR Request")
+@Category({"Contract Parser", "OCR"})
+@Description("Text detection for one ID scan")
+@StackTrace(false)
+public final class OcrRequestEvent extends jdk.jfr.Event {
+
+    @Label("Client")
+    @Description("Textract, Offline or Cache")
+    public String client;
+
+    @Label("Image")
+    public String image;
+
+    @Label("Request Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Blocks")
+    @Description("Text lines returned")
+    public int blocks;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Hash Distance")
+    @Description("Bits between the scan and the cached one; 0 for the same file, more for a near hit sent to review")
+    public int distance;
+}
@@ -0,0 +1,31 @@
+package org.example.contractparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Turning the OCR text blocks of one ID into a record, by the old or the new ID parser.
+ */
+@Name("org.example.contractparser.Parse")
+@Label("ID Parse")
+@Category({"Contract Parser", "Parsing"})
+@Description("Extracting the fields of one ID from its text blocks")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+
+    @Label("ID Type")
+    public String idType;
+
+    @Label("Blocks")
+    public int blocks;
+
+    @Label("Fields")
+    @Description("Fields read from the ID")
+    public int fields;
+
+    @Label("Lowest Confidence")
+    public float minConfidence;
+}
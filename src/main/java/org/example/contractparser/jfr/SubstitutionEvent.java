@@ -0,0 +1,30 @@
+package org.example.contractparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Escaping the record values that go into the placeholders of one document.
+ */
+@Name("org.example.contractparser.Substitution")
+@Label("Substitution")
+@Category({"Contract Parser", "Documents"})
+@StackTrace(false)
+public final class SubstitutionEvent extends jdk.jfr.Event {
+
+    @Label("Template")
+    public String template;
+
+    @Label("Placeholders")
+    public int placeholders;
+
+    @Label("Missing Values")
+    public int missing;
+
+    @Label("Value Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,33 @@
+package org.example.contractparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Compiling a .docx template: parsing it with POI and XMLBeans and cutting its XML at the placeholders.
+ */
+@Name("org.example.contractparser.TemplateLoad")
+@Label("Template Load")
+@Category({"Contract Parser", "Documents"})
+@Description("Parsing and compiling one .docx template")
+@StackTrace(false)
+public final class TemplateLoadEvent extends jdk.jfr.Event {
+
+    @Label("Template")
+    public String template;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Parts")
+    @Description("ZIP entries of the template")
+    public int parts;
+
+    @Label("Placeholders")
+    public int placeholders;
+}
@@ -0,0 +1,53 @@
+package org.example.contractparser.procesing;
+
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DetectText;
+import org.example.contractparser.OcrClient;
+import org.example.contractparser.jfr.ParseEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs OCR on the image and hands the text blocks to {@link #parse(List)}.
+ */
+abstract class AbstractIdParser implements UserMapParser {
+
+    private final OcrClient ocrClient;
+
+    /**
+     * @param ocrClient shared OCR client, or {@code null} to create a Textract client per image
+     */
+    AbstractIdParser(OcrClient ocrClient) {
+        this.ocrClient = ocrClient;
+    }
+
+    @Override
+    public ContractRecord extractRecord(String imagePath) throws IOException {
+        List<DetectText.TextBlock> blocks = readBlocks(imagePath);
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        ContractRecord record = parse(blocks);
+        event.end();
+        if (event.shouldCommit()) {
+            event.idType = getClass().getSimpleName();
+            event.blocks = blocks.size();
+            event.fields = record.toMap().size();
+            event.minConfidence = record.getMinConfidence();
+            event.commit();
+        }
+        return record;
+    }
+
+    private List<DetectText.TextBlock> readBlocks(String imagePath) throws IOException {
+        if (ocrClient != null) {
+            return ocrClient.extractTextBlocks(imagePath);
+        }
+        DetectText detectText = new DetectText();
+        try {
+            return detectText.extractTextBlocks(imagePath);
+        } finally {
+            detectText.close();
+        }
+    }
+}
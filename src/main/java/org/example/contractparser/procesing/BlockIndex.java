@@ -0,0 +1,140 @@
+package org.example.contractparser.procesing;
+
+import org.example.contractparser.DetectText.TextBlock;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Spatial lookup over the OCR blocks of one card, used to find the value that belongs to a label
+ * ("the block right of X" or "the block below X") instead of trusting the order Textract returned.
+ *
+ * <p>Blocks are sorted by their top edge once; each query binary-searches the rows it cares about
+ * and only looks at the few blocks on them. When a block has no geometry, all blocks are laid out
+ * one under the other in the order they were returned, which matches the old "next line" behaviour.</p>
+ */
+final class BlockIndex {
+
+    private final List<TextBlock> blocks;
+    private final float[] left;
+    private final float[] top;
+    private final float[] right;
+    private final float[] bottom;
+    private final Integer[] byTop;
+    private final float[] sortedTop;
+
+    BlockIndex(List<TextBlock> blocks) {
+        this.blocks = blocks;
+        int n = blocks.size();
+        left = new float[n];
+        top = new float[n];
+        right = new float[n];
+        bottom = new float[n];
+
+        boolean hasGeometry = blocks.stream().allMatch(b -> b.getGeometry() != null && b.getGeometry().boundingBox() != null);
+        for (int i = 0; i < n; i++) {
+            if (hasGeometry) {
+                BoundingBox box = blocks.get(i).getGeometry().boundingBox();
+                left[i] = box.left();
+                top[i] = box.top();
+                right[i] = box.left() + box.width();
+                bottom[i] = box.top() + box.height();
+            } else {
+                left[i] = 0f;
+                top[i] = i;
+                right[i] = 1f;
+                bottom[i] = i + 0.8f;
+            }
+        }
+
+        byTop = new Integer[n];
+        for (int i = 0; i < n; i++) byTop[i] = i;
+        Arrays.sort(byTop, Comparator.comparingDouble((Integer i) -> top[i]).thenComparingInt(i -> i));
+        sortedTop = new float[n];
+        for (int k = 0; k < n; k++) sortedTop[k] = top[byTop[k]];
+    }
+
+    int size() {
+        return blocks.size();
+    }
+
+    TextBlock get(int index) {
+        return blocks.get(index);
+    }
+
+    /**
+     * @return the closest block on the same row that starts right of the label, or -1
+     */
+    int rightOf(int label) {
+        return rightOf(label, j -> true);
+    }
+
+    /**
+     * @return the closest block on the same row that starts right of the label and is accepted, or -1
+     */
+    int rightOf(int label, IntPredicate accept) {
+        float height = bottom[label] - top[label];
+        float centerY = (top[label] + bottom[label]) / 2;
+        float minLeft = (left[label] + right[label]) / 2;
+
+        int best = -1;
+        for (int k = lowerBound(top[label] - height); k < sortedTop.length && sortedTop[k] <= centerY; k++) {
+            int j = byTop[k];
+            if (j != label && bottom[j] >= centerY && left[j] >= minLeft && (best == -1 || left[j] < left[best])
+                    && accept.test(j)) {
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the nearest block under the label that overlaps it horizontally, or -1
+     */
+    int below(int label) {
+        return below(label, j -> true);
+    }
+
+    /**
+     * @return the nearest accepted block under the label that overlaps it horizontally, or -1
+     */
+    int below(int label, IntPredicate accept) {
+        float height = bottom[label] - top[label];
+        for (int k = lowerBound(top[label] + height / 2); k < sortedTop.length; k++) {
+            int j = byTop[k];
+            if (j != label && left[j] < right[label] && right[j] > left[label] && accept.test(j)) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the block right of the label, or the one below it, or -1
+     */
+    int valueOf(int label) {
+        return valueOf(label, j -> true);
+    }
+
+    /**
+     * @return the accepted block right of the label, or the accepted one below it, or -1
+     */
+    int valueOf(int label, IntPredicate accept) {
+        int value = rightOf(label, accept);
+        return value != -1 ? value : below(label, accept);
+    }
+
+    private int lowerBound(float y) {
+        int lo = 0;
+        int hi = sortedTop.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedTop[mid] < y) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.contractparser.procesing;
+
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Validates and decodes a Romanian personal numeric code (CNP), {@code S YY MM DD JJ NNN C}.
+ *
+ * <p>All checks work directly on a {@link CharSequence} and return primitives, so re-validating millions
+ * of stored CNPs does not allocate. Only {@link #formatBirthDate(CharSequence)} builds a string.</p>
+ */
+public final class Cnp {
+
+    public static final int LENGTH = 13;
+    private static final int[] CONTROL_KEY = {2, 7, 9, 1, 4, 6, 3, 5, 8, 2, 7, 9};
+    private static final int PIVOT_YEAR = Year.now().getValue() % 100;
+
+    private static final String[] COUNTIES = new String[53];
+
+    static {
+        String[] names = {"Alba", "Arad", "Arges", "Bacau", "Bihor", "Bistrita-Nasaud", "Botosani", "Brasov",
+                "Braila", "Buzau", "Caras-Severin", "Cluj", "Constanta", "Covasna", "Dambovita", "Dolj", "Galati",
+                "Gorj", "Harghita", "Hunedoara", "Ialomita", "Iasi", "Ilfov", "Maramures", "Mehedinti", "Mures",
+                "Neamt", "Olt", "Prahova", "Satu Mare", "Salaj", "Sibiu", "Suceava", "Teleorman", "Timis", "Tulcea",
+                "Vaslui", "Valcea", "Vrancea"};
+        for (int i = 0; i < names.length; i++) {
+            COUNTIES[i + 1] = names[i];
+        }
+        // Bucharest and its sectors (47 and 48 were used before 1979)
+        for (int code = 40; code <= 48; code++) {
+            COUNTIES[code] = "Bucuresti";
+        }
+        COUNTIES[51] = "Calarasi";
+        COUNTIES[52] = "Giurgiu";
+    }
+
+    private Cnp() {
+    }
+
+    /**
+     * @return true for 13 digits with a valid sex/century digit, calendar date, county and control digit
+     */
+    public static boolean isValid(CharSequence cnp) {
+        if (cnp == null || cnp.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = cnp.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        if (cnp.charAt(0) == '0' || countyName(countyCode(cnp)) == null || number(cnp, 9, 3) == 0) {
+            return false;
+        }
+        int year = birthYear(cnp);
+        int month = birthMonth(cnp);
+        int day = birthDay(cnp);
+        if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return false;
+        }
+        return controlDigit(cnp) == cnp.charAt(12) - '0';
+    }
+
+    /**
+     * @return the expected last digit, computed from the first twelve
+     */
+    public static int controlDigit(CharSequence cnp) {
+        int sum = 0;
+        for (int i = 0; i < CONTROL_KEY.length; i++) {
+            sum += (cnp.charAt(i) - '0') * CONTROL_KEY[i];
+        }
+        int rest = sum % 11;
+        return rest == 10 ? 1 : rest;
+    }
+
+    /**
+     * Decodes the century from the first digit: 1/2 for 1900, 3/4 for 1800, 5/6 for 2000. Residents (7/8)
+     * and foreigners (9) carry no century, so two-digit years up to the current one are taken as 2000s.
+     */
+    public static int birthYear(CharSequence cnp) {
+        int yy = number(cnp, 1, 2);
+        return switch (cnp.charAt(0)) {
+            case '1', '2' -> 1900 + yy;
+            case '3', '4' -> 1800 + yy;
+            case '5', '6' -> 2000 + yy;
+            default -> yy <= PIVOT_YEAR ? 2000 + yy : 1900 + yy;
+        };
+    }
+
+    public static int birthMonth(CharSequence cnp) {
+        return number(cnp, 3, 2);
+    }
+
+    public static int birthDay(CharSequence cnp) {
+        return number(cnp, 5, 2);
+    }
+
+    /**
+     * @return 'M', 'F', or '?' for foreign citizens
+     */
+    public static char sex(CharSequence cnp) {
+        char s = cnp.charAt(0);
+        if (s == '9') return '?';
+        return (s - '0') % 2 == 1 ? 'M' : 'F';
+    }
+
+    public static int countyCode(CharSequence cnp) {
+        return number(cnp, 7, 2);
+    }
+
+    /**
+     * @return the county for a code, or {@code null} when the code is not assigned
+     */
+    public static String countyName(int countyCode) {
+        return countyCode > 0 && countyCode < COUNTIES.length ? COUNTIES[countyCode] : null;
+    }
+
+    /**
+     * @return the birth date as {@code dd.MM.yyyy}
+     */
+    public static String formatBirthDate(CharSequence cnp) {
+        int day = birthDay(cnp);
+        int month = birthMonth(cnp);
+        return (day < 10 ? "0" : "") + day + "." + (month < 10 ? "0" : "") + month + "." + birthYear(cnp);
+    }
+
+    /**
+     * Cross-checks a parsed record against its CNP. A CNP that fails validation is given zero confidence so the
+     * record goes to review. A valid one overrides a misread birth date and fills a missing birth place with the
+     * county it was issued in.
+     */
+    public static void apply(ContractRecord.Builder record) {
+        String cnp = record.get(ContractField.CNP);
+        if (cnp == null) {
+            return;
+        }
+        float cnpConfidence = record.getConfidence(ContractField.CNP);
+        if (!isValid(cnp)) {
+            record.set(ContractField.CNP, cnp, 0f);
+            return;
+        }
+
+        String birthDate = formatBirthDate(cnp);
+        if (!birthDate.equals(record.get(ContractField.BIRTH_DATE))) {
+            record.set(ContractField.BIRTH_DATE, birthDate, cnpConfidence);
+        }
+        String birthPlace = record.get(ContractField.BIRTH_PLACE);
+        String county = countyName(countyCode(cnp));
+        if (birthPlace == null || birthPlace.isBlank() || birthPlace.equals("-")) {
+            record.set(ContractField.BIRTH_PLACE, county, cnpConfidence);
+        }
+    }
+
+    private static int number(CharSequence s, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,314 @@
+package org.example.contractparser.procesing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Offline list of Romanian counties, localities and street prefixes, used to turn OCR'd place names
+ * into their canonical spelling ("CJ" or "Cluj" -> "Cluj", "Timișoara" -> "Timisoara").
+ *
+ * <p>Only exact matches, after normalization, are corrections. The list holds the county seats and larger towns,
+ * about a hundred of the country's thirteen thousand localities, so a name a few edits from a listed one
+ * ("Tulca" -> "Tulcea") is as likely a real place that is not listed as a misread one; such a {@link Match} is
+ * only a suggestion for the clerk to confirm. Localities are also kept per county, so a place whose county was
+ * read is only matched against that county's localities and same-named places elsewhere do not mix.</p>
+ *
+ * <p>Names are kept in array-backed tries keyed by a normalized form (upper case, no diacritics, no dots,
+ * dashes read as spaces). A lookup walks the trie once and keeps one edit-distance row per visited node,
+ * so branches that are already too far from the input are never expanded.</p>
+ */
+public final class Gazetteer {
+
+    private static final String RESOURCE = "/org/example/contractparser/gazetteer.txt";
+    private static volatile Gazetteer defaultGazetteer;
+
+    private final Trie counties = new Trie();
+    private final Trie localities = new Trie();
+    private final Map<String, Trie> localitiesByCounty = new HashMap<>();
+    private final Map<String, String> countyCodes = new HashMap<>();
+    private final List<String> streetPrefixes = new ArrayList<>();
+
+    /** Confidence given to a field filled from a {@linkplain Match#isExact() fuzzy} match, under any review threshold. */
+    public static final float SUGGESTION_CONFIDENCE = 50f;
+
+    /**
+     * A listed name and how many edits the text was away from it.
+     */
+    public static final class Match {
+        private final String name;
+        private final int distance;
+
+        Match(String name, int distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return true when the text is the listed name up to case, diacritics and punctuation
+         */
+        public boolean isExact() {
+            return distance == 0;
+        }
+
+        @Override
+        public String toString() {
+            return name + (isExact() ? "" : " (" + distance + " edits)");
+        }
+    }
+
+    private Gazetteer() {
+    }
+
+    /**
+     * @return the gazetteer bundled with the application, loaded on first use
+     */
+    public static Gazetteer getDefault() {
+        Gazetteer gazetteer = defaultGazetteer;
+        if (gazetteer == null) {
+            synchronized (Gazetteer.class) {
+                gazetteer = defaultGazetteer;
+                if (gazetteer == null) {
+                    try (InputStream in = Gazetteer.class.getResourceAsStream(RESOURCE)) {
+                        if (in == null) {
+                            throw new IOException("Lipseste resursa " + RESOURCE);
+                        }
+                        gazetteer = load(in);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    defaultGazetteer = gazetteer;
+                }
+            }
+        }
+        return gazetteer;
+    }
+
+    /**
+     * Reads lines of {@code J;county;code}, {@code L;locality;county code} and {@code S;prefix;full name}.
+     * Empty lines and lines starting with {@code #} are skipped.
+     */
+    public static Gazetteer load(InputStream in) throws IOException {
+        Gazetteer gazetteer = new Gazetteer();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split(";");
+            if (parts.length < 3) continue;
+
+            switch (parts[0]) {
+                case "J" -> {
+                    gazetteer.counties.put(normalize(parts[1]), parts[1]);
+                    gazetteer.countyCodes.put(parts[2].toUpperCase(Locale.ROOT), parts[1]);
+                }
+                case "L" -> {
+                    gazetteer.localities.put(normalize(parts[1]), parts[1]);
+                    // counties are listed first, so the code of a locality resolves to its county's name
+                    String county = gazetteer.countyCodes.getOrDefault(parts[2].toUpperCase(Locale.ROOT), parts[2]);
+                    gazetteer.localitiesByCounty.computeIfAbsent(county, c -> new Trie()).put(normalize(parts[1]), parts[1]);
+                }
+                case "S" -> gazetteer.streetPrefixes.add(parts[1]);
+                default -> System.err.println("Linie necunoscuta in gazetteer: " + line);
+            }
+        }
+        gazetteer.counties.trim();
+        gazetteer.localities.trim();
+        gazetteer.localitiesByCounty.values().forEach(Trie::trim);
+        return gazetteer;
+    }
+
+    /**
+     * @param text county name or its two-letter code as read from the ID
+     * @return the closest county, or {@code null} when nothing is close enough
+     */
+    public Match county(String text) {
+        if (text == null) return null;
+        String code = countyCodes.get(text.trim().toUpperCase(Locale.ROOT));
+        if (code != null) {
+            return new Match(code, 0);
+        }
+        return counties.closest(normalize(text));
+    }
+
+    /**
+     * @return the closest listed locality, or {@code null} when nothing is close enough
+     */
+    public Match locality(String text) {
+        if (text == null) return null;
+        return localities.closest(normalize(text));
+    }
+
+    /**
+     * @param county the county read next to the locality, or {@code null} when none was read
+     * @return the closest locality of that county, or of any county when the county is not listed;
+     * {@code null} when nothing is close enough
+     */
+    public Match locality(String text, String county) {
+        Match countyMatch = county(county);
+        if (countyMatch == null || !countyMatch.isExact()) {
+            return locality(text);
+        }
+        if (text == null) return null;
+        Trie trie = localitiesByCounty.get(countyMatch.getName());
+        return trie != null ? trie.closest(normalize(text)) : null;
+    }
+
+    /**
+     * @return street prefixes as printed on IDs, for example {@code Str.} or {@code Bd.}
+     */
+    public List<String> streetPrefixes() {
+        return Collections.unmodifiableList(streetPrefixes);
+    }
+
+    /**
+     * Upper case without diacritics, dots or repeated spaces; dashes count as spaces.
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toUpperCase(text.charAt(i));
+            c = switch (c) {
+                case 'Ă', 'Â' -> 'A';
+                case 'Î' -> 'I';
+                case 'Ș', 'Ş' -> 'S';
+                case 'Ț', 'Ţ' -> 'T';
+                case '-', '_', ',' -> ' ';
+                default -> c;
+            };
+            if (c == '.') continue;
+            if (c == ' ' && (sb.length() == 0 || sb.charAt(sb.length() - 1) == ' ')) continue;
+            sb.append(c);
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') sb.setLength(end - 1);
+        return sb.toString();
+    }
+
+    /**
+     * Short names are matched exactly, longer ones allow one typo per four characters, up to two.
+     */
+    static int maxDistance(int length) {
+        return length <= 3 ? 0 : Math.min(2, length / 4);
+    }
+
+
+    /**
+     * Trie stored as parallel arrays; children of a node form a linked list through {@code nextSibling}.
+     */
+    private static final class Trie {
+        private char[] labels = new char[256];
+        private int[] firstChild = new int[256];
+        private int[] nextSibling = new int[256];
+        private int[] valueOf = new int[256];
+        private int size = 1;
+        private final List<String> values = new ArrayList<>();
+
+        Trie() {
+            firstChild[0] = -1;
+            nextSibling[0] = -1;
+            valueOf[0] = -1;
+        }
+
+        void put(String key, String value) {
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                node = child(node, key.charAt(i));
+            }
+            if (valueOf[node] == -1) {
+                valueOf[node] = values.size();
+                values.add(value);
+            }
+        }
+
+        Match closest(String key) {
+            if (key.isEmpty()) return null;
+            int limit = maxDistance(key.length());
+
+            int[] row = new int[key.length() + 1];
+            for (int i = 0; i < row.length; i++) row[i] = i;
+            int[] best = {-1, limit + 1};
+            for (int c = firstChild[0]; c != -1; c = nextSibling[c]) {
+                search(c, key, row, best);
+            }
+            return best[0] != -1 ? new Match(values.get(best[0]), best[1]) : null;
+        }
+
+        /**
+         * Fills the edit-distance row of a node from its parent's row and recurses while the row can
+         * still reach a distance under the best match found so far.
+         */
+        private void search(int node, String key, int[] previous, int[] best) {
+            int[] row = new int[previous.length];
+            row[0] = previous[0] + 1;
+            int min = row[0];
+            for (int i = 1; i < row.length; i++) {
+                int cost = key.charAt(i - 1) == labels[node] ? 0 : 1;
+                row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                min = Math.min(min, row[i]);
+            }
+
+            int distance = row[row.length - 1];
+            if (valueOf[node] != -1 && distance < best[1]) {
+                best[0] = valueOf[node];
+                best[1] = distance;
+            }
+            if (min < best[1]) {
+                for (int c = firstChild[node]; c != -1; c = nextSibling[c]) {
+                    search(c, key, row, best);
+                }
+            }
+        }
+
+        private int child(int node, char label) {
+            int last = -1;
+            for (int c = firstChild[node]; c != -1; c = nextSibling[c]) {
+                if (labels[c] == label) return c;
+                last = c;
+            }
+            if (size == labels.length) grow();
+            int created = size++;
+            labels[created] = label;
+            firstChild[created] = -1;
+            nextSibling[created] = -1;
+            valueOf[created] = -1;
+            if (last == -1) firstChild[node] = created;
+            else nextSibling[last] = created;
+            return created;
+        }
+
+        private void grow() {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            valueOf = Arrays.copyOf(valueOf, capacity);
+        }
+
+        void trim() {
+            labels = Arrays.copyOf(labels, size);
+            firstChild = Arrays.copyOf(firstChild, size);
+            nextSibling = Arrays.copyOf(nextSibling, size);
+            valueOf = Arrays.copyOf(valueOf, size);
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package org.example.contractparser.procesing;
 
+import org.example.contractparser.OcrClient;
+
 public class IdFactory {
 
     public static UserMapParser createIdParser(IdType idType) {
+        return createIdParser(idType, null);
+    }
+
+    public static UserMapParser createIdParser(IdType idType, OcrClient ocrClient) {
         if (idType.equals(IdType.NEWID)) {
-            return new NewId();
+            return new NewId(ocrClient);
         }
         else if (idType.equals(IdType.OLDID)) {
-            return new OldId();
+            return new OldId(ocrClient);
         }
         throw new IllegalArgumentException("Unsupported ID type: " + idType);
     }
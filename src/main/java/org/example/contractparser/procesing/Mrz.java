@@ -0,0 +1,292 @@
+package org.example.contractparser.procesing;
+
+import java.util.List;
+
+/**
+ * Decodes the machine readable zone of an ID card and verifies its check digits.
+ *
+ * <p>Romanian identity cards issued before 2021 print a TD2 zone (two lines of 36 characters); the electronic
+ * cards print a TD1 zone (three lines of 30). Both are supported. OCR often drops trailing {@code <} fillers and
+ * inserts spaces, so candidate lines are compacted and padded back to their length before decoding. Check digits
+ * are computed straight over the lines; strings are only created for the decoded fields.</p>
+ */
+public final class Mrz {
+
+    public enum Format {
+        TD1(3, 30),
+        TD2(2, 36);
+
+        final int lines;
+        final int length;
+
+        Format(int lines, int length) {
+            this.lines = lines;
+            this.length = length;
+        }
+    }
+
+    private static final int[] WEIGHTS = {7, 3, 1};
+
+    private final Format format;
+    private final int firstLine;
+    private final String documentCode;
+    private final String issuingState;
+    private final String surname;
+    private final String givenNames;
+    private final String documentNumber;
+    private final String nationality;
+    private final String birthDate;
+    private final char sex;
+    private final String expiryDate;
+    private final String optionalData;
+    private final boolean documentNumberValid;
+    private final boolean birthDateValid;
+    private final boolean expiryDateValid;
+    private final boolean compositeValid;
+
+    private Mrz(Format format, int firstLine, String[] lines) {
+        this.format = format;
+        this.firstLine = firstLine;
+        String first = lines[0];
+        String second = lines[1];
+        documentCode = field(first, 0, 2);
+        issuingState = field(first, 2, 3);
+
+        String nameLine;
+        int nameStart;
+        if (format == Format.TD2) {
+            nameLine = first;
+            nameStart = 5;
+            documentNumber = field(second, 0, 9);
+            documentNumberValid = checks(second, 0, 9, second.charAt(9));
+            nationality = field(second, 10, 3);
+            birthDate = second.substring(13, 19);
+            birthDateValid = checks(second, 13, 6, second.charAt(19));
+            sex = second.charAt(20);
+            expiryDate = second.substring(21, 27);
+            expiryDateValid = checks(second, 21, 6, second.charAt(27));
+            optionalData = field(second, 28, 7);
+            // composite over number, birth date, expiry and optional data, each with its check digit
+            compositeValid = digit(second.charAt(35)) == (weightedSum(0, second, 0, 10)
+                    + weightedSum(10, second, 13, 7) + weightedSum(17, second, 21, 14)) % 10;
+        } else {
+            String third = lines[2];
+            nameLine = third;
+            nameStart = 0;
+            documentNumber = field(first, 5, 9);
+            documentNumberValid = checks(first, 5, 9, first.charAt(14));
+            birthDate = second.substring(0, 6);
+            birthDateValid = checks(second, 0, 6, second.charAt(6));
+            sex = second.charAt(7);
+            expiryDate = second.substring(8, 14);
+            expiryDateValid = checks(second, 8, 6, second.charAt(14));
+            nationality = field(second, 15, 3);
+            optionalData = (field(first, 15, 15) + " " + field(second, 18, 11)).trim();
+            compositeValid = digit(second.charAt(29)) == (weightedSum(0, first, 5, 25) + weightedSum(25, second, 0, 7)
+                    + weightedSum(32, second, 8, 7) + weightedSum(39, second, 18, 11)) % 10;
+        }
+
+        int separator = nameLine.indexOf("<<", nameStart);
+        if (separator == -1) {
+            surname = field(nameLine, nameStart, nameLine.length() - nameStart);
+            givenNames = "";
+        } else {
+            surname = field(nameLine, nameStart, separator - nameStart);
+            givenNames = field(nameLine, separator + 2, nameLine.length() - separator - 2);
+        }
+    }
+
+    /**
+     * Looks for a TD2 zone, then a TD1 zone, among OCR'd lines.
+     *
+     * @return the first zone whose check digits are all valid, or {@code null}
+     */
+    public static Mrz find(List<String> lines) {
+        return find(lines, true);
+    }
+
+    /**
+     * Like {@link #find}, but also returns a zone of the right shape whose check digits fail, so its fields can be
+     * offered for review. Check {@link #isValid()} before trusting anything read from it.
+     *
+     * @return the first valid zone, else the first zone of the right shape, or {@code null}
+     */
+    public static Mrz findUnverified(List<String> lines) {
+        Mrz mrz = find(lines, true);
+        return mrz != null ? mrz : find(lines, false);
+    }
+
+    private static Mrz find(List<String> lines, boolean verified) {
+        for (Format format : new Format[]{Format.TD2, Format.TD1}) {
+            for (int i = 0; i + format.lines <= lines.size(); i++) {
+                String[] candidate = new String[format.lines];
+                boolean complete = true;
+                for (int k = 0; k < format.lines && complete; k++) {
+                    candidate[k] = compact(lines.get(i + k), format.length);
+                    complete = candidate[k] != null;
+                }
+                if (!complete || "IAC".indexOf(candidate[0].charAt(0)) == -1) {
+                    continue;
+                }
+                Mrz mrz = new Mrz(format, i, candidate);
+                if (mrz.isValid() || !verified) {
+                    return mrz;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes spaces and pads dropped fillers; name lines often lose most of theirs.
+     *
+     * @return the line at exactly {@code length} characters, or {@code null} if it cannot be an MRZ line
+     */
+    static String compact(String line, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ' ') continue;
+            if (c == '«') { // common OCR misread of "<<"
+                sb.append("<<");
+                continue;
+            }
+            if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '<')) return null;
+            sb.append(c);
+        }
+        if (sb.length() > length || sb.length() < length / 2 || sb.indexOf("<") == -1) {
+            return null;
+        }
+        while (sb.length() < length) sb.append('<');
+        return sb.toString();
+    }
+
+    /**
+     * ICAO 9303 check digit of {@code length} characters starting at {@code start}.
+     */
+    public static int checkDigit(CharSequence s, int start, int length) {
+        return weightedSum(0, s, start, length) % 10;
+    }
+
+    private static boolean checks(CharSequence s, int start, int length, char check) {
+        return digit(check) == checkDigit(s, start, length);
+    }
+
+    /**
+     * Weighted sum of a range whose first character is at {@code position} of the checked data.
+     */
+    private static int weightedSum(int position, CharSequence s, int start, int length) {
+        int sum = 0;
+        for (int i = start; i < start + length; i++) {
+            sum += value(s.charAt(i)) * WEIGHTS[position++ % 3];
+        }
+        return sum;
+    }
+
+    private static int value(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 10;
+        return 0;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    /**
+     * @return the characters of the range with fillers turned into single spaces and trimmed
+     */
+    private static String field(String line, int start, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = start; i < start + length; i++) {
+            char c = line.charAt(i);
+            if (c == '<') {
+                if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    public boolean isValid() {
+        return documentNumberValid && birthDateValid && expiryDateValid && compositeValid;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return index of the first MRZ line in the list given to {@link #find(List)}
+     */
+    public int getFirstLine() {
+        return firstLine;
+    }
+
+    public String getDocumentCode() {
+        return documentCode;
+    }
+
+    public String getIssuingState() {
+        return issuingState;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public String getGivenNames() {
+        return givenNames;
+    }
+
+    /**
+     * @return series and number together, e.g. {@code CJ123456}
+     */
+    public String getDocumentNumber() {
+        return documentNumber;
+    }
+
+    public String getNationality() {
+        return nationality;
+    }
+
+    public char getSex() {
+        return sex;
+    }
+
+    /**
+     * @return birth date as {@code YYMMDD}
+     */
+    public String getBirthDate() {
+        return birthDate;
+    }
+
+    /**
+     * @return expiry date as {@code dd.MM.yyyy}
+     */
+    public String getExpiryDate() {
+        return expiryDate.substring(4, 6) + "." + expiryDate.substring(2, 4) + ".20" + expiryDate.substring(0, 2);
+    }
+
+    public String getOptionalData() {
+        return optionalData;
+    }
+
+    /**
+     * Romanian cards keep the first digit and the last six digits of the CNP in the optional data; the
+     * middle six are the birth date.
+     *
+     * @return the CNP, or {@code null} when the optional data does not hold one or it fails validation
+     */
+    public String getCnp() {
+        String digits = optionalData.replace(" ", "");
+        String cnp = null;
+        if (digits.length() >= Cnp.LENGTH && Cnp.isValid(digits.substring(0, Cnp.LENGTH))) {
+            cnp = digits.substring(0, Cnp.LENGTH);
+        } else if (digits.length() >= 7) {
+            cnp = digits.charAt(0) + birthDate + digits.substring(1, 7);
+        }
+        return cnp != null && Cnp.isValid(cnp) ? cnp : null;
+    }
+}
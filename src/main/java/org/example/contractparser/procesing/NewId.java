@@ -1,72 +1,108 @@
 package org.example.contractparser.procesing;
 
 import org.example.contractparser.ContractField;
-import org.example.contractparser.DetectText;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DetectText.TextBlock;
+import org.example.contractparser.OcrClient;
 
-import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class NewId implements UserMapParser{
+public class NewId extends AbstractIdParser {
+
+    public NewId() {
+        this(null);
+    }
+
+    /**
+     * @param ocrClient shared OCR client, or {@code null} to create a Textract client per image
+     */
+    public NewId(OcrClient ocrClient) {
+        super(ocrClient);
+    }
 
     @Override
-    public Map<String, String> extractMap(String imagePath) throws IOException {
+    public ContractRecord parse(List<TextBlock> textBlocks) {
 
-        Map<String, String> textMap = new HashMap<>();
+        ContractRecord.Builder record = ContractRecord.builder();
+        BlockIndex index = new BlockIndex(textBlocks);
 
         String[] name = new String[2];
+        float[] nameConfidence = {Float.NaN, Float.NaN};
 
-        DetectText detectText = new DetectText();
-
-        List< String> textBlocks = detectText.extractTextLines(imagePath);
         for (int i = 0; i < textBlocks.size(); i++) {
-            String word = textBlocks.get(i).trim();
+            String word = textBlocks.get(i).getText().trim();
 
             // Implement the logic to identify and extract relevant information based on the new ID format
             // This may involve checking for specific keywords or patterns in the text blocks
 
             if(word.contains("CNP:")){
-                textMap.put(ContractField.CNP.getPlaceholder(), getStringInLine("CNP:", word, textBlocks.get(i+1)));
-                System.out.println("CNP-ul este: " + textMap.get(ContractField.CNP.getPlaceholder()));
-
+                setField(record, ContractField.CNP, index, i, "CNP:");
             }
             else if(word.contains("Data nasterii:")){
-                textMap.put(ContractField.BIRTH_DATE.getPlaceholder(), getStringInLine("Data nasterii:", word, textBlocks.get(i+1)));
+                setField(record, ContractField.BIRTH_DATE, index, i, "Data nasterii:");
             }
             else if(word.contains("Locul nasterii:")){
-                textMap.put(ContractField.BIRTH_PLACE.getPlaceholder(), getStringInLine("Locul nasterii:", word, textBlocks.get(i+1)));
+                setField(record, ContractField.BIRTH_PLACE, index, i, "Locul nasterii:");
             }
             else if(word.contains("Numar document")){
-                textMap.put(ContractField.NUMBER.getPlaceholder(), getStringInLine("Numar document:", word, textBlocks.get(i+1)));
+                setField(record, ContractField.NUMBER, index, i, "Numar document:");
             }
             else if(word.contains("Autoritatea")){
-                textMap.put(ContractField.ISSUED_BY.getPlaceholder(), textBlocks.get(i+1));
+                setField(record, ContractField.ISSUED_BY, index, i, null);
             }
             if(word.contains("Nume de familie:")){
-                name[0] = getStringInLine("Nume de familie:", word, textBlocks.get(i+1));
+                TextBlock value = valueBlock(index, i, "Nume de familie:");
+                if (value != null) {
+                    name[0] = value.getText().trim();
+                    nameConfidence[0] = value.confidenceOrNaN();
+                }
             }
             if(word.contains("Prenume:")){
-                name[1] = getStringInLine("Prenume:", word, textBlocks.get(i+1));
+                TextBlock value = valueBlock(index, i, "Prenume:");
+                if (value != null) {
+                    name[1] = value.getText().trim();
+                    nameConfidence[1] = value.confidenceOrNaN();
+                }
             }
             if(word.contains("Domiciliu:")){
-                textMap.put(ContractField.ADDRESS.getPlaceholder(), textBlocks.get(i+1));
+                setField(record, ContractField.ADDRESS, index, i, "Domiciliu:");
             }
         }
 
 
-        textMap.put(ContractField.NAME.getPlaceholder(), name[0] + " " + name[1]);
-        System.out.println("Numele este: " + textMap.get(ContractField.NAME.getPlaceholder()));
-        return textMap;
+        if (name[0] != null || name[1] != null) {
+            // half a name is kept for the review page, with no confidence so it is never generated as is
+            float confidence = name[0] != null && name[1] != null ? Math.min(nameConfidence[0], nameConfidence[1]) : 0f;
+            record.set(ContractField.NAME, name[0] != null && name[1] != null ? name[0] + " " + name[1]
+                    : name[0] != null ? name[0] : name[1], confidence);
+        }
+        Cnp.apply(record);
+        return record.build();
     }
 
-    private String getStringInLine(String placeholder, String s1, String s2){
-
-        if(s1.substring(placeholder.length()).trim().isEmpty()){
-           return s2.trim();
+    private void setField(ContractRecord.Builder record, ContractField field, BlockIndex index, int label, String placeholder) {
+        TextBlock value = valueBlock(index, label, placeholder);
+        if (value != null) {
+            record.set(field, value.getText().trim(), value.confidenceOrNaN());
         }
-        return s2.trim();
+    }
 
+    /**
+     * The value is printed after the label on the same line, in the block right of it, or in the one below.
+     *
+     * @return a block holding only the value, or {@code null} when the label has no value near it
+     */
+    private TextBlock valueBlock(BlockIndex index, int label, String placeholder){
+        TextBlock labelBlock = index.get(label);
+        int at = placeholder != null ? labelBlock.getText().indexOf(placeholder) : -1;
+        if (at != -1) {
+            String inline = labelBlock.getText().substring(at + placeholder.length()).trim();
+            if (!inline.isEmpty()) {
+                return new TextBlock(inline, labelBlock.getConfidence(), labelBlock.getGeometry());
+            }
+        }
 
+        int value = index.valueOf(label);
+        return value != -1 ? index.get(value) : null;
     }
 }
@@ -1,159 +1,221 @@
 package org.example.contractparser.procesing;
 
 import org.example.contractparser.ContractField;
-import org.example.contractparser.DetectText;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DetectText.TextBlock;
+import org.example.contractparser.OcrClient;
 
-import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
-public class OldId implements UserMapParser {
+public class OldId extends AbstractIdParser {
 
-    @Override
-    public Map<String, String> extractMap(String imagePath) throws IOException {
-        Map<String, String> textMap = new HashMap<>();
+    private static final Pattern DATE = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{2}");
+    /** Confidence of fields read from an MRZ whose check digits fail, under any review threshold above 0. */
+    static final float UNVERIFIED_CONFIDENCE = 0f;
 
-        DetectText detectText = new DetectText();
+    public OldId() {
+        this(null);
+    }
 
+    /**
+     * @param ocrClient shared OCR client, or {@code null} to create a Textract client per image
+     */
+    public OldId(OcrClient ocrClient) {
+        super(ocrClient);
+    }
 
-        List< String> textBlocks = detectText.extractTextLines(imagePath);
-        for (int i = 0; i < textBlocks.size(); i++) {
-            String word = textBlocks.get(i).trim();
+    @Override
+    public ContractRecord parse(List<TextBlock> textBlocks) {
+        ContractRecord.Builder record = ContractRecord.builder();
+        BlockIndex index = new BlockIndex(textBlocks);
+        boolean[] consumed = new boolean[textBlocks.size()];
+        boolean fromMrz = readMrz(textBlocks, record, consumed);
 
-            if(word.contains("<<")){
-                textMap.put(ContractField.NAME.getPlaceholder(), getName(word));
-                System.out.println("Numele este: " + getName(word));
+        for (int i = 0; i < textBlocks.size(); i++) {
+            if (consumed[i]) {
+                continue; // already read as the value of a label
+            }
+            String word = textBlocks.get(i).getText().trim();
+            float confidence = textBlocks.get(i).confidenceOrNaN();
 
+            if(fromMrz && word.contains("CNP")){
+                continue; // the CNP was read from the MRZ and passed its check digits
             }
             else if(word.contains("CNP")){
                 word = word.replaceAll("CNP", "").trim();
-                textMap.put(ContractField.CNP.getPlaceholder(), word);
-                System.out.println("CNP-ul este: " + word);
-                textMap.put(ContractField.BIRTH_DATE.getPlaceholder(), getBirthDate(word));
-                System.out.println("Data nasterii este: " + getBirthDate(word));
-            }
-            else if(word.contains("<")){
-                word = word.trim();
-                textMap.put(ContractField.SERIES.getPlaceholder(), word.substring(0, 2));
-                textMap.put(ContractField.NUMBER.getPlaceholder(), word.substring(2, 8));
-                // here we can also put the cnp if needed
-                System.out.println("Seria este: " + word.substring(0, 2));
-                System.out.println("Numarul este: " + word.substring(2, 8));
-
+                record.set(ContractField.CNP, word, confidence);
+                if (word.length() == Cnp.LENGTH) {
+                    record.set(ContractField.BIRTH_DATE, Cnp.formatBirthDate(word), confidence);
+                }
             }
             else if(word.contains("SPCLEP")){
                 word = word.trim();
-                textMap.put(ContractField.ISSUED_BY.getPlaceholder(), word);
-                System.out.println("Eliberat de: " + word);
-
+                record.set(ContractField.ISSUED_BY, word, confidence);
             }
             else if(word.contains("Loc Nastere") || word.contains("Lieu de naissance") || word.contains("Place of birth")){
-                String place = textBlocks.get(i+1).trim();
-                System.out.println("lets eee " + place);
-                System.out.println("Locul nasterii este: " + getBirthLocation(place, "judet"));
-                System.out.println("Locul nasterii este: " + getBirthLocation(place, "country"));
+                int placeIndex = index.below(i);
+                if (placeIndex == -1) {
+                    continue;
+                }
+                consumed[placeIndex] = true;
+                String place = textBlocks.get(placeIndex).getText().trim();
+                float placeConfidence = textBlocks.get(placeIndex).confidenceOrNaN();
                 // now we need to put here for the placeholder of judet and country if needed
-                textMap.put(ContractField.BIRTH_PLACE.getPlaceholder(), getBirthLocation(place, "judet"));
-                textMap.put(ContractField.BIRTH_COUNTRY.getPlaceholder(), getBirthLocation(place, "country"));
-
+                setPlace(record, ContractField.BIRTH_PLACE, place, "judet", placeConfidence);
+                setPlace(record, ContractField.BIRTH_COUNTRY, place, "country", placeConfidence);
             } /// TODO : make a way to extract the birth place because it might have a lot of edge cases
             else if(word.contains("Adresse") || word.contains("Adress") || word.contains("Domiciliu")){
-                String adress1 = textBlocks.get(i+1).trim();
-                String adress2 = textBlocks.get(i+2).trim();
-                System.out.println("Adresa este: " + adress1 + " " + adress2);
-                System.out.println("blocul este: " + getAdressDetails(adress2, "bloc"));
-                System.out.println("numarul este: " + getAdressDetails(adress2, "numar"));
-                System.out.println("scara este: " + getAdressDetails(adress2, "scara"));
-                System.out.println("etajul este: " + getAdressDetails(adress2, "etaj"));
-                System.out.println("apartamentul este: " + getAdressDetails(adress2, "apartment"));
-
-                textMap.put(ContractField.ADDRESS_COUNTY.getPlaceholder(), getBirthLocation(adress1, "judet"));
-                textMap.put(ContractField.ADDRESS_CITY.getPlaceholder(), getBirthLocation(adress1, "localitate"));
-                textMap.put(ContractField.ADDRESS.getPlaceholder(), adress1 + " " + adress2);
-                textMap.put(ContractField.ADDRESS_BLOC.getPlaceholder(), getAdressDetails(adress2, "bloc"));
-                textMap.put(ContractField.ADDRESS_NUMBER.getPlaceholder(), getAdressDetails(adress2, "numar"));
-                textMap.put(ContractField.ADDRESS_SCARA.getPlaceholder(), getAdressDetails(adress2, "scara"));
-                textMap.put(ContractField.ADDRESS_ETAJ.getPlaceholder(), getAdressDetails(adress2, "etaj"));
-                textMap.put(ContractField.ADDRESS_APARTMENT.getPlaceholder(), getAdressDetails(adress2, "apartment"));
-
-                System.out.println("strada este: " + getAdressDetails(adress1, "strada"));
-                System.out.println("judetul este: " + getBirthLocation(adress1, "judet"));
-                System.out.println("orasul este: " + getBirthLocation(adress1, "oras"));
+                // the address is printed on the two lines under the label
+                int first = index.below(i);
+                if (first == -1) {
+                    continue;
+                }
+                int second = index.below(first);
+                consumed[first] = true;
+                if (second != -1) consumed[second] = true;
+
+                String adress1 = textBlocks.get(first).getText().trim();
+                String adress2 = second != -1 ? textBlocks.get(second).getText().trim() : "";
+                float confidence1 = textBlocks.get(first).confidenceOrNaN();
+                float confidence2 = second != -1 ? textBlocks.get(second).confidenceOrNaN() : Float.NaN;
+                setPlace(record, ContractField.ADDRESS_COUNTY, adress1, "judet", confidence1);
+                setPlace(record, ContractField.ADDRESS_CITY, adress1, "localitate", confidence1);
+                record.set(ContractField.ADDRESS, adress1 + " " + adress2, Math.min(confidence1, confidence2));
+                record.set(ContractField.ADDRESS_BLOC, getAdressDetails(adress2, "bloc"), confidence2);
+                record.set(ContractField.ADDRESS_NUMBER, getAdressDetails(adress2, "numar"), confidence2);
+                record.set(ContractField.ADDRESS_SCARA, getAdressDetails(adress2, "scara"), confidence2);
+                record.set(ContractField.ADDRESS_ETAJ, getAdressDetails(adress2, "etaj"), confidence2);
+                record.set(ContractField.ADDRESS_APARTMENT, getAdressDetails(adress2, "apartment"), confidence2);
 
                 if (!getAdressDetails(adress1, "strada").equals("-")) {
-                    textMap.put(ContractField.ADDRESS_STREET.getPlaceholder(), getAdressDetails(adress1, "strada"));
+                    record.set(ContractField.ADDRESS_STREET, getAdressDetails(adress1, "strada"), confidence1);
                 } else {
-                    textMap.put(ContractField.ADDRESS_STREET.getPlaceholder(), getAdressDetails(adress2, "strada")); // if the street is not in the first line try the second line
+                    record.set(ContractField.ADDRESS_STREET, getAdressDetails(adress2, "strada"), confidence2); // if the street is not in the first line try the second line
                 }
-                i = i + 2;
             }
             else if(word.contains("Valabilitate") || word.contains("Validity") || word.contains("Validite")){
-                String date = textBlocks.get(i+2).trim();
+                // the "issued - expires" dates right of or under the label; the MRZ and values of other labels
+                // may be under it too
+                int dateIndex = index.valueOf(i, j -> !consumed[j] && !textBlocks.get(j).getText().contains("<")
+                        && DATE.matcher(textBlocks.get(j).getText()).find());
+                if (dateIndex == -1) {
+                    continue;
+                }
+                consumed[dateIndex] = true;
+                String date = textBlocks.get(dateIndex).getText().trim();
+                float dateConfidence = textBlocks.get(dateIndex).confidenceOrNaN();
                 int dashIndex = date.indexOf('-');
                 if (dashIndex != -1) {
                     date = date.substring(0, dashIndex).trim();
                 }
-                System.out.println("Data este: " + date);
-                textMap.put(ContractField.VALIDITY.getPlaceholder(), date);
+                record.set(ContractField.VALIDITY, date, dateConfidence);
             }
         }
 
-
-        return textMap;
+        Cnp.apply(record);
+        return record.build();
     }
 
-    private String getName(String word){
-        word = word.substring(5);
-        word = word.replaceAll("<+", " ").trim();
-        word = word.replaceAll("\\s+", " ");
-        return word;
+    /**
+     * Fills name, series, number, CNP and birth date from the machine readable zone. When no zone passes its check
+     * digits, name, series and number are taken from one of the right shape with {@link #UNVERIFIED_CONFIDENCE}, so
+     * the record goes to review; lines that only look like an MRZ are ignored.
+     *
+     * @return true if the MRZ was read and verified
+     */
+    private boolean readMrz(List<TextBlock> textBlocks, ContractRecord.Builder record, boolean[] consumed) {
+        List<String> lines = textBlocks.stream().map(TextBlock::getText).toList();
+        Mrz mrz = Mrz.findUnverified(lines);
+        if (mrz == null) {
+            return false;
+        }
 
+        float lineConfidence = Float.NaN;
+        for (int k = 0; k < mrz.getFormat().lines; k++) {
+            consumed[mrz.getFirstLine() + k] = true;
+            float confidence = textBlocks.get(mrz.getFirstLine() + k).confidenceOrNaN();
+            lineConfidence = Float.isNaN(lineConfidence) ? confidence : Math.min(lineConfidence, confidence);
+        }
+        if (!mrz.isValid()) {
+            lineConfidence = UNVERIFIED_CONFIDENCE;
+        }
+
+        // the names carry no check digit, the other fields are as good as verified when the checks pass
+        record.set(ContractField.NAME, (mrz.getSurname() + " " + mrz.getGivenNames()).trim(), lineConfidence);
+        float checked = mrz.isValid() ? 100f : UNVERIFIED_CONFIDENCE;
+        String document = mrz.getDocumentNumber();
+        if (document.length() > 2) {
+            record.set(ContractField.SERIES, document.substring(0, 2), checked);
+            record.set(ContractField.NUMBER, document.substring(2), checked);
+        }
+        if (!mrz.isValid()) {
+            return false;
+        }
+        String cnp = mrz.getCnp();
+        if (cnp != null) {
+            record.set(ContractField.CNP, cnp, 100f);
+            record.set(ContractField.BIRTH_DATE, Cnp.formatBirthDate(cnp), 100f);
+        }
+        return cnp != null;
     }
 
-    private String getBirthDate(String cnp){
-        String birthDate = "";
-        if(cnp.length() == 13){
-            String year = cnp.substring(1,3);
-            String month = cnp.substring(3,5);
-            String day = cnp.substring(5,7);
-            if (cnp.charAt(0) == '1' || cnp.charAt(0) == '2') {
-                year = "19" + year;
-            } else {
-                year = "20" + year;
-            }
-            birthDate = day + "." + month + "." + year;
+    /**
+     * Sets a county or locality read from {@code place}. A locality is looked up among those of the county read
+     * from the same place. A name found in the gazetteer up to case and diacritics is written in its canonical
+     * spelling; a name only a few edits away from a listed one is written as that
+     * suggestion with {@link Gazetteer#SUGGESTION_CONFIDENCE} at most, so a clerk confirms it; anything else is
+     * kept as read.
+     */
+    private void setPlace(ContractRecord.Builder record, ContractField field, String place, String type, float confidence) {
+        String found = getBirthLocation(place, type);
+        Gazetteer gazetteer = Gazetteer.getDefault();
+        Gazetteer.Match match;
+        if (Objects.equals(type, "judet")) {
+            match = gazetteer.county(found);
+        } else {
+            String county = getBirthLocation(place, "judet");
+            match = gazetteer.locality(found, county.equals("-") ? null : county);
+        }
+        if (match == null) {
+            record.set(field, found, confidence);
+        } else if (match.isExact()) {
+            record.set(field, match.getName(), confidence);
+        } else {
+            record.set(field, match.getName(), Float.isNaN(confidence)
+                    ? Gazetteer.SUGGESTION_CONFIDENCE : Math.min(confidence, Gazetteer.SUGGESTION_CONFIDENCE));
         }
-        return birthDate;
     }
 
+    /**
+     * @return the county or locality as printed, or {@code "-"} when there is none
+     */
     private String getBirthLocation(String place, String type) {
         String[] search ;
 
         if (Objects.equals(type, "judet")) search = new String[]{"Jud."};
         else search = new String[]{"Mun.","Ors.", "Sat"};
 
-
-
-        String[] parts = place.split(",");
+        String found = null;
         for( String s : search) {
             int judIndex = place.indexOf(s);
             if (judIndex != -1) {
-                int start = judIndex + "Jud.".length();
+                int start = judIndex + s.length();
+                while (start < place.length() && place.charAt(start) == ' ') start++;
                 int spaceIndex = place.indexOf(' ', start);
-                if (spaceIndex != -1) {
-                    return place.substring(start, spaceIndex).trim();
-                } else {
-                    return place.substring(start).trim();
-                }
+                found = spaceIndex != -1 ? place.substring(start, spaceIndex).trim() : place.substring(start).trim();
+                break;
             }
-            if (parts.length > 1) {
-                return parts[parts.length - 1].trim();
+        }
+        if (found == null) {
+            String[] parts = place.split(",");
+            if (parts.length < 2) {
+                return "-";
             }
+            found = parts[parts.length - 1].trim();
         }
-
-        return "-";
+        return found;
     }
 
     private String getAdressDetails(String adress, String type) {
@@ -163,7 +225,7 @@ public class OldId implements UserMapParser {
             case "scara" -> new String[]{"sc."};
             case "bloc" -> new String[]{"bl."};
             case "etaj" -> new String[]{"et."};
-            case "strada" -> new String[]{"Str.","Bd."};
+            case "strada" -> Gazetteer.getDefault().streetPrefixes().toArray(new String[0]);
             default -> new String[]{"ap."};
         };
 
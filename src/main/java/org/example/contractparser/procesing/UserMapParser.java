@@ -1,9 +1,17 @@
 package org.example.contractparser.procesing;
 
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DetectText;
+
 import java.io.IOException;
-import java.util.Map;
+import java.util.List;
 
 public interface UserMapParser {
 
-    Map<String, String> extractMap(String imagePath) throws IOException;
+    ContractRecord extractRecord(String imagePath) throws IOException;
+
+    /**
+     * Parses OCR output that was already obtained, e.g. from a cache.
+     */
+    ContractRecord parse(List<DetectText.TextBlock> textBlocks);
 }
@@ -0,0 +1,367 @@
+package org.example.contractparser.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.example.contractparser.CachingOcrClient;
+import org.example.contractparser.CompanyTemplate;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.ContractService;
+import org.example.contractparser.DetectText;
+import org.example.contractparser.DocumentType;
+import org.example.contractparser.OcrClient;
+import org.example.contractparser.TemplateRegistry;
+import org.example.contractparser.batch.MemoryBudget;
+import org.example.contractparser.procesing.IdFactory;
+import org.example.contractparser.procesing.IdType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP server, built on the JDK's {@code com.sun.net.httpserver}, so the HR system can parse IDs
+ * and generate documents without the UI.
+ *
+ * <ul>
+ *     <li>{@code GET /templates} lists the company keys.</li>
+ *     <li>{@code POST /parse?type=newid|oldid} with the image as body returns the extracted fields as JSON.</li>
+ *     <li>{@code POST /generate} with {@code {"template": "Robest", "document": "contract|fisa", "fields": {"NAME": ...}}}
+ *     returns the generated DOCX, or 500 when it cannot be generated.</li>
+ * </ul>
+ *
+ * <p>Requests run on a fixed pool of workers behind a bounded queue. When the queue is full the connection
+ * is closed right away instead of letting requests pile up.</p>
+ *
+ * <p>The server has no authentication of its own: {@code /parse} returns CNPs and addresses and spends Textract
+ * quota. It listens on the loopback interface unless {@code --bind} says otherwise, and must only be reachable
+ * through the HR system, which does the authentication. Request bodies over {@code --max-body} are refused
+ * with 413.</p>
+ */
+public class ContractHttpServer {
+
+    static final String DOCX_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    /** Large enough for a phone photo of an ID. */
+    public static final long DEFAULT_MAX_BODY_BYTES = 20L << 20;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final TemplateRegistry registry;
+    private final long maxBodyBytes;
+    private volatile OcrClient ocrClient;
+
+    /**
+     * Listens on the loopback interface only, with the default body limit.
+     */
+    public ContractHttpServer(int port, int workers, int queueCapacity, TemplateRegistry registry) throws IOException {
+        this(InetAddress.getLoopbackAddress(), port, workers, queueCapacity, DEFAULT_MAX_BODY_BYTES, registry);
+    }
+
+    /**
+     * @param bind         interface to listen on; anything but loopback must be shielded by the HR system's auth
+     * @param maxBodyBytes largest request body accepted, larger ones get 413
+     */
+    public ContractHttpServer(InetAddress bind, int port, int workers, int queueCapacity, long maxBodyBytes,
+                              TemplateRegistry registry) throws IOException {
+        this(bind, port, workers, queueCapacity, maxBodyBytes, registry, null);
+    }
+
+    /**
+     * @param ocrClient reads the IDs sent to {@code /parse}; {@code null} for Textract behind the OCR cache,
+     *                  created on the first request
+     */
+    public ContractHttpServer(InetAddress bind, int port, int workers, int queueCapacity, long maxBodyBytes,
+                              TemplateRegistry registry, OcrClient ocrClient) throws IOException {
+        this.registry = registry;
+        this.ocrClient = ocrClient;
+        this.maxBodyBytes = maxBodyBytes;
+        this.server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+
+        server.createContext("/templates", this::handleTemplates);
+        server.createContext("/parse", this::handleParse);
+        server.createContext("/generate", this::handleGenerate);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8085;
+        int workers = Runtime.getRuntime().availableProcessors() * 4;
+        int queue = 64;
+        InetAddress bind = InetAddress.getLoopbackAddress();
+        long maxBody = DEFAULT_MAX_BODY_BYTES;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+            else if (arg.startsWith("--workers=")) workers = Integer.parseInt(arg.substring("--workers=".length()));
+            else if (arg.startsWith("--queue=")) queue = Integer.parseInt(arg.substring("--queue=".length()));
+            else if (arg.startsWith("--bind=")) bind = InetAddress.getByName(arg.substring("--bind=".length()));
+            else if (arg.startsWith("--max-body=")) maxBody = MemoryBudget.parseSize(arg.substring("--max-body=".length()));
+        }
+
+        ContractHttpServer server = new ContractHttpServer(bind, port, workers, queue, maxBody, TemplateRegistry.getDefault());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.println("ContractParser server listening on " + bind.getHostAddress() + ":" + port
+                + " with " + workers + " workers and a queue of " + queue);
+        if (!bind.isLoopbackAddress()) {
+            System.err.println("The server has no authentication, keep it reachable only through the HR system.");
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the port listened on, the one picked by the system when 0 was given
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        if (ocrClient instanceof CachingOcrClient cache && cache.getDelegate() instanceof DetectText detectText) {
+            detectText.close();
+        }
+    }
+
+    private OcrClient ocrClient() {
+        OcrClient client = ocrClient;
+        if (client == null) {
+            synchronized (this) {
+                client = ocrClient;
+                if (client == null) {
+                    try {
+                        client = new CachingOcrClient(new DetectText(), CachingOcrClient.defaultDirectory(),
+                                CachingOcrClient.DEFAULT_MAX_DISTANCE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    ocrClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+
+    private void handleTemplates(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!requireMethod(exchange, "GET")) return;
+            sendJson(exchange, 200, registry.getCompanies());
+        }
+    }
+
+    private void handleParse(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!requireMethod(exchange, "POST")) return;
+            String type = query(exchange).getOrDefault("type", IdType.NEWID.getType());
+            IdType idType = type.equalsIgnoreCase(IdType.OLDID.getType()) ? IdType.OLDID : IdType.NEWID;
+
+            if (!checkLength(exchange)) return;
+
+            Path image = Files.createTempFile("contract-parser-upload", imageSuffix(exchange));
+            try {
+                try (InputStream body = body(exchange)) {
+                    Files.copy(body, image, StandardCopyOption.REPLACE_EXISTING);
+                } catch (BodyTooLargeException e) {
+                    sendError(exchange, 413, e.getMessage());
+                    return;
+                }
+                ContractRecord record = IdFactory.createIdParser(idType, ocrClient()).extractRecord(image.toString());
+                sendJson(exchange, 200, record.toMap());
+            } catch (IOException | RuntimeException e) {
+                sendError(exchange, 422, "Could not parse the ID: " + e.getMessage());
+            } finally {
+                Files.deleteIfExists(image);
+            }
+        }
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!requireMethod(exchange, "POST")) return;
+            if (!checkLength(exchange)) return;
+
+            GenerateRequest request;
+            try (InputStream body = body(exchange)) {
+                request = MAPPER.readValue(body, GenerateRequest.class);
+            } catch (BodyTooLargeException e) {
+                sendError(exchange, 413, e.getMessage());
+                return;
+            } catch (IOException e) {
+                sendError(exchange, 400, "Invalid JSON body: " + e.getMessage());
+                return;
+            }
+
+            CompanyTemplate template;
+            try {
+                template = registry.get(request.template);
+            } catch (IOException e) {
+                sendError(exchange, 404, e.getMessage());
+                return;
+            }
+
+            Map<ContractField, String> fields = new EnumMap<>(ContractField.class);
+            if (request.fields != null) {
+                for (Map.Entry<String, String> entry : request.fields.entrySet()) {
+                    try {
+                        fields.put(ContractField.valueOf(entry.getKey().toUpperCase(Locale.ROOT)), entry.getValue());
+                    } catch (IllegalArgumentException e) {
+                        sendError(exchange, 400, "Unknown field: " + entry.getKey());
+                        return;
+                    }
+                }
+            }
+
+            DocumentType type = "fisa".equalsIgnoreCase(request.document) ? DocumentType.FISA : DocumentType.CONTRACT;
+            // rendered before the status is sent, so a failure is a 500 and not a cut off 200
+            ByteArrayOutputStream document = new ByteArrayOutputStream();
+            try {
+                ContractService.writeDocument(template, type, ContractRecord.of(fields), document);
+            } catch (IOException | RuntimeException e) {
+                sendError(exchange, 500, "Could not generate the document: " + e.getMessage());
+                return;
+            }
+            String fileName = type.fileName(fields.getOrDefault(ContractField.NAME, "document"));
+            exchange.getResponseHeaders().set("Content-Type", DOCX_TYPE);
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+            exchange.sendResponseHeaders(200, document.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                document.writeTo(out);
+            }
+        }
+    }
+
+
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equalsIgnoreCase(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        sendError(exchange, 405, "Use " + method);
+        return false;
+    }
+
+    /**
+     * Refuses a request up front when its declared length is over the limit.
+     */
+    private boolean checkLength(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            if (length == null || Long.parseLong(length.trim()) <= maxBodyBytes) {
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid Content-Length");
+            return false;
+        }
+        sendError(exchange, 413, tooLarge());
+        return false;
+    }
+
+    /**
+     * @return the request body, failing with {@link BodyTooLargeException} once more than the limit was read,
+     * for chunked bodies that declare no length
+     */
+    private InputStream body(HttpExchange exchange) {
+        return new FilterInputStream(exchange.getRequestBody()) {
+            private long read;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) count(n);
+                return n;
+            }
+
+            private void count(int n) throws BodyTooLargeException {
+                read += n;
+                if (read > maxBodyBytes) {
+                    throw new BodyTooLargeException(tooLarge());
+                }
+            }
+        };
+    }
+
+    private String tooLarge() {
+        return "Request body is larger than " + maxBodyBytes + " bytes";
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+        BodyTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", message));
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String imageSuffix(HttpExchange exchange) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        return contentType != null && contentType.contains("png") ? ".png" : ".jpg";
+    }
+
+
+    static class GenerateRequest {
+        public String template;
+        public String document;
+        public Map<String, String> fields;
+    }
+}
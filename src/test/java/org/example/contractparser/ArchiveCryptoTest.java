@@ -0,0 +1,144 @@
+package org.example.contractparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveCryptoTest {
+
+    private static final int HEADER = 12;
+    private static final int SEALED = ArchiveCrypto.CHUNK + 16;
+
+    private final ArchiveCrypto crypto = ArchiveCrypto.of(key(1));
+
+    @Test
+    void roundTripsAroundChunkBoundaries() throws IOException {
+        int chunk = ArchiveCrypto.CHUNK;
+        for (int size : new int[]{0, 1, chunk - 1, chunk, chunk + 1, 3 * chunk, 3 * chunk + 17}) {
+            byte[] plain = data(size);
+            byte[] encrypted = encrypt(crypto, plain);
+            assertFalse(size > 16 && contains(encrypted, Arrays.copyOf(plain, 16)), "plain text leaked, size " + size);
+            assertArrayEquals(plain, decrypt(crypto, encrypted), "size " + size);
+        }
+    }
+
+    @Test
+    void singleByteWritesMatchArrayWrites() throws IOException {
+        byte[] plain = data(2 * ArchiveCrypto.CHUNK + 5);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = crypto.encrypt(sink)) {
+            for (byte b : plain) out.write(b);
+        }
+        assertArrayEquals(plain, decrypt(crypto, sink.toByteArray()));
+    }
+
+    @Test
+    void readsPlainFilesWithAndWithoutKey() throws IOException {
+        byte[] plain = data(1000);
+        ArchiveCrypto none = ArchiveCrypto.of(null);
+        assertArrayEquals(plain, encrypt(none, plain));
+        assertArrayEquals(plain, decrypt(none, plain));
+        assertArrayEquals(plain, decrypt(crypto, plain));
+        assertArrayEquals(new byte[3], decrypt(crypto, new byte[3]));
+    }
+
+    @Test
+    void encryptedFileNeedsTheKey() throws IOException {
+        byte[] encrypted = encrypt(crypto, data(100));
+        assertThrows(IOException.class, () -> decrypt(ArchiveCrypto.of(null), encrypted));
+        assertThrows(IOException.class, () -> decrypt(ArchiveCrypto.of(key(2)), encrypted));
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        byte[] encrypted = encrypt(crypto, data(3 * ArchiveCrypto.CHUNK + 100));
+        // whole chunks dropped from the end look like a shorter file unless the last one is marked
+        assertThrows(IOException.class, () -> decrypt(crypto, Arrays.copyOf(encrypted, HEADER + 3 * SEALED)));
+        assertThrows(IOException.class, () -> decrypt(crypto, Arrays.copyOf(encrypted, HEADER + SEALED)));
+        assertThrows(IOException.class, () -> decrypt(crypto, Arrays.copyOf(encrypted, encrypted.length - 1)));
+        assertThrows(IOException.class, () -> decrypt(crypto, Arrays.copyOf(encrypted, HEADER + 10)));
+        assertThrows(IOException.class, () -> decrypt(crypto, Arrays.copyOf(encrypted, HEADER)));
+    }
+
+    @Test
+    void rejectsReorderedAndDroppedChunks() throws IOException {
+        byte[] encrypted = encrypt(crypto, data(3 * ArchiveCrypto.CHUNK + 100));
+
+        byte[] swapped = encrypted.clone();
+        System.arraycopy(encrypted, HEADER + SEALED, swapped, HEADER, SEALED);
+        System.arraycopy(encrypted, HEADER, swapped, HEADER + SEALED, SEALED);
+        assertThrows(IOException.class, () -> decrypt(crypto, swapped));
+
+        byte[] dropped = new byte[encrypted.length - SEALED];
+        System.arraycopy(encrypted, 0, dropped, 0, HEADER + SEALED);
+        System.arraycopy(encrypted, HEADER + 2 * SEALED, dropped, HEADER + SEALED, dropped.length - HEADER - SEALED);
+        assertThrows(IOException.class, () -> decrypt(crypto, dropped));
+    }
+
+    @Test
+    void rejectsChunksFromAnotherFileAndFlippedBits() throws IOException {
+        byte[] plain = data(2 * ArchiveCrypto.CHUNK);
+        byte[] first = encrypt(crypto, plain);
+        byte[] second = encrypt(crypto, plain);
+        assertFalse(Arrays.equals(first, second)); // every file gets its own nonce prefix
+
+        byte[] spliced = first.clone();
+        System.arraycopy(second, HEADER, spliced, HEADER, SEALED);
+        assertThrows(IOException.class, () -> decrypt(crypto, spliced));
+
+        byte[] flipped = first.clone();
+        flipped[HEADER + 5] ^= 1;
+        assertThrows(IOException.class, () -> decrypt(crypto, flipped));
+    }
+
+    @Test
+    void rejectsBadKeyLengths() {
+        assertThrows(IllegalArgumentException.class, () -> ArchiveCrypto.of(new byte[15]));
+        assertTrue(ArchiveCrypto.of(new byte[24]).isEnabled());
+        assertFalse(ArchiveCrypto.of(null).isEnabled());
+    }
+
+    private static byte[] encrypt(ArchiveCrypto crypto, byte[] plain) throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = crypto.encrypt(sink)) {
+            out.write(plain);
+        }
+        return sink.toByteArray();
+    }
+
+    private static byte[] decrypt(ArchiveCrypto crypto, byte[] encrypted) throws IOException {
+        try (InputStream in = crypto.decrypt(new ByteArrayInputStream(encrypted))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] key(int seed) {
+        byte[] key = new byte[32];
+        new Random(seed).nextBytes(key);
+        return key;
+    }
+
+    private static boolean contains(byte[] haystack, byte[] needle) {
+        for (int i = 0; i + needle.length <= haystack.length; i++) {
+            if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) return true;
+        }
+        return false;
+    }
+}
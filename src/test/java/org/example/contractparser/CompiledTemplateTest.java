@@ -0,0 +1,118 @@
+package org.example.contractparser;
+
+import org.apache.poi.wp.usermodel.HeaderFooterType;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledTemplateTest {
+
+    private static final ContractRecord DATA = ContractRecord.builder()
+            .set(ContractField.NAME, "POP & FIUL <SRL>")
+            .set(ContractField.CNP, "1960523125785")
+            .set(ContractField.ADDRESS, " Str. Lunga nr. 1")
+            .set(ContractField.CITY, "Cluj-Napoca")
+            .build();
+
+    @Test
+    void fillsEveryPartOfTheDocument() throws IOException {
+        CompiledTemplate template = CompiledTemplate.compile(template());
+        assertEquals(4, template.getPlaceholderCount());
+
+        byte[] docx = write(template, DATA);
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(docx));
+             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+            String text = extractor.getText();
+            assertTrue(text.contains("Nume: POP & FIUL <SRL>"), text); // the second <w:t> of the run
+            assertTrue(text.contains("CNP 1960523125785"), text); // header
+            assertTrue(text.contains("Adresa: Str. Lunga nr. 1"), text); // footer
+            assertTrue(text.contains("Oras Cluj-Napoca"), text); // table in a table
+        }
+        Map<String, String> parts = textParts(docx);
+        for (Map.Entry<String, String> part : parts.entrySet()) {
+            assertNull(placeholderIn(part.getValue()), part.getKey());
+        }
+        String footer = parts.entrySet().stream().filter(part -> part.getKey().startsWith("word/footer"))
+                .map(Map.Entry::getValue).findFirst().orElseThrow();
+        assertTrue(footer.contains("xml:space=\"preserve\"> Str. Lunga nr. 1<"), footer);
+    }
+
+    @Test
+    void leavesPlaceholdersWithoutAValue() throws IOException {
+        byte[] docx = write(CompiledTemplate.compile(template()), ContractRecord.builder().build());
+
+        assertEquals(ContractField.NAME, placeholderIn(textParts(docx).get("word/document.xml")));
+    }
+
+    @Test
+    void escapesMarkupAndDropsControlCharacters() {
+        assertEquals("a &amp; b &lt;c&gt; &quot;d&quot;\te",
+                new String(CompiledTemplate.escape("a & b <c> \"d\"\te\u0001"), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] template() throws IOException {
+        try (XWPFDocument document = new XWPFDocument()) {
+            XWPFRun run = document.createParagraph().createRun();
+            run.setText("Nume: ");
+            run.getCTR().addNewT().setStringValue(ContractField.NAME.getPlaceholder());
+
+            document.createHeader(HeaderFooterType.DEFAULT).createParagraph().createRun()
+                    .setText("CNP " + ContractField.CNP.getPlaceholder());
+            XWPFRun footer = document.createFooter(HeaderFooterType.DEFAULT).createParagraph().createRun();
+            footer.setText("Adresa:");
+            footer.getCTR().addNewT().setStringValue(ContractField.ADDRESS.getPlaceholder());
+
+            XWPFTableCell outer = document.createTable(1, 1).getRow(0).getCell(0);
+            XWPFTable inner = new XWPFTable(outer.getCTTc().addNewTbl(), outer, 1, 1);
+            outer.insertTable(0, inner);
+            inner.getRow(0).getCell(0).setText("Oras " + ContractField.CITY.getPlaceholder());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] write(CompiledTemplate template, ContractRecord data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.write(data, out);
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> textParts(byte[] docx) throws IOException {
+        Map<String, String> parts = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(docx))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                if (entry.getName().startsWith("word/") && entry.getName().endsWith(".xml")) {
+                    parts.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parts;
+    }
+
+    private static ContractField placeholderIn(String xml) {
+        for (int i = 0; i < xml.length(); i++) {
+            ContractField field = ContractField.fromPlaceholder(xml.charAt(i));
+            if (field != null) return field;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.contractparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldValidatorTest {
+
+    private final FieldValidator validator = FieldValidator.getDefault();
+
+    @Test
+    void validRecordHasNoViolations() {
+        ContractRecord record = ContractRecord.builder()
+                .set(ContractField.NAME, "POP ION")
+                .set(ContractField.CNP, "1690219296912")
+                .set(ContractField.SERIES, "PH")
+                .set(ContractField.NUMBER, "123456")
+                .set(ContractField.ADDRESS, "Str. Florilor nr. 3")
+                .set(ContractField.BIRTH_DATE, "19.02.1969")
+                .set(ContractField.VALIDITY, "19.02.29")
+                .set(ContractField.PHONE, "+40 721 123 456")
+                .set(ContractField.REGISTRATION_NUMBER, "124/19.10.2026")
+                .build();
+        assertTrue(validator.validate(record, FieldValidator.AUTO_APPROVAL).isEmpty());
+    }
+
+    @Test
+    void reportsEveryBrokenRuleInFieldOrder() {
+        ContractRecord record = ContractRecord.builder()
+                .set(ContractField.CNP, "1690219296913")
+                .set(ContractField.SERIES, "ph")
+                .set(ContractField.BIRTH_DATE, "30.02.1969")
+                .set(ContractField.PHONE, "0721 123")
+                .build();
+        List<FieldValidator.Violation> violations = validator.validate(record, Set.of());
+        assertEquals(List.of(ContractField.SERIES, ContractField.CNP, ContractField.BIRTH_DATE, ContractField.PHONE),
+                violations.stream().map(FieldValidator.Violation::getField).toList());
+    }
+
+    @Test
+    void cnpNeedsThirteenDigitsAndMatchingControlDigit() {
+        assertEquals("trebuie sa aiba 13 cifre", messageFor(ContractField.CNP, "16902192969"));
+        assertEquals("trebuie sa aiba 13 cifre", messageFor(ContractField.CNP, "169021929691A"));
+        assertNotNull(messageFor(ContractField.CNP, "1690219296913"));
+        assertNull(messageFor(ContractField.CNP, "1690219296912"));
+    }
+
+    @Test
+    void validityAcceptsShortAndFullYearButBirthDateOnlyFull() {
+        assertNull(messageFor(ContractField.VALIDITY, "19.02.2029"));
+        assertNull(messageFor(ContractField.VALIDITY, "19.02.29"));
+        assertNotNull(messageFor(ContractField.VALIDITY, "2029-02-19"));
+        assertNotNull(messageFor(ContractField.BIRTH_DATE, "19.02.69"));
+    }
+
+    @Test
+    void phoneAllowsRomanianPrefixesAndSeparators() {
+        assertNull(messageFor(ContractField.PHONE, "0721123456"));
+        assertNull(messageFor(ContractField.PHONE, "0040 (721) 123-456"));
+        assertNotNull(messageFor(ContractField.PHONE, "+44 7911 123456"));
+    }
+
+    @Test
+    void registrationMustStartWithANumber() {
+        assertNull(messageFor(ContractField.REGISTRATION_NUMBER, "124"));
+        assertNull(messageFor(ContractField.REGISTRATION_NUMBER, "124 / 19.10.2026"));
+        assertNotNull(messageFor(ContractField.REGISTRATION_NUMBER, "nr. 124"));
+    }
+
+    @Test
+    void blankValuesOnlyFailWhenRequired() {
+        ContractRecord record = ContractRecord.builder().set(ContractField.PHONE, "  ").build();
+        assertTrue(validator.validate(record, Set.of()).isEmpty());
+        List<FieldValidator.Violation> violations = validator.validate(record, Set.of(ContractField.PHONE));
+        assertEquals(1, violations.size());
+        assertEquals("lipseste", violations.get(0).getMessage());
+    }
+
+    @Test
+    void replacedRuleOnlyAffectsTheCopy() {
+        FieldValidator strict = validator.with(ContractField.CITY, value -> value.equals("Ploiesti") ? null : "alt oras");
+        assertNotNull(message(strict, ContractField.CITY, "Brasov"));
+        assertNull(messageFor(ContractField.CITY, "Brasov"));
+    }
+
+    @Test
+    void columnsReportEachRowAndEmptyListsForValidRows() {
+        Map<ContractField, String[]> columns = new EnumMap<>(ContractField.class);
+        columns.put(ContractField.PHONE, new String[]{"0721123456", "123", null});
+        columns.put(ContractField.REGISTRATION_NUMBER, new String[]{"1", "x", "3"});
+        List<List<FieldValidator.Violation>> violations =
+                validator.validateColumns(columns, 3, Set.of(ContractField.PHONE, ContractField.CITY));
+
+        assertEquals(3, violations.size());
+        assertEquals(List.of(ContractField.CITY), fields(violations.get(0)));
+        assertEquals(List.of(ContractField.REGISTRATION_NUMBER, ContractField.PHONE, ContractField.CITY),
+                fields(violations.get(1)));
+        assertEquals(List.of(ContractField.PHONE, ContractField.CITY), fields(violations.get(2)));
+
+        columns.put(ContractField.CITY, new String[]{"Ploiesti", "Ploiesti", "Ploiesti"});
+        columns.put(ContractField.PHONE, new String[]{"0721123456", "0721123456", "0721123456"});
+        columns.put(ContractField.REGISTRATION_NUMBER, new String[]{"1", "2", "3"});
+        validator.validateColumns(columns, 3, Set.of(ContractField.PHONE, ContractField.CITY))
+                .forEach(row -> assertTrue(row.isEmpty()));
+    }
+
+    private String messageFor(ContractField field, String value) {
+        return message(validator, field, value);
+    }
+
+    private static String message(FieldValidator validator, ContractField field, String value) {
+        List<FieldValidator.Violation> violations =
+                validator.validate(ContractRecord.builder().set(field, value).build(), Set.of());
+        return violations.isEmpty() ? null : violations.get(0).getMessage();
+    }
+
+    private static List<ContractField> fields(List<FieldValidator.Violation> violations) {
+        return violations.stream().map(FieldValidator.Violation::getField).toList();
+    }
+}
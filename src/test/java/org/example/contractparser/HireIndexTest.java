@@ -0,0 +1,152 @@
+package org.example.contractparser;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HireIndexTest {
+
+    private static final String CNP = "1690219296912";
+    private static final String OTHER_CNP = "2671127330931";
+    private static final int PROCESSES = 3;
+    private static final int CNPS = 200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void letsEachPersonBeClaimedOnce() throws IOException {
+        HireIndex index = HireIndex.open(dir.toFile());
+
+        assertNull(index.claim(CNP, "POP ION", null));
+        HireIndex.Hire previous = index.claim(CNP, "POP ION", null);
+
+        assertNotNull(previous);
+        assertEquals("POP ION", previous.getEmployeeName());
+        assertNull(index.claim(OTHER_CNP, "POP ANA", null));
+        assertEquals(2, index.size());
+        assertFalse(Files.readString(dir.resolve(HireIndex.FILE_NAME)).contains(CNP), "the CNP was written");
+    }
+
+    @Test
+    void letsTheSameJobClaimAgain() throws IOException {
+        HireIndex index = HireIndex.open(dir.toFile());
+
+        assertNull(index.claim(CNP, "POP ION", "job-1"));
+
+        assertNull(index.claim(CNP, "POP ION", "job-1"));
+        assertNotNull(index.claim(CNP, "POP ION", "job-2"));
+        assertNotNull(index.claim(CNP, "POP ION", null));
+    }
+
+    @Test
+    void forgetsClaimsAndRecordsTheFinalName() throws IOException {
+        HireIndex index = HireIndex.open(dir.toFile());
+        index.claim(CNP, "POP ION", null);
+
+        index.forget(CNP);
+        assertNull(index.find(CNP));
+        assertNull(index.claim(CNP, "POP ION", null));
+
+        index.record(CNP, "POP ION (2)");
+        assertEquals("POP ION (2)", index.find(CNP).getEmployeeName());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void seesWhatOtherInstancesAppend() throws IOException {
+        HireIndex first = HireIndex.open(dir.toFile());
+        HireIndex second = HireIndex.open(dir.toFile());
+
+        first.claim(CNP, "POP ION", null);
+        assertNotNull(second.claim(CNP, "POP ION", null));
+
+        second.forget(CNP);
+        assertNull(first.find(CNP));
+    }
+
+    @Test
+    void rebuildKeepsTheSalt() throws IOException {
+        HireIndex open = HireIndex.open(dir.toFile());
+        String salt = Files.readAllLines(dir.resolve(HireIndex.FILE_NAME)).get(0);
+        open.record(OTHER_CNP, "POP ANA");
+        writeContract(dir.resolve(DocumentType.CONTRACT.fileName("POP ION")), "CNP " + CNP + ", nascut la");
+
+        HireIndex rebuilt = HireIndex.rebuild(dir.toFile());
+
+        assertEquals(salt, Files.readAllLines(dir.resolve(HireIndex.FILE_NAME)).get(0));
+        assertNotNull(rebuilt.find(CNP));
+        assertEquals(1, rebuilt.size(), "only people with a contract in the folder are kept");
+        // an index opened before the rebuild reads the new file and still finds people by the same hash
+        assertNotNull(open.find(CNP));
+        assertNull(open.find(OTHER_CNP));
+    }
+
+    @Test
+    void processesClaimingAtOnceNeverWinTheSamePerson() throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        HireIndex.open(dir.toFile());
+        List<Process> processes = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++) {
+            Path output = dir.resolve("claimed-" + i + ".txt");
+            outputs.add(output);
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    HireIndexTest.class.getName(), dir.toString())
+                    .redirectOutput(output.toFile())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        for (Process process : processes) {
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS), "claiming process did not finish");
+            assertEquals(0, process.exitValue());
+        }
+
+        Set<String> won = new HashSet<>();
+        for (Path output : outputs) {
+            for (String line : Files.readAllLines(output)) {
+                assertTrue(won.add(line.trim()), "claimed twice: " + line);
+            }
+        }
+        assertEquals(CNPS, won.size());
+        assertEquals(CNPS, HireIndex.open(dir.toFile()).size());
+    }
+
+    /**
+     * Run in a separate JVM by the test above: claims every test CNP and prints those it won.
+     */
+    public static void main(String[] args) throws IOException {
+        HireIndex index = HireIndex.open(Path.of(args[0]).toFile());
+        for (int i = 0; i < CNPS; i++) {
+            String cnp = String.format(Locale.ROOT, "19001010%05d", i);
+            if (index.claim(cnp, "Angajat " + i, null) == null) {
+                System.out.println(cnp);
+            }
+        }
+    }
+
+    private static void writeContract(Path file, String text) throws IOException {
+        try (XWPFDocument document = new XWPFDocument();
+             OutputStream out = Files.newOutputStream(file)) {
+            document.createParagraph().createRun().setText(text);
+            document.write(out);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.contractparser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistrationSequenceTest {
+
+    private static final int PROCESSES = 4;
+    private static final int ALLOCATIONS = 200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void startsAtOneAndHandsOutConsecutiveBlocks() throws IOException {
+        try (RegistrationSequence sequence = RegistrationSequence.open(dir.resolve(RegistrationSequence.FILE_NAME))) {
+            assertEquals(1, sequence.peek());
+            assertEquals(1, sequence.allocate(2));
+            assertEquals(3, sequence.allocate(5));
+            assertEquals(8, sequence.peek());
+        }
+    }
+
+    @Test
+    void continuesAfterReset() throws IOException {
+        Path file = dir.resolve(RegistrationSequence.FILE_NAME);
+        try (RegistrationSequence sequence = RegistrationSequence.open(file)) {
+            sequence.reset(500);
+        }
+        try (RegistrationSequence sequence = RegistrationSequence.open(file)) {
+            assertEquals(500, sequence.allocate(2));
+            assertEquals(502, sequence.peek());
+        }
+    }
+
+    @Test
+    void processesAllocatingAtOnceNeverShareANumber() throws Exception {
+        Path file = dir.resolve(RegistrationSequence.FILE_NAME);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++) {
+            Path output = dir.resolve("allocated-" + i + ".txt");
+            outputs.add(output);
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    RegistrationSequenceTest.class.getName(), file.toString())
+                    .redirectOutput(output.toFile())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        for (Process process : processes) {
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS), "allocating process did not finish");
+            assertEquals(0, process.exitValue());
+        }
+
+        Set<Long> numbers = new HashSet<>();
+        for (Path output : outputs) {
+            for (String line : Files.readAllLines(output)) {
+                long first = Long.parseLong(line.trim());
+                assertTrue(numbers.add(first), "number handed out twice: " + first);
+                assertTrue(numbers.add(first + 1), "number handed out twice: " + (first + 1));
+            }
+        }
+        assertEquals(PROCESSES * ALLOCATIONS * 2, numbers.size());
+        try (RegistrationSequence sequence = RegistrationSequence.open(file)) {
+            assertEquals(PROCESSES * ALLOCATIONS * 2 + 1, sequence.peek());
+        }
+    }
+
+    /**
+     * Run in a separate JVM by the test above: allocates pairs and prints the first number of each.
+     */
+    public static void main(String[] args) throws IOException {
+        try (RegistrationSequence sequence = RegistrationSequence.open(Path.of(args[0]))) {
+            for (int i = 0; i < ALLOCATIONS; i++) {
+                System.out.println(sequence.allocate(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.contractparser.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.example.contractparser.batch.MemoryBudgetTest.awaitWaiting;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BoundedByteQueueTest {
+
+    private final BoundedByteQueue<String> queue = new BoundedByteQueue<>("test", 100);
+
+    @Test
+    void handsItemsOverInOrderAndGivesTheirBytesBack() throws InterruptedException {
+        queue.put("a", 30);
+        queue.put("b", 30);
+        queue.put("c", 30);
+        assertEquals(3, queue.size());
+        assertEquals(90, queue.getBudget().getUsed());
+
+        assertEquals("a", queue.take());
+        assertEquals(60, queue.getBudget().getUsed());
+        assertEquals("b", queue.take());
+        assertEquals("c", queue.take());
+
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.getBudget().getUsed());
+        assertEquals(3, queue.getPeakDepth());
+    }
+
+    @Test
+    void blocksTheProducerWhileFull() throws Exception {
+        queue.put("big", 80);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicReference<Thread> producer = new AtomicReference<>();
+            Future<?> put = executor.submit(() -> {
+                producer.set(Thread.currentThread());
+                queue.put("next", 30);
+                return null;
+            });
+            awaitWaiting(producer);
+            assertFalse(put.isDone());
+
+            assertEquals("big", queue.take());
+
+            put.get(5, TimeUnit.SECONDS);
+            assertEquals("next", queue.take());
+            assertEquals(1, queue.getBudget().getBlockedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void blocksTheConsumerWhileEmpty() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicReference<Thread> consumer = new AtomicReference<>();
+            Future<String> take = executor.submit(() -> {
+                consumer.set(Thread.currentThread());
+                return queue.take();
+            });
+            awaitWaiting(consumer);
+            assertFalse(take.isDone());
+
+            queue.put("item", 10);
+
+            assertEquals("item", take.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
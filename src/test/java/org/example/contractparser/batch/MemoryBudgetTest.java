@@ -0,0 +1,112 @@
+package org.example.contractparser.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryBudgetTest {
+
+    private final MemoryBudget budget = new MemoryBudget("test", 100);
+
+    @Test
+    void countsWhatIsHeldAndThePeak() throws InterruptedException {
+        long first = budget.acquire(40);
+        long second = budget.acquire(60);
+        assertEquals(100, budget.getUsed());
+
+        budget.release(first);
+        budget.release(second);
+
+        assertEquals(0, budget.getUsed());
+        assertEquals(100, budget.getPeak());
+        assertEquals(0, budget.getBlockedCount());
+        assertEquals(0, budget.acquire(-5));
+    }
+
+    @Test
+    void blocksUntilEnoughIsReleased() throws Exception {
+        long held = budget.acquire(80);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicReference<Thread> waiter = new AtomicReference<>();
+            Future<Long> blocked = executor.submit(() -> {
+                waiter.set(Thread.currentThread());
+                return budget.acquire(30);
+            });
+            awaitWaiting(waiter);
+            assertFalse(blocked.isDone());
+
+            budget.release(held);
+
+            assertEquals(30, blocked.get(5, TimeUnit.SECONDS));
+            assertEquals(30, budget.getUsed());
+            assertEquals(1, budget.getBlockedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void oversizedRequestsWaitForAnEmptyBudgetAndHoldAllOfIt() throws Exception {
+        long small = budget.acquire(10);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AtomicReference<Thread> bigWaiter = new AtomicReference<>();
+            Future<Long> big = executor.submit(() -> {
+                bigWaiter.set(Thread.currentThread());
+                return budget.acquire(500);
+            });
+            awaitWaiting(bigWaiter);
+
+            budget.release(small);
+            long charge = big.get(5, TimeUnit.SECONDS);
+            assertEquals(100, charge);
+            assertEquals(1, budget.getOversizedCount());
+
+            AtomicReference<Thread> smallWaiter = new AtomicReference<>();
+            Future<Long> next = executor.submit(() -> {
+                smallWaiter.set(Thread.currentThread());
+                return budget.acquire(1);
+            });
+            awaitWaiting(smallWaiter);
+            assertFalse(next.isDone());
+
+            budget.release(charge);
+            assertEquals(1, next.get(5, TimeUnit.SECONDS));
+            assertTrue(budget.toString().contains("1 oversized"), budget.toString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void parsesSizes() {
+        assertEquals(800L << 10, MemoryBudget.parseSize("800k"));
+        assertEquals(512L << 20, MemoryBudget.parseSize(" 512M "));
+        assertEquals(2L << 30, MemoryBudget.parseSize("2g"));
+        assertEquals(1234, MemoryBudget.parseSize("1234"));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBudget("empty", 0));
+    }
+
+    /**
+     * Waits until the thread published in {@code thread} is parked on a condition.
+     */
+    static void awaitWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.get() == null || thread.get().getState() != Thread.State.WAITING) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("the thread never blocked");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
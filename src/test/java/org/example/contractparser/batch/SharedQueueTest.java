@@ -0,0 +1,200 @@
+package org.example.contractparser.batch;
+
+import org.example.contractparser.DocumentType;
+import org.example.contractparser.HireIndex;
+import org.example.contractparser.RecordStore;
+import org.example.contractparser.procesing.IdType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedQueueTest {
+
+    private static final int PROCESSES = 3;
+    private static final int JOBS = 60;
+    private static final int PUBLISHES = 20;
+    private static final long TIMEOUT = 60_000;
+    private static final String CNP = "1690219296912";
+    private static final String EMPLOYEE = "POP ION";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void processesClaimingAtOnceNeverShareAJob() throws Exception {
+        SharedQueue queue = new SharedQueue(dir.resolve("queue"));
+        Set<String> ids = new HashSet<>(queue.enqueue(jobs(JOBS)));
+
+        Set<String> claimed = new HashSet<>();
+        for (String line : runProcesses("claim", queue.getRoot())) {
+            assertTrue(claimed.add(line), "claimed twice: " + line);
+        }
+
+        assertEquals(ids, claimed);
+        assertTrue(queue.waiting().isEmpty());
+    }
+
+    @Test
+    void reclaimedLeasesGoBackToTheInboxAndTheSlowWorkerLosesItsCommit() throws IOException {
+        SharedQueue queue = new SharedQueue(dir.resolve("queue"));
+        queue.enqueue(jobs(1));
+        SharedQueue.Lease slow = queue.claim(queue.waiting().get(0), "slow");
+        assertEquals(0, queue.reclaim(TIMEOUT, null), "a fresh lease was reclaimed");
+
+        expire(slow);
+        assertEquals(1, queue.reclaim(TIMEOUT, null));
+
+        SharedQueue.Lease retry = queue.claim(queue.waiting().get(0), "fast");
+        assertEquals(slow.getId(), retry.getId());
+        assertEquals(2, retry.getAttempt());
+        assertFalse(queue.heartbeat(slow));
+        assertFalse(queue.finish(slow, SharedQueue.Outcome.DONE, null));
+        assertTrue(queue.finish(retry, SharedQueue.Outcome.DONE, null));
+        assertTrue(queue.isCommitted(retry.getName()));
+        assertFalse(queue.isCommitted(slow.getName()));
+        assertTrue(queue.isDrained());
+    }
+
+    @Test
+    void failsAbandonedJobsAndReleasesTheirHire() throws IOException {
+        SharedQueue queue = new SharedQueue(dir.resolve("queue"));
+        HireIndex hires = HireIndex.open(dir.resolve("arhiva").toFile());
+        queue.enqueue(jobs(1));
+
+        SharedQueue.Lease lease = null;
+        for (int attempt = 1; attempt <= SharedQueue.MAX_ATTEMPTS; attempt++) {
+            lease = queue.claim(queue.waiting().get(0), "worker-" + attempt);
+            assertNull(hires.claim(CNP, EMPLOYEE, lease.getId()), "the retry of a job keeps its claim");
+            expire(lease);
+            assertEquals(1, queue.reclaim(TIMEOUT, hires));
+        }
+
+        assertTrue(queue.isDrained());
+        assertTrue(Files.exists(queue.getRoot().resolve("failed").resolve(lease.getName() + ".job")));
+        assertNull(hires.find(CNP), "the person of a failed job could not be sent again");
+    }
+
+    @Test
+    void reclaimKeepsTheHiresOfOtherJobs() throws IOException {
+        SharedQueue queue = new SharedQueue(dir.resolve("queue"));
+        HireIndex hires = HireIndex.open(dir.resolve("arhiva").toFile());
+        hires.claim(CNP, EMPLOYEE, "another-job");
+        queue.enqueue(jobs(1));
+
+        for (int attempt = 1; attempt <= SharedQueue.MAX_ATTEMPTS; attempt++) {
+            expire(queue.claim(queue.waiting().get(0), "worker"));
+            queue.reclaim(TIMEOUT, hires);
+        }
+
+        assertNotNull(hires.find(CNP));
+    }
+
+    @Test
+    void processesPublishingTheSameNameGetOneNameEach() throws Exception {
+        Path output = dir.resolve("arhiva");
+        Files.createDirectories(output);
+
+        Set<String> names = new HashSet<>();
+        for (String line : runProcesses("publish", output)) {
+            String[] parts = line.split("\t");
+            assertTrue(names.add(parts[0]), "published twice under " + parts[0]);
+            // what is under the name is what that worker published
+            assertEquals(parts[1], Files.readString(output.resolve(DocumentType.CONTRACT.fileName(parts[0]))));
+            assertEquals(parts[1], Files.readString(output.resolve(DocumentType.FISA.fileName(parts[0]))));
+            assertTrue(Files.exists(RecordStore.of(output.toFile()).fileOf(parts[0])));
+        }
+        assertEquals(PROCESSES * PUBLISHES, names.size());
+    }
+
+    /**
+     * Run in separate JVMs by the tests above: {@code claim <queue> <worker>} claims jobs until the inbox is
+     * empty and prints their ids, {@code publish <archive> <worker>} publishes documents of the same employee
+     * and prints each name with the content published under it.
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args[1]);
+        String worker = args[2];
+        if (args[0].equals("claim")) {
+            SharedQueue queue = new SharedQueue(path);
+            for (List<Path> waiting; !(waiting = queue.waiting()).isEmpty(); ) {
+                for (Path file : waiting) {
+                    SharedQueue.Lease lease = queue.claim(file, worker);
+                    if (lease != null) {
+                        System.out.println(lease.getId());
+                    }
+                }
+            }
+        } else {
+            SharedWorker publisher = new SharedWorker(new SharedQueue(path.resolveSibling("queue-" + worker)), worker,
+                    null, null, path.toFile(), null, 0f, TIMEOUT);
+            for (int i = 0; i < PUBLISHES; i++) {
+                String content = worker + "-" + i;
+                Path staging = path.resolve(SharedWorker.STAGING_DIR).resolve(content);
+                Files.createDirectories(staging);
+                Files.writeString(staging.resolve(DocumentType.CONTRACT.fileName(EMPLOYEE)), content);
+                Files.writeString(staging.resolve(DocumentType.FISA.fileName(EMPLOYEE)), content);
+                Path record = RecordStore.of(staging.toFile()).fileOf(EMPLOYEE);
+                Files.createDirectories(record.getParent());
+                Files.writeString(record, content);
+                System.out.println(publisher.publish(staging, EMPLOYEE) + "\t" + content);
+            }
+        }
+    }
+
+    private List<String> runProcesses(String mode, Path path) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++) {
+            Path output = dir.resolve(mode + "-" + i + ".txt");
+            outputs.add(output);
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SharedQueueTest.class.getName(), mode, path.toString(), "worker-" + i)
+                    .redirectOutput(output.toFile())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        for (Process process : processes) {
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS), mode + " process did not finish");
+            assertEquals(0, process.exitValue());
+        }
+        List<String> lines = new ArrayList<>();
+        for (Path output : outputs) {
+            for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    private List<BatchJob> jobs(int count) throws IOException {
+        Path scans = Files.createDirectories(dir.resolve("scans"));
+        List<BatchJob> jobs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path image = scans.resolve("scan-" + i + ".jpg");
+            Files.write(image, new byte[]{(byte) i});
+            jobs.add(new BatchJob(image.toString(), IdType.NEWID, "", "0740123456", "Depozit", "Cluj-Napoca", "Test"));
+        }
+        return jobs;
+    }
+
+    private static void expire(SharedQueue.Lease lease) throws IOException {
+        Files.setLastModifiedTime(lease.getFile(), FileTime.fromMillis(System.currentTimeMillis() - 2 * TIMEOUT));
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.contractparser.procesing;
+
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CnpTest {
+
+    private static final String MALE_1969_PRAHOVA = "1690219296912";
+    private static final String FEMALE_1967_SUCEAVA = "2671127330931";
+
+    @Test
+    void acceptsValidCnps() {
+        assertTrue(Cnp.isValid(MALE_1969_PRAHOVA));
+        assertTrue(Cnp.isValid(FEMALE_1967_SUCEAVA));
+    }
+
+    @Test
+    void computesControlDigitFromFirstTwelve() {
+        assertEquals(2, Cnp.controlDigit(MALE_1969_PRAHOVA));
+        assertEquals(1, Cnp.controlDigit(FEMALE_1967_SUCEAVA));
+    }
+
+    @Test
+    void rejectsWrongControlDigit() {
+        assertFalse(Cnp.isValid("1690219296913"));
+    }
+
+    @Test
+    void rejectsWrongLengthAndNonDigits() {
+        assertFalse(Cnp.isValid(null));
+        assertFalse(Cnp.isValid("169021929691"));
+        assertFalse(Cnp.isValid("16902192969120"));
+        assertFalse(Cnp.isValid("169O219296912"));
+    }
+
+    @Test
+    void rejectsImpossibleDateAndUnknownCounty() {
+        // 30 February, control digit recomputed so only the date is wrong
+        assertFalse(Cnp.isValid(withControlDigit("169023029691")));
+        // county 49 is not assigned
+        assertFalse(Cnp.isValid(withControlDigit("169021949691")));
+        assertTrue(Cnp.isValid(withControlDigit("169021940691")));
+    }
+
+    @Test
+    void acceptsTwentyNinthOfFebruaryOnlyInLeapYears() {
+        assertTrue(Cnp.isValid(withControlDigit("196022929691")));
+        assertTrue(Cnp.isValid(withControlDigit("500022929691")));
+        assertFalse(Cnp.isValid(withControlDigit("197022929691")));
+        assertFalse(Cnp.isValid(withControlDigit("300022929691"))); // 1800 was not a leap year
+    }
+
+    @Test
+    void decodesBirthDateSexAndCounty() {
+        assertEquals("19.02.1969", Cnp.formatBirthDate(MALE_1969_PRAHOVA));
+        assertEquals('M', Cnp.sex(MALE_1969_PRAHOVA));
+        assertEquals("Prahova", Cnp.countyName(Cnp.countyCode(MALE_1969_PRAHOVA)));
+
+        assertEquals("27.11.1967", Cnp.formatBirthDate(FEMALE_1967_SUCEAVA));
+        assertEquals('F', Cnp.sex(FEMALE_1967_SUCEAVA));
+        assertEquals("Suceava", Cnp.countyName(Cnp.countyCode(FEMALE_1967_SUCEAVA)));
+    }
+
+    @Test
+    void decodesCenturyFromFirstDigit() {
+        assertEquals(1869, Cnp.birthYear("369021929691"));
+        assertEquals(2005, Cnp.birthYear("505021929691"));
+        assertEquals('?', Cnp.sex("969021929691"));
+    }
+
+    @Test
+    void applyOverridesMisreadBirthDateAndFillsBirthPlace() {
+        ContractRecord.Builder record = ContractRecord.builder()
+                .set(ContractField.CNP, MALE_1969_PRAHOVA, 97f)
+                .set(ContractField.BIRTH_DATE, "19.02.1968", 60f);
+        Cnp.apply(record);
+
+        assertEquals("19.02.1969", record.get(ContractField.BIRTH_DATE));
+        assertEquals(97f, record.getConfidence(ContractField.BIRTH_DATE));
+        assertEquals("Prahova", record.get(ContractField.BIRTH_PLACE));
+    }
+
+    @Test
+    void applyGivesInvalidCnpZeroConfidence() {
+        ContractRecord.Builder record = ContractRecord.builder()
+                .set(ContractField.CNP, "1690219296913", 99f)
+                .set(ContractField.BIRTH_DATE, "19.02.1968", 99f);
+        Cnp.apply(record);
+
+        assertEquals(0f, record.getConfidence(ContractField.CNP));
+        assertEquals("19.02.1968", record.get(ContractField.BIRTH_DATE));
+    }
+
+    private static String withControlDigit(String firstTwelve) {
+        return firstTwelve + Cnp.controlDigit(firstTwelve + "0");
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.contractparser.procesing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GazetteerTest {
+
+    private final Gazetteer gazetteer = Gazetteer.getDefault();
+
+    @Test
+    void correctsCaseDiacriticsAndCountyCodes() {
+        Gazetteer.Match city = gazetteer.locality("TIMIȘOARA");
+        assertEquals("Timisoara", city.getName());
+        assertTrue(city.isExact());
+
+        Gazetteer.Match county = gazetteer.county("PH");
+        assertEquals("Prahova", county.getName());
+        assertTrue(county.isExact());
+    }
+
+    @Test
+    void onlySuggestsNamesAFewEditsAway() {
+        // Tulca is a real commune missing from the list, not a misread Tulcea
+        Gazetteer.Match match = gazetteer.locality("Tulca");
+        assertEquals("Tulcea", match.getName());
+        assertFalse(match.isExact());
+        assertEquals(1, match.getDistance());
+    }
+
+    @Test
+    void findsNothingForShortOrFarNames() {
+        assertNull(gazetteer.locality("Xyz"));
+        assertNull(gazetteer.locality("Negresti-Oas Vale"));
+    }
+
+    @Test
+    void looksLocalitiesUpInTheirCounty() throws IOException {
+        Gazetteer small = Gazetteer.load(new ByteArrayInputStream(String.join("\n",
+                "J;Alba;AB", "J;Brasov;BV", "J;Iasi;IS",
+                "L;Sebes;AB", "L;Rasnov;BV", "L;Victoria;BV", "L;Victoria;IS").getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("Rasnov", small.locality("RÂȘNOV", "BV").getName());
+        assertEquals("Victoria", small.locality("Victoria", "Iasi").getName());
+        assertNull(small.locality("Sebes", "BV")); // listed, but in another county
+        assertEquals(1, small.locality("Rasnv", "Brasov").getDistance());
+        // a county that is not listed falls back to every locality
+        assertEquals("Sebes", small.locality("Sebes", "Nowhere").getName());
+        assertEquals("Sebes", small.locality("Sebes", null).getName());
+    }
+
+    @Test
+    void readsCountyCodesWhateverTheDefaultLocale() throws IOException {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            Gazetteer small = Gazetteer.load(new ByteArrayInputStream("J;Iasi;is".getBytes(StandardCharsets.UTF_8)));
+            assertEquals("Iasi", small.county("is").getName());
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+}
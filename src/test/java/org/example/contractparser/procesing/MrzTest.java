@@ -0,0 +1,110 @@
+package org.example.contractparser.procesing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MrzTest {
+
+    // specimens of ICAO 9303 parts 5 and 6
+    private static final List<String> ICAO_TD1 = List.of(
+            "I<UTOD231458907<<<<<<<<<<<<<<<",
+            "7408122F1204159UTO<<<<<<<<<<<6",
+            "ERIKSSON<<ANNA<MARIA<<<<<<<<<<");
+    private static final List<String> ICAO_TD2 = List.of(
+            "I<UTOERIKSSON<<ANNA<MARIA<<<<<<<<<<<",
+            "D231458907UTO7408122F1204159<<<<<<<6");
+
+    // old Romanian card of CNP 1690219296912: first digit and last six in the optional data
+    private static final String ROMANIAN_NAME = "IDROUPOP<<ION<VASILE<<<<<<<<<<<<<<<<";
+    private static final String ROMANIAN_DATA = "PH123456<7ROU6902195M290219712969122";
+
+    @Test
+    void computesIcaoCheckDigits() {
+        assertEquals(7, Mrz.checkDigit("D23145890", 0, 9));
+        assertEquals(2, Mrz.checkDigit("740812", 0, 6));
+        assertEquals(9, Mrz.checkDigit("120415", 0, 6));
+        assertEquals(0, Mrz.checkDigit("<<<<<<", 0, 6));
+    }
+
+    @Test
+    void decodesTd1() {
+        Mrz mrz = Mrz.find(ICAO_TD1);
+        assertNotNull(mrz);
+        assertEquals(Mrz.Format.TD1, mrz.getFormat());
+        assertEquals("D23145890", mrz.getDocumentNumber());
+        assertEquals("ERIKSSON", mrz.getSurname());
+        assertEquals("ANNA MARIA", mrz.getGivenNames());
+        assertEquals('F', mrz.getSex());
+        assertNull(mrz.getCnp());
+    }
+
+    @Test
+    void decodesTd2() {
+        Mrz mrz = Mrz.find(ICAO_TD2);
+        assertNotNull(mrz);
+        assertEquals(Mrz.Format.TD2, mrz.getFormat());
+        assertEquals("UTO", mrz.getIssuingState());
+        assertEquals("D23145890", mrz.getDocumentNumber());
+        assertEquals("ERIKSSON", mrz.getSurname());
+    }
+
+    @Test
+    void rebuildsCnpOfOldRomanianCard() {
+        Mrz mrz = Mrz.find(List.of("ROMANIA", ROMANIAN_NAME, ROMANIAN_DATA));
+        assertNotNull(mrz);
+        assertEquals(1, mrz.getFirstLine());
+        assertEquals("PH123456", mrz.getDocumentNumber());
+        assertEquals("POP", mrz.getSurname());
+        assertEquals("ION VASILE", mrz.getGivenNames());
+        assertEquals("1690219296912", mrz.getCnp());
+    }
+
+    @Test
+    void readsLinesWithSpacesAndDroppedFillers() {
+        Mrz mrz = Mrz.find(List.of("IDROU POP<<ION<VASILE", "PH123456<7 ROU6902195M2902197 12969122"));
+        assertNotNull(mrz);
+        assertEquals("1690219296912", mrz.getCnp());
+    }
+
+    @Test
+    void rejectsEveryBrokenCheckDigit() {
+        for (int position : new int[]{9, 19, 27, 35}) {
+            char[] data = ROMANIAN_DATA.toCharArray();
+            data[position] = data[position] == '0' ? '1' : '0';
+            List<String> lines = List.of(ROMANIAN_NAME, new String(data));
+            assertNull(Mrz.find(lines), "check digit at " + position);
+
+            Mrz unverified = Mrz.findUnverified(lines);
+            assertNotNull(unverified);
+            assertFalse(unverified.isValid());
+            assertEquals("POP", unverified.getSurname());
+        }
+        char[] td1 = ICAO_TD1.get(1).toCharArray();
+        td1[29] = '7';
+        assertNull(Mrz.find(List.of(ICAO_TD1.get(0), new String(td1), ICAO_TD1.get(2))));
+    }
+
+    @Test
+    void prefersAValidZoneOverAnEarlierBrokenOne() {
+        Mrz mrz = Mrz.findUnverified(List.of(ROMANIAN_NAME, "PH123456<0ROU6902195M290219712969122",
+                ROMANIAN_NAME, ROMANIAN_DATA));
+        assertNotNull(mrz);
+        assertTrue(mrz.isValid());
+        assertEquals(2, mrz.getFirstLine());
+    }
+
+    @Test
+    void ignoresLinesThatOnlyLookLikeAnMrz() {
+        assertNull(Mrz.findUnverified(List.of("AB<<", "<")));
+        assertNull(Mrz.findUnverified(List.of("Str. Florilor <nr. 3>", "Jud. PH")));
+        assertNull(Mrz.compact("PH<1", 36));
+        assertEquals(ROMANIAN_NAME, Mrz.compact("IDROU POP«ION<VASILE", 36));
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.contractparser.procesing;
+
+import org.example.contractparser.ContractField;
+import org.example.contractparser.ContractRecord;
+import org.example.contractparser.DetectText.TextBlock;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class OldIdTest {
+
+    private final OldId parser = new OldId();
+
+    @Test
+    void readsVerifiedMrz() {
+        ContractRecord record = parse("IDROUPOP<<ION<VASILE", "PH123456<7ROU6902195M290219712969122");
+        assertEquals("POP ION VASILE", record.get(ContractField.NAME));
+        assertEquals("PH", record.get(ContractField.SERIES));
+        assertEquals("123456", record.get(ContractField.NUMBER));
+        assertEquals("1690219296912", record.get(ContractField.CNP));
+        assertEquals(100f, record.getConfidence(ContractField.CNP));
+    }
+
+    @Test
+    void marksMrzWithBrokenCheckDigitsForReview() {
+        ContractRecord record = parse("IDROUPOP<<ION<VASILE", "PH123456<0ROU6902195M290219712969122",
+                "CNP 1690219296912");
+        assertEquals("POP ION VASILE", record.get(ContractField.NAME));
+        assertEquals(OldId.UNVERIFIED_CONFIDENCE, record.getConfidence(ContractField.NAME));
+        assertEquals(OldId.UNVERIFIED_CONFIDENCE, record.getConfidence(ContractField.NUMBER));
+        assertEquals("1690219296912", record.get(ContractField.CNP)); // from the printed CNP line instead
+    }
+
+    @Test
+    void ignoresShortLinesWithFillers() {
+        ContractRecord record = parse("AB<<", "P<", "<", "Str. Florilor <3>");
+        assertFalse(record.has(ContractField.NAME));
+        assertFalse(record.has(ContractField.SERIES));
+        assertFalse(record.has(ContractField.NUMBER));
+    }
+
+    private ContractRecord parse(String... lines) {
+        return parser.parse(List.of(lines).stream().map(line -> new TextBlock(line, 95f, null)).toList());
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.contractparser.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.example.contractparser.ContractField;
+import org.example.contractparser.TemplateRegistry;
+import org.example.contractparser.batch.SyntheticIds;
+import org.example.contractparser.procesing.IdType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContractHttpServerTest {
+
+    private static final String COMPANY = "Test";
+    private static final int MAX_BODY = 4096;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final SyntheticIds.Card CARD = new SyntheticIds(1, 0, 0).card(0, IdType.NEWID);
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @TempDir
+    static Path dir;
+
+    // one server for all tests, stopping one waits a second for open exchanges
+    private static ContractHttpServer server;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Path companyDir = dir.resolve(TemplateRegistry.TEMPLATES_DIR).resolve(COMPANY);
+        Files.createDirectories(companyDir);
+        writeTemplate(companyDir.resolve("contract.docx"), "Contract");
+        writeTemplate(companyDir.resolve("fisa.docx"), "Fisa");
+        TemplateRegistry registry = new TemplateRegistry(dir.resolve(TemplateRegistry.TEMPLATES_DIR));
+        server = new ContractHttpServer(InetAddress.getLoopbackAddress(), 0, 2, 4, MAX_BODY, registry,
+                image -> CARD.getBlocks());
+        server.start();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.stop();
+    }
+
+    @Test
+    void listsTheTemplates() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/templates")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(MAPPER.readTree(response.body()).toString().contains("\"" + COMPANY + "\""));
+    }
+
+    @Test
+    void refusesOtherMethods() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/templates"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+
+        assertEquals(405, response.statusCode());
+        assertEquals("GET", response.headers().firstValue("Allow").orElse(null));
+    }
+
+    @Test
+    void parsesAnUploadedId() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/parse?type=newid"))
+                .header("Content-Type", "image/jpeg")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[512])));
+
+        assertEquals(200, response.statusCode());
+        JsonNode fields = MAPPER.readTree(response.body());
+        assertEquals(CARD.getExpected().get(ContractField.CNP), fields.path("CNP").asText());
+        assertEquals(CARD.getExpected().get(ContractField.NAME), fields.path("NAME").asText());
+    }
+
+    @Test
+    void generatesTheRequestedDocument() throws Exception {
+        HttpResponse<byte[]> response = CLIENT.send(HttpRequest.newBuilder(uri("/generate"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"template\":\"" + COMPANY + "\",\"document\":\"fisa\",\"fields\":{\"name\":\"POP ION\"}}"))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(ContractHttpServer.DOCX_TYPE, response.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(response.body().length, response.headers().firstValueAsLong("Content-Length").orElse(-1));
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(response.body()));
+             XWPFWordExtractor text = new XWPFWordExtractor(document)) {
+            assertTrue(text.getText().contains("Fisa POP ION"), text.getText());
+        }
+    }
+
+    @Test
+    void refusesUnknownFields() throws Exception {
+        HttpResponse<String> response = generate("{\"template\":\"" + COMPANY + "\",\"fields\":{\"SHOE_SIZE\":\"42\"}}");
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("SHOE_SIZE"), response.body());
+    }
+
+    @Test
+    void refusesUnknownTemplatesAndInvalidJson() throws Exception {
+        assertEquals(404, generate("{\"template\":\"Nobody\"}").statusCode());
+        assertEquals(400, generate("{\"template\":").statusCode());
+    }
+
+    @Test
+    void refusesBodiesOverTheLimit() throws Exception {
+        HttpResponse<String> declared = send(HttpRequest.newBuilder(uri("/parse"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[MAX_BODY + 1])));
+        // no Content-Length, the server has to count while reading
+        HttpResponse<String> chunked = send(HttpRequest.newBuilder(uri("/parse"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(new byte[MAX_BODY + 1]))));
+
+        assertEquals(413, declared.statusCode());
+        assertEquals(413, chunked.statusCode());
+    }
+
+    private HttpResponse<String> generate(String json) throws Exception {
+        return send(HttpRequest.newBuilder(uri("/generate")).POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static void writeTemplate(Path file, String title) throws IOException {
+        try (XWPFDocument document = new XWPFDocument();
+             OutputStream out = Files.newOutputStream(file)) {
+            document.createParagraph().createRun().setText(title + " " + ContractField.NAME.getPlaceholder());
+            document.write(out);
+        }
+    }
+}